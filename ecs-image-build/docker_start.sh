@@ -2,4 +2,10 @@
 # Start script for account-validator-api
 
 PORT=8080
-exec java -jar -Dserver.port="${PORT}" -XX:MaxRAMPercentage=80 "account-validator-api.jar"
+# Connections to the file transfer api are pooled by the JDK keep-alive cache
+HTTP_MAX_CONNECTIONS="${HTTP_MAX_CONNECTIONS:-20}"
+HTTP_KEEP_ALIVE_SECONDS="${HTTP_KEEP_ALIVE_SECONDS:-30}"
+exec java -jar -Dserver.port="${PORT}" \
+  -Dhttp.maxConnections="${HTTP_MAX_CONNECTIONS}" \
+  -Dhttp.keepAlive.time.server="${HTTP_KEEP_ALIVE_SECONDS}" \
+  -XX:MaxRAMPercentage=80 "account-validator-api.jar"
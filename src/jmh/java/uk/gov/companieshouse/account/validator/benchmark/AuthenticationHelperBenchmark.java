@@ -0,0 +1,67 @@
+package uk.gov.companieshouse.account.validator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import uk.gov.companieshouse.account.validator.security.AuthenticationHelper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing the ERIC headers that {@link AuthenticationHelper} reads on every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationHelperBenchmark {
+
+    private AuthenticationHelper helper;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        helper = new AuthenticationHelper();
+        request = new MockHttpServletRequest();
+        request.addHeader("ERIC-Identity", "Y2VkZWVlMzhlZWFjY2M4MzQ3MT");
+        request.addHeader("ERIC-Identity-Type", AuthenticationHelper.OAUTH2_IDENTITY_TYPE);
+        request.addHeader("ERIC-Authorised-User", "demo@ch.gov.uk; forename=Demo; surname=User");
+        request.addHeader("ERIC-Authorised-Roles", "permission /admin/search /admin/accounts-validator");
+        request.addHeader("ERIC-Authorised-Key-Roles", AuthenticationHelper.API_KEY_ELEVATED_ROLE);
+    }
+
+    @Benchmark
+    public String authorisedIdentityType() {
+        return helper.getAuthorisedIdentityType(request);
+    }
+
+    @Benchmark
+    public String authorisedUserEmail() {
+        return helper.getAuthorisedUserEmail(request);
+    }
+
+    @Benchmark
+    public String authorisedUserSurname() {
+        return helper.getAuthorisedUserSurname(request);
+    }
+
+    @Benchmark
+    public boolean roleAuthorised() {
+        return helper.isRoleAuthorised(request, "/admin/accounts-validator");
+    }
+
+    @Benchmark
+    public boolean keyElevatedPrivilegesAuthorised() {
+        return helper.isKeyElevatedPrivilegesAuthorised(request);
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.companieshouse.account.validator.benchmark;
+
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Data;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Errors;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample payloads shared by the benchmarks, sized like a typical Felix response.
+ */
+final class Fixtures {
+
+    static final String FILE_ID = "9b8c3e0e-5f1c-4a8e-9d1e-2f3b4c5d6e7f";
+    static final String FILE_NAME = "accounts.xhtml";
+
+    private Fixtures() {
+    }
+
+    static Results results(ValidationStatusApi validationStatus) {
+        Data data = new Data();
+        data.setBalanceSheetDate("2024-03-31");
+        data.setAccountsType("08");
+        data.setCompaniesHouseRegisteredNumber("00006400");
+
+        Results results = new Results();
+        results.setValidationStatus(validationStatus);
+        results.setData(data);
+        if (validationStatus == ValidationStatusApi.FAILED) {
+            results.setErrors(errors(5));
+        }
+        return results;
+    }
+
+    static RequestStatus completeStatus() {
+        LocalDateTime now = LocalDateTime.now();
+        return new RequestStatus(FILE_ID, FILE_NAME, RequestStatus.STATE_COMPLETE,
+                results(ValidationStatusApi.FAILED), now, now);
+    }
+
+    private static List<Errors> errors(int count) {
+        List<Errors> errors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            errors.add(new Errors("Inconsistent duplicate fact values for uk-bus:EntityCurrentLegalOrRegisteredName " + i));
+        }
+        return errors;
+    }
+}
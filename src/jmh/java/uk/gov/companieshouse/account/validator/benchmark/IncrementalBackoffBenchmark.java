@@ -0,0 +1,51 @@
+package uk.gov.companieshouse.account.validator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.companieshouse.account.validator.service.retry.IncrementalBackoff;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the overhead {@link IncrementalBackoff#attempt} adds to a call that succeeds first time,
+ * against calling the supplier directly. Retries are not measured since they are dominated by the
+ * configured sleep.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementalBackoffBenchmark {
+
+    private IncrementalBackoff backoff;
+    private Supplier<String> supplier;
+
+    @Setup
+    public void setUp() {
+        backoff = new IncrementalBackoff(Duration.ofSeconds(1), Duration.ofSeconds(1),
+                Duration.ofSeconds(30), Duration.ofSeconds(10));
+        supplier = () -> Fixtures.FILE_ID;
+    }
+
+    @Benchmark
+    public String baseline() {
+        return supplier.get();
+    }
+
+    @Benchmark
+    public String attempt() {
+        return backoff.attempt(supplier);
+    }
+}
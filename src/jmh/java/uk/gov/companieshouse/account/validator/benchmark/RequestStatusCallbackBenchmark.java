@@ -0,0 +1,100 @@
+package uk.gov.companieshouse.account.validator.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepositoryImpl;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the Mongo work done when Felix calls back with a result, against Mongo in a container, so
+ * Docker is required. {@code upsert} is the single findAndModify that
+ * {@code RequestStatusRepositoryImpl.upsert} sends. {@code readModifySave} is the path it replaced: the
+ * validator's status read, the factory's read of the created date and a save of the whole document.
+ * Throughput gives Mongo operations per second and sample time gives the callback's latency.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RequestStatusCallbackBenchmark {
+
+    private static final int FILES = 1000;
+
+    private MongoDBContainer mongo;
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private RequestStatusRepositoryImpl repository;
+    private Results results;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongo = new MongoDBContainer("mongo:7.0");
+        mongo.start();
+        mongoClient = MongoClients.create(mongo.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "account_validator");
+        repository = new RequestStatusRepositoryImpl(mongoTemplate, event -> { });
+        results = Fixtures.results(ValidationStatusApi.FAILED);
+
+        Results pending = Fixtures.results(ValidationStatusApi.UPLOADED_TO_FTS);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < FILES; i++) {
+            mongoTemplate.insert(new RequestStatus(fileId(i), Fixtures.FILE_NAME, RequestStatus.STATE_PENDING,
+                    pending, now, now));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+        mongo.stop();
+    }
+
+    @Benchmark
+    public RequestStatus upsert() {
+        LocalDateTime now = LocalDateTime.now();
+        return repository.upsert(new RequestStatus(nextFileId(), Fixtures.FILE_NAME, RequestStatus.STATE_COMPLETE,
+                results, now, now));
+    }
+
+    @Benchmark
+    public RequestStatus readModifySave() {
+        String fileId = nextFileId();
+        mongoTemplate.findById(fileId, RequestStatus.class);
+        RequestStatus stored = mongoTemplate.findById(fileId, RequestStatus.class);
+        return mongoTemplate.save(new RequestStatus(fileId, Fixtures.FILE_NAME, RequestStatus.STATE_COMPLETE,
+                results, stored.createdDateTime(), LocalDateTime.now()));
+    }
+
+    private String nextFileId() {
+        return fileId(Math.floorMod(next.getAndIncrement(), FILES));
+    }
+
+    private static String fileId(int i) {
+        return "file-" + i;
+    }
+}
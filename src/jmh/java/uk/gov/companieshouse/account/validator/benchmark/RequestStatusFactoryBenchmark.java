@@ -0,0 +1,49 @@
+package uk.gov.companieshouse.account.validator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the status written when a Felix result arrives, for each branch of
+ * {@link RequestStatusFactory#fromResults}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestStatusFactoryBenchmark {
+
+    @Param({"OK", "FAILED", "ERROR", "SENT_TO_TNDP"})
+    private ValidationStatusApi validationStatus;
+
+    private RequestStatusFactory factory;
+    private Results results;
+
+    @Setup
+    public void setUp() {
+        factory = new RequestStatusFactory();
+        results = Fixtures.results(validationStatus);
+    }
+
+    @Benchmark
+    public RequestStatus fromResults() {
+        return factory.fromResults(Fixtures.FILE_ID, results, Fixtures.FILE_NAME);
+    }
+}
@@ -0,0 +1,86 @@
+package uk.gov.companieshouse.account.validator.benchmark;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the BSON mapping of {@link RequestStatus} done by Spring Data on every status read and
+ * write, without a database. {@code mapUpsert} maps the same update that
+ * {@code RequestStatusRepositoryImpl.upsert} sends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestStatusMappingBenchmark {
+
+    private MappingMongoConverter converter;
+    private UpdateMapper updateMapper;
+    private MongoPersistentEntity<?> entity;
+    private RequestStatus status;
+    private Document document;
+    private Update update;
+
+    @Setup
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        updateMapper = new UpdateMapper(converter);
+        entity = mappingContext.getRequiredPersistentEntity(RequestStatus.class);
+
+        status = Fixtures.completeStatus();
+        document = new Document();
+        converter.write(status, document);
+        update = new Update()
+                .set("status", status.status())
+                .set("result", status.result())
+                .set("updated", status.updatedDateTime())
+                .setOnInsert("created", status.createdDateTime())
+                .set("fileName", status.fileName());
+    }
+
+    @Benchmark
+    public Document write() {
+        Document target = new Document();
+        converter.write(status, target);
+        return target;
+    }
+
+    @Benchmark
+    public RequestStatus read() {
+        return converter.read(RequestStatus.class, document);
+    }
+
+    @Benchmark
+    public Document mapUpsert() {
+        return updateMapper.getMappedObject(update.getUpdateObject(), entity);
+    }
+}
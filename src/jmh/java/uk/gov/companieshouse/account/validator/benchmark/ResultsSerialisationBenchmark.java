@@ -0,0 +1,67 @@
+package uk.gov.companieshouse.account.validator.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson (de)serialisation of {@link Results}, with its {@code Data} and {@code Errors}, as
+ * XML (the Felix response) and as JSON (the API response and the cached status).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultsSerialisationBenchmark {
+
+    private ObjectMapper jsonMapper;
+    private XmlMapper xmlMapper;
+    private Results results;
+    private String json;
+    private String xml;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        jsonMapper = new ObjectMapper();
+        xmlMapper = new XmlMapper();
+        results = Fixtures.results(ValidationStatusApi.FAILED);
+        json = jsonMapper.writeValueAsString(results);
+        xml = xmlMapper.writeValueAsString(results);
+    }
+
+    @Benchmark
+    public String writeJson() throws JsonProcessingException {
+        return jsonMapper.writeValueAsString(results);
+    }
+
+    @Benchmark
+    public Results readJson() throws JsonProcessingException {
+        return jsonMapper.readValue(json, Results.class);
+    }
+
+    @Benchmark
+    public String writeXml() throws JsonProcessingException {
+        return xmlMapper.writeValueAsString(results);
+    }
+
+    @Benchmark
+    public Results readXml() throws JsonProcessingException {
+        return xmlMapper.readValue(xml, Results.class);
+    }
+}
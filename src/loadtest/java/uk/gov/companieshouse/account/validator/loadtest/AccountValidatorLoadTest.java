@@ -0,0 +1,230 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.account.validator.AccountValidatorApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives a mix of submit, check, render and cleanup requests at the application, running against
+ * Mongo in a container and local stand-ins for the file transfer api, Felix and the iXBRL to PDF
+ * service. The latency percentiles, throughput and heap use of the run are written as JSON to
+ * {@code target/loadtest-report.json}. See {@link LoadTestSettings} for the settings.
+ */
+@Testcontainers
+@SpringBootTest(classes = AccountValidatorApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AccountValidatorLoadTest {
+
+    private static final String VALIDATE_PATH = "/account-validator/validate";
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static final LoadTestSettings SETTINGS = LoadTestSettings.fromSystemProperties();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private static final StubServices STUBS = startStubs();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<String> submitted = Collections.synchronizedList(new ArrayList<>());
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        String stubUrl = StubServices.baseUrl(SETTINGS.stubPort());
+        registry.add("spring.data.mongodb.uri", () -> MONGO.getReplicaSetUrl("account_validator"));
+        registry.add("api.base.path", () -> stubUrl);
+        registry.add("payments.api.base.path", () -> stubUrl);
+        registry.add("internal.api.base.path", () -> stubUrl);
+        registry.add("internal.api.key", () -> "loadtest");
+        registry.add("file.transfer.api.base.path", () -> stubUrl + FileTransferStub.CONTEXT);
+        registry.add("felix.validator.url", () -> stubUrl + FelixStub.CONTEXT);
+        registry.add("IXBRL_TO_PDF_URI", () -> stubUrl + PdfRendererStub.CONTEXT);
+        // Every status is old enough to be cleaned up, so cleanup requests do real work
+        registry.add("delete.files.older.than.days", () -> -1);
+        registry.add("logging.level.org.springframework.web", () -> "INFO");
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        STUBS.close();
+    }
+
+    @Test
+    @DisplayName("Reports latency, throughput and heap use for the configured request mix")
+    void runMix() throws IOException {
+        String appUrl = "http://localhost:" + port;
+        STUBS.felix().setCallbackBaseUrl(appUrl);
+
+        List<Operation> weighted = new ArrayList<>();
+        SETTINGS.mix().forEach((operation, weight) -> weighted.addAll(Collections.nCopies(weight, operation)));
+
+        long start = System.nanoTime();
+        long deadline = start + SETTINGS.duration().toNanos();
+        try (HeapSampler heap = new HeapSampler(Duration.ofMillis(200));
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < SETTINGS.concurrency(); i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        send(appUrl, weighted.get(ThreadLocalRandom.current().nextInt(weighted.size())));
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.close();
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            Map<String, Object> report = report(seconds, heap.summarise());
+            writeReport(report);
+
+            LatencyRecorder.OperationSummary submits = recorder.summarise(Operation.SUBMIT, seconds);
+            assertThat(submits.count(), is(greaterThan(0L)));
+            assertThat(STUBS.felix().getCallbacksSent(), is(greaterThan(0L)));
+        }
+    }
+
+    private void send(String appUrl, Operation operation) {
+        String fileId = operation == Operation.SUBMIT || operation == Operation.CLEANUP ? null : randomSubmitted();
+        if (fileId == null && operation != Operation.CLEANUP) {
+            operation = Operation.SUBMIT;
+        }
+
+        HttpRequest request = switch (operation) {
+            case SUBMIT -> submitRequest(appUrl);
+            case CHECK -> request(appUrl + VALIDATE_PATH + "/check/" + fileId).GET().build();
+            case RENDER -> request(appUrl + VALIDATE_PATH + "/render/" + fileId).GET().build();
+            case CLEANUP -> request(appUrl + VALIDATE_PATH + "/cleanup-submissions").DELETE().build();
+        };
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.discarding());
+            recorder.record(operation, response.statusCode(), System.nanoTime() - start);
+        } catch (IOException e) {
+            recorder.recordFailure(operation, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest submitRequest(String appUrl) {
+        String fileId = UUID.randomUUID().toString();
+        String fileName = fileId + ".xhtml";
+        STUBS.fileTransfer().upload(fileId, fileName);
+        submitted.add(fileId);
+
+        Map<String, String> body = Map.of("id", fileId, "fileName", fileName, "customerId", "loadtest");
+        try {
+            return request(appUrl + VALIDATE_PATH)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(OBJECT_MAPPER.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HttpRequest.Builder request(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .timeout(Duration.ofMinutes(2))
+                .header("ERIC-Identity", "loadtest")
+                .header("ERIC-Identity-Type", "key");
+    }
+
+    private String randomSubmitted() {
+        synchronized (submitted) {
+            return submitted.isEmpty() ? null : submitted.get(ThreadLocalRandom.current().nextInt(submitted.size()));
+        }
+    }
+
+    private Map<String, Object> report(double seconds, HeapSampler.HeapSummary heap) {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LatencyRecorder.OperationSummary summary = recorder.summarise(operation, seconds);
+            if (summary != null) {
+                operations.put(operation.label(), summary);
+            }
+        }
+
+        Map<String, Object> stubs = new LinkedHashMap<>();
+        stubs.put("notScannedResponses", STUBS.fileTransfer().getNotScannedResponses());
+        stubs.put("felixAccepted", STUBS.felix().getAccepted());
+        stubs.put("felixCallbacksSent", STUBS.felix().getCallbacksSent());
+        stubs.put("felixCallbacksFailed", STUBS.felix().getCallbacksFailed());
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("virtualThreads", virtualThreads);
+        settings.put("concurrency", SETTINGS.concurrency());
+        settings.put("mix", SETTINGS.mix());
+        settings.put("fileSizeBytes", SETTINGS.fileSize());
+        settings.put("scanDelayMillis", SETTINGS.scanDelay().toMillis());
+        settings.put("felixAcceptLatencyMillis", SETTINGS.felixAcceptLatency().toMillis());
+        settings.put("felixCallbackDelayMillis", SETTINGS.felixCallbackDelay().toMillis());
+        settings.put("pdfLatencyMillis", SETTINGS.pdfLatency().toMillis());
+        settings.put("pdfSizeBytes", SETTINGS.pdfSize());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("durationSeconds", seconds);
+        report.put("settings", settings);
+        report.put("operations", operations);
+        report.put("heap", heap);
+        report.put("stubs", stubs);
+        return report;
+    }
+
+    private static void writeReport(Map<String, Object> report) throws IOException {
+        File file = new File(SETTINGS.report());
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        OBJECT_MAPPER.writeValue(file, report);
+    }
+
+    private static StubServices startStubs() {
+        try {
+            return new StubServices(SETTINGS, OBJECT_MAPPER, HTTP_CLIENT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
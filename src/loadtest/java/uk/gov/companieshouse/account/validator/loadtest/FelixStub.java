@@ -0,0 +1,147 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Data;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for Felix. A file is accepted straight away and its result is sent later by patching the
+ * callback url, as the real validator does. The callback is sent to the application under test, in
+ * place of the internal api gateway that routes it in production.
+ */
+class FelixStub implements HttpHandler, AutoCloseable {
+
+    static final String CONTEXT = "/felix";
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Duration acceptLatency;
+    private final Duration callbackDelay;
+    private final ScheduledExecutorService callbacks =
+            Executors.newScheduledThreadPool(1, Thread.ofVirtual().name("felix-stub-callback-", 0).factory());
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder callbacksSent = new LongAdder();
+    private final LongAdder callbacksFailed = new LongAdder();
+
+    private volatile String callbackBaseUrl;
+
+    FelixStub(ObjectMapper objectMapper, HttpClient httpClient, Duration acceptLatency, Duration callbackDelay) {
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+        this.acceptLatency = acceptLatency;
+        this.callbackDelay = callbackDelay;
+    }
+
+    /**
+     * Sets where results are sent, once the application under test is listening.
+     */
+    void setCallbackBaseUrl(String callbackBaseUrl) {
+        this.callbackBaseUrl = callbackBaseUrl;
+    }
+
+    long getAccepted() {
+        return accepted.sum();
+    }
+
+    long getCallbacksSent() {
+        return callbacksSent.sum();
+    }
+
+    long getCallbacksFailed() {
+        return callbacksFailed.sum();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String fileId = text(request, "file_id", "fileId");
+            String callbackUrl = text(request, "callback_url", "callbackUrl");
+            if (fileId == null || callbackUrl == null) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            sleep(acceptLatency);
+            accepted.increment();
+            callbacks.schedule(() -> sendResult(fileId, URI.create(callbackUrl)),
+                    callbackDelay.toMillis(), TimeUnit.MILLISECONDS);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void sendResult(String fileId, URI callbackUrl) {
+        Data data = new Data();
+        data.setBalanceSheetDate("2024-03-31");
+        data.setAccountsType("08");
+        data.setCompaniesHouseRegisteredNumber("00006400");
+        Results results = new Results();
+        results.setValidationStatus(ValidationStatusApi.OK);
+        results.setData(data);
+
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(callbackBaseUrl + callbackUrl.getPath()))
+                    .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(results)))
+                    .header("Content-Type", "application/json")
+                    .header("ERIC-Identity", "felix-stub")
+                    .header("ERIC-Identity-Type", "key")
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 200) {
+                callbacksSent.increment();
+            } else {
+                callbacksFailed.increment();
+            }
+        } catch (IOException e) {
+            callbacksFailed.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String text(JsonNode node, String... names) {
+        for (String name : names) {
+            if (node.hasNonNull(name)) {
+                return node.get(name).asText();
+            }
+        }
+        return null;
+    }
+
+    static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        callbacks.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for the file transfer api. Uploaded files report NOT_SCANNED until the scan delay has
+ * passed and are clean afterwards, so callers go through the same wait for the AV scan as in production.
+ * Serves {@code GET /{id}} for the details, {@code GET /{id}/download} for the contents and
+ * {@code DELETE /{id}}.
+ */
+class FileTransferStub implements HttpHandler {
+
+    static final String CONTEXT = "/file-transfer";
+
+    private final ObjectMapper objectMapper;
+    private final Duration scanDelay;
+    private final byte[] contents;
+    private final Map<String, StoredFile> files = new ConcurrentHashMap<>();
+    private final LongAdder notScanned = new LongAdder();
+
+    FileTransferStub(ObjectMapper objectMapper, Duration scanDelay, int fileSize) {
+        this.objectMapper = objectMapper;
+        this.scanDelay = scanDelay;
+        this.contents = new byte[fileSize];
+        Arrays.fill(contents, (byte) ' ');
+    }
+
+    /**
+     * Uploads a file, as the user does before it is submitted for validation.
+     */
+    void upload(String id, String name) {
+        files.put(id, new StoredFile(name, Instant.now()));
+    }
+
+    long getNotScannedResponses() {
+        return notScanned.sum();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().substring(CONTEXT.length() + 1).split("/");
+            StoredFile file = files.get(path[0]);
+            if (file == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> {
+                    if (path.length > 1 && path[1].equals("download")) {
+                        download(exchange, file);
+                    } else {
+                        details(exchange, path[0], file);
+                    }
+                }
+                case "DELETE" -> {
+                    files.remove(path[0]);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void details(HttpExchange exchange, String id, StoredFile file) throws IOException {
+        boolean scanned = file.uploaded().plus(scanDelay).isBefore(Instant.now());
+        if (!scanned) {
+            notScanned.increment();
+        }
+
+        ObjectNode details = objectMapper.createObjectNode()
+                .put("id", id)
+                .put("name", file.name())
+                .put("content_type", "application/xhtml+xml")
+                .put("size", contents.length)
+                .put("created_on", file.uploaded().toString());
+        details.set("av_status", objectMapper.valueToTree(scanned ? AvStatus.CLEAN : AvStatus.NOT_SCANNED));
+
+        byte[] body = objectMapper.writeValueAsBytes(details);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void download(HttpExchange exchange, StoredFile file) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().add("Content-Disposition", "attachment; filename=\"" + file.name() + "\"");
+        exchange.sendResponseHeaders(200, contents.length);
+        exchange.getResponseBody().write(contents);
+    }
+
+    private record StoredFile(String name, Instant uploaded) {
+    }
+}
@@ -0,0 +1,75 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples heap use while the load test runs. The application, the stand-in services and the clients
+ * share the JVM, so the figures are an upper bound for the application alone.
+ */
+class HeapSampler implements AutoCloseable {
+
+    private static final long MB = 1024 * 1024;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("heap-sampler").daemon().factory());
+    private final long gcCountAtStart = gcCount();
+    private final long gcMillisAtStart = gcMillis();
+
+    private volatile long peakUsed;
+
+    HeapSampler(Duration interval) {
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() {
+        long used = memory.getHeapMemoryUsage().getUsed();
+        if (used > peakUsed) {
+            peakUsed = used;
+        }
+    }
+
+    HeapSummary summarise() {
+        sample();
+        return new HeapSummary(peakUsed / MB,
+                memory.getHeapMemoryUsage().getUsed() / MB,
+                memory.getHeapMemoryUsage().getMax() / MB,
+                gcCount() - gcCountAtStart,
+                gcMillis() - gcMillisAtStart);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param peakUsedMb the most heap in use at any sample
+     * @param endUsedMb  the heap in use at the end of the run
+     * @param maxMb      the maximum heap size
+     * @param gcCount    the number of collections during the run
+     * @param gcMillis   the time spent collecting during the run
+     */
+    record HeapSummary(long peakUsedMb, long endUsedMb, long maxMb, long gcCount, long gcMillis) {
+    }
+}
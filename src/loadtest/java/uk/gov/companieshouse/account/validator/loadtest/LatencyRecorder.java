@@ -0,0 +1,87 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency and response status of every request sent by the load test clients.
+ */
+class LatencyRecorder {
+
+    private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+
+    LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            samples.put(operation, new Samples());
+        }
+    }
+
+    void record(Operation operation, int status, long nanos) {
+        Samples operationSamples = samples.get(operation);
+        operationSamples.nanos.add(nanos);
+        operationSamples.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    void recordFailure(Operation operation, long nanos) {
+        record(operation, 0, nanos);
+    }
+
+    /**
+     * Summarises the requests sent for an operation.
+     *
+     * @param operation the operation
+     * @param seconds   the length of the run in seconds
+     * @return the summary, or null if the operation was never run
+     */
+    OperationSummary summarise(Operation operation, double seconds) {
+        Samples operationSamples = samples.get(operation);
+        long[] sorted = operationSamples.nanos.stream().mapToLong(Long::longValue).toArray();
+        if (sorted.length == 0) {
+            return null;
+        }
+        Arrays.sort(sorted);
+
+        Map<String, Long> statuses = new TreeMap<>();
+        operationSamples.statuses.forEach((status, count) ->
+                statuses.put(status == 0 ? "failed" : String.valueOf(status), count.sum()));
+
+        return new OperationSummary(sorted.length,
+                sorted.length / seconds,
+                millis(percentile(sorted, 50)),
+                millis(percentile(sorted, 99)),
+                millis(sorted[sorted.length - 1]),
+                statuses);
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * @param count               the number of requests sent
+     * @param throughputPerSecond the number of requests sent per second
+     * @param p50Millis           the median latency
+     * @param p99Millis           the 99th percentile latency
+     * @param maxMillis           the highest latency
+     * @param statuses            the number of responses with each status, or failed if none was received
+     */
+    record OperationSummary(long count, double throughputPerSecond, double p50Millis, double p99Millis,
+            double maxMillis, Map<String, Long> statuses) {
+    }
+
+    private static final class Samples {
+        private final Queue<Long> nanos = new ConcurrentLinkedQueue<>();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+}
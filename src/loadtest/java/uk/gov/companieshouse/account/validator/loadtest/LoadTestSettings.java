@@ -0,0 +1,65 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The shape of a load test run and the behaviour of the stand-in services. Every setting can be
+ * overridden with a system property, e.g. {@code -Dloadtest.concurrency=64}.
+ *
+ * @param duration           how long the mix is driven for
+ * @param concurrency        the number of clients sending requests at once
+ * @param mix                the relative weight of each operation
+ * @param stubPort           the port the stand-in services listen on
+ * @param fileSize           the size of each uploaded accounts file in bytes
+ * @param scanDelay          how long an uploaded file stays NOT_SCANNED
+ * @param felixAcceptLatency how long Felix takes to accept a file
+ * @param felixCallbackDelay how long after accepting a file Felix sends its result
+ * @param pdfLatency         how long the renderer takes before it starts sending the PDF
+ * @param pdfSize            the size of each rendered PDF in bytes
+ * @param report             where the JSON report is written
+ */
+record LoadTestSettings(
+        Duration duration,
+        int concurrency,
+        Map<Operation, Integer> mix,
+        int stubPort,
+        int fileSize,
+        Duration scanDelay,
+        Duration felixAcceptLatency,
+        Duration felixCallbackDelay,
+        Duration pdfLatency,
+        int pdfSize,
+        String report) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Duration.ofSeconds(Long.getLong("loadtest.duration.seconds", 60)),
+                Integer.getInteger("loadtest.concurrency", 32),
+                parseMix(System.getProperty("loadtest.mix", "submit=50,check=35,render=10,cleanup=5")),
+                Integer.getInteger("loadtest.stub.port", 18625),
+                Integer.getInteger("loadtest.file.size.kb", 200) * 1024,
+                Duration.ofMillis(Long.getLong("loadtest.scan.delay.millis", 1500)),
+                Duration.ofMillis(Long.getLong("loadtest.felix.accept.latency.millis", 50)),
+                Duration.ofMillis(Long.getLong("loadtest.felix.callback.delay.millis", 2000)),
+                Duration.ofMillis(Long.getLong("loadtest.pdf.latency.millis", 500)),
+                Integer.getInteger("loadtest.pdf.size.kb", 300) * 1024,
+                System.getProperty("loadtest.report", "target/loadtest-report.json"));
+    }
+
+    /**
+     * Parses a mix such as {@code submit=50,check=35,render=10,cleanup=5}. Operations left out are not run.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid load test mix entry: " + entry);
+            }
+            weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,19 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+/**
+ * The requests a load test client can send.
+ */
+enum Operation {
+    /** Uploads a file to the file transfer stand-in and submits it for validation */
+    SUBMIT,
+    /** Checks the status of a submitted file */
+    CHECK,
+    /** Renders a submitted file as a PDF */
+    RENDER,
+    /** Removes old submissions */
+    CLEANUP;
+
+    String label() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,55 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Stands in for the iXBRL to PDF service. The posted instance is read in full, then after the render
+ * latency a PDF of the configured size is sent in chunks, so the response is streamed to the caller
+ * as a real render would be.
+ */
+class PdfRendererStub implements HttpHandler {
+
+    static final String CONTEXT = "/ixbrl-to-pdf";
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Duration latency;
+    private final int size;
+    private final byte[] chunk;
+
+    PdfRendererStub(Duration latency, int size) {
+        this.latency = latency;
+        this.size = size;
+        this.chunk = new byte[CHUNK_SIZE];
+        Arrays.fill(chunk, (byte) '0');
+        byte[] header = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, chunk, 0, header.length);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            FelixStub.sleep(latency);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            for (int written = 0; written < size; written += CHUNK_SIZE) {
+                body.write(chunk, 0, Math.min(CHUNK_SIZE, size - written));
+            }
+        }
+    }
+}
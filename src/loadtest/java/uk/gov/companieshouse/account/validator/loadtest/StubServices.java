@@ -0,0 +1,52 @@
+package uk.gov.companieshouse.account.validator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the stand-ins for the file transfer api, Felix and the iXBRL to PDF service on one local port.
+ */
+class StubServices implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final FileTransferStub fileTransfer;
+    private final FelixStub felix;
+
+    StubServices(LoadTestSettings settings, ObjectMapper objectMapper, HttpClient httpClient) throws IOException {
+        fileTransfer = new FileTransferStub(objectMapper, settings.scanDelay(), settings.fileSize());
+        felix = new FelixStub(objectMapper, httpClient, settings.felixAcceptLatency(), settings.felixCallbackDelay());
+
+        server = HttpServer.create(new InetSocketAddress("localhost", settings.stubPort()), 0);
+        server.createContext(FileTransferStub.CONTEXT, fileTransfer);
+        server.createContext(FelixStub.CONTEXT, felix);
+        server.createContext(PdfRendererStub.CONTEXT, new PdfRendererStub(settings.pdfLatency(), settings.pdfSize()));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    static String baseUrl(int port) {
+        return "http://localhost:" + port;
+    }
+
+    FileTransferStub fileTransfer() {
+        return fileTransfer;
+    }
+
+    FelixStub felix() {
+        return felix;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        felix.close();
+        executor.shutdownNow();
+    }
+}
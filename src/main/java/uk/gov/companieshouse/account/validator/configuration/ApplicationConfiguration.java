@@ -1,15 +1,51 @@
 package uk.gov.companieshouse.account.validator.configuration;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
 import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
 import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
 import uk.gov.companieshouse.account.validator.service.FelixAccountValidator;
+import uk.gov.companieshouse.account.validator.service.dispatch.AsyncAccountValidator;
+import uk.gov.companieshouse.account.validator.service.dispatch.FelixDispatcher;
+import uk.gov.companieshouse.account.validator.service.dispatch.OutboxAccountValidator;
 import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.account.validator.service.file.transfer.CoalescingFileTransferStrategy;
+import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferService;
+import uk.gov.companieshouse.account.validator.service.guard.AimdConcurrencyLimiter;
+import uk.gov.companieshouse.account.validator.service.guard.CircuitBreaker;
+import uk.gov.companieshouse.account.validator.service.guard.GuardedAccountValidator;
+import uk.gov.companieshouse.account.validator.service.render.RenderCache;
+import uk.gov.companieshouse.account.validator.service.retry.AsyncRetryStrategy;
 import uk.gov.companieshouse.account.validator.service.retry.IncrementalBackoff;
 import uk.gov.companieshouse.account.validator.service.retry.RetryStrategy;
+import uk.gov.companieshouse.account.validator.service.retry.ScheduledIncrementalBackoff;
+import uk.gov.companieshouse.account.validator.service.status.RequestStatusChangeStreamListener;
 import uk.gov.companieshouse.api.InternalApiClient;
 import uk.gov.companieshouse.api.handler.felixvalidator.PrivateFelixValidatorResourceHandler;
 import uk.gov.companieshouse.api.handler.filetransfer.FileTransferHttpClient;
@@ -20,12 +56,20 @@ import uk.gov.companieshouse.environment.impl.EnvironmentReaderImpl;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 @Configuration
+@EnableScheduling
 public class ApplicationConfiguration {
     @Value("${application.namespace}")
     private String applicationNameSpace;
@@ -33,6 +77,9 @@ public class ApplicationConfiguration {
     @Value("${felix.validator.url}")
     private String felixValidatorUrl;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
     /**
      * Creates the logger used by the application.
      *
@@ -44,22 +91,101 @@ public class ApplicationConfiguration {
     }
 
     /**
-     * Creates the rest template used for rest api calls
+     * Creates the connection pool used by the rest template. The iXBRL to PDF service gets its own
+     * per-route limit as renders are long-running and would otherwise compete with other calls.
+     *
+     * @param maxConnections         the maximum number of pooled connections
+     * @param maxConnectionsPerRoute the default maximum number of connections to a single host
+     * @param pdfMaxConnections      the maximum number of connections to the iXBRL to PDF service
+     * @param iXbrlToPdfUri          the iXBRL to PDF service uri, if configured
+     * @param connectTimeout         the time allowed to establish a connection in seconds
+     * @param readTimeout            the maximum inactivity between two packets in seconds
+     * @return the connection manager
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager restTemplateConnectionManager(
+            @Value("${rest.client.max.connections}") int maxConnections,
+            @Value("${rest.client.max.connections.per.route}") int maxConnectionsPerRoute,
+            @Value("${rest.client.pdf.max.connections}") int pdfMaxConnections,
+            @Value("${IXBRL_TO_PDF_URI:}") String iXbrlToPdfUri,
+            @Value("${rest.client.connect.timeout.seconds}") long connectTimeout,
+            @Value("${rest.client.read.timeout.seconds}") long readTimeout) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofSeconds(readTimeout))
+                        .build())
+                .build();
+
+        if (StringUtils.isNotBlank(iXbrlToPdfUri)) {
+            connectionManager.setMaxPerRoute(route(URI.create(iXbrlToPdfUri)), pdfMaxConnections);
+        }
+
+        return connectionManager;
+    }
+
+    /**
+     * Publishes the leased, pending and available connection counts of the rest template pool
      *
+     * @param restTemplateConnectionManager the pool to monitor
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder restTemplateConnectionPoolMetrics(PoolingHttpClientConnectionManager restTemplateConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(restTemplateConnectionManager, "rest-template");
+    }
+
+    /**
+     * Creates the rest template used for rest api calls. Built from Spring Boot's builder so each
+     * outbound call is timed per host under http.client.requests.
+     *
+     * @param restTemplateBuilder           the builder configured by Spring Boot
+     * @param restTemplateConnectionManager the connection pool
+     * @param responseTimeout               the time allowed for the server to start responding in seconds
+     * @param connectionRequestTimeout      the time allowed to lease a connection from the pool in seconds
+     * @param idleEviction                  how long a connection can be idle before it is evicted in seconds
      * @return the rest template
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder,
+                                     PoolingHttpClientConnectionManager restTemplateConnectionManager,
+                                     @Value("${rest.client.response.timeout.seconds}") long responseTimeout,
+                                     @Value("${rest.client.connection.request.timeout.seconds}") long connectionRequestTimeout,
+                                     @Value("${rest.client.idle.eviction.seconds}") long idleEviction) {
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(restTemplateConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofSeconds(responseTimeout))
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(connectionRequestTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEviction))
+                .build();
+
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+
+    private static HttpRoute route(URI uri) {
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
     }
 
     /**
-     * Creates the executor used for running asynchronous tasks
+     * Creates the executor used for running asynchronous tasks. When virtual threads are enabled each
+     * task runs on its own virtual thread, so blocking I/O does not tie up a platform thread.
      *
      * @return the executor
      */
     @Bean
     public Executor executor() {
+        if (virtualThreadsEnabled) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
         return Executors.newWorkStealingPool();
     }
 
@@ -85,10 +211,242 @@ public class ApplicationConfiguration {
                 Duration.ofSeconds(maxDelay));
     }
 
+    /**
+     * Creates the executor that makes blocking calls to the file transfer api, polling for the AV scan
+     * and downloading files. These get their own bounded pool rather than running on the retry
+     * scheduler or the shared executor. Calls submitted while the queue is full are rejected.
+     *
+     * @param threads       the most calls in progress at once
+     * @param queueCapacity the most calls waiting for a thread
+     * @return the file transfer executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor fileTransferExecutor(@Value("${file.transfer.executor.threads:20}") int threads,
+                                                   @Value("${file.transfer.executor.queue.capacity:100}") int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory("file-transfer-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Publishes the size, queue and completed tasks of the file transfer executor
+     *
+     * @param fileTransferExecutor the executor to monitor
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder fileTransferExecutorMetrics(
+            @Qualifier("fileTransferExecutor") ThreadPoolExecutor fileTransferExecutor) {
+        return new ExecutorServiceMetrics(fileTransferExecutor, "file.transfer", Tags.empty());
+    }
+
+    /**
+     * Creates the asynchronous retry strategy for file transfer polling. Retries are scheduled on a
+     * small dedicated pool instead of sleeping on the calling thread, and each attempt runs on the
+     * file transfer executor.
+     *
+     * @param baseDelay        the initial delay in seconds
+     * @param delayIncrement   the amount o increase the delay each time
+     * @param timeout          the maximum time allowed spending retrying
+     * @param maxDelay         the maximum delay increment
+     * @param schedulerThreads the number of threads used to wait between attempts
+     * @param fileTransferExecutor the executor the attempts run on
+     * @return the async retry strategy
+     */
+    @Bean
+    public AsyncRetryStrategy fileTransferAsyncRetryStrategy(
+            @Value("${file.transfer.retry.base.delay.seconds}") long baseDelay,
+            @Value("${file.transfer.retry.delay.increment.seconds}") long delayIncrement,
+            @Value("${file.transfer.retry.timeout.seconds}") long timeout,
+            @Value("${file.transfer.retry.max.delay.seconds}") long maxDelay,
+            @Value("${file.transfer.retry.scheduler.threads:2}") int schedulerThreads,
+            @Qualifier("fileTransferExecutor") Executor fileTransferExecutor) {
+        IncrementalBackoff backoff = new IncrementalBackoff(
+                Duration.ofSeconds(baseDelay),
+                Duration.ofSeconds(delayIncrement),
+                Duration.ofSeconds(timeout),
+                Duration.ofSeconds(maxDelay));
+        return new ScheduledIncrementalBackoff(backoff,
+                Executors.newScheduledThreadPool(schedulerThreads, threadFactory("file-transfer-retry-")),
+                fileTransferExecutor);
+    }
+
+    /**
+     * Creates the adaptive concurrency limit on calls to Felix
+     *
+     * @param initialLimit            the limit to start with
+     * @param minLimit                the lowest the limit can be cut to
+     * @param maxLimit                the highest the limit can grow to
+     * @param latencyThresholdMillis  calls slower than this cut the limit
+     * @param backoffRatio            the ratio the limit is cut by
+     * @return the limiter
+     */
+    @Bean
+    public AimdConcurrencyLimiter felixConcurrencyLimiter(
+            @Value("${felix.limiter.initial:16}") int initialLimit,
+            @Value("${felix.limiter.min:1}") int minLimit,
+            @Value("${felix.limiter.max:64}") int maxLimit,
+            @Value("${felix.limiter.latency.threshold.millis:2000}") long latencyThresholdMillis,
+            @Value("${felix.limiter.backoff.ratio:0.9}") double backoffRatio) {
+        return new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                Duration.ofMillis(latencyThresholdMillis), backoffRatio);
+    }
+
+    /**
+     * Creates the circuit breaker on calls to Felix
+     *
+     * @param failureThreshold the consecutive failures that open the breaker
+     * @param openSeconds      how long the breaker stays open before a trial call
+     * @return the circuit breaker
+     */
+    @Bean
+    public CircuitBreaker felixCircuitBreaker(
+            @Value("${felix.breaker.failure.threshold:5}") int failureThreshold,
+            @Value("${felix.breaker.open.seconds:30}") long openSeconds) {
+        return new CircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds), Clock.systemUTC());
+    }
+
+    /**
+     * Publishes the Felix concurrency limit, calls in flight, breaker state and refused calls
+     *
+     * @param felixConcurrencyLimiter the limiter to monitor
+     * @param felixCircuitBreaker     the breaker to monitor
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder felixGuardMetrics(AimdConcurrencyLimiter felixConcurrencyLimiter,
+                                         CircuitBreaker felixCircuitBreaker) {
+        return registry -> {
+            Gauge.builder("felix.limiter.limit", felixConcurrencyLimiter, AimdConcurrencyLimiter::getLimit)
+                    .register(registry);
+            Gauge.builder("felix.limiter.in.flight", felixConcurrencyLimiter, AimdConcurrencyLimiter::getInFlight)
+                    .register(registry);
+            FunctionCounter.builder("felix.limiter.rejected", felixConcurrencyLimiter,
+                    AimdConcurrencyLimiter::getRejected).register(registry);
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                Gauge.builder("felix.breaker.state", felixCircuitBreaker,
+                                breaker -> breaker.getState() == state ? 1 : 0)
+                        .tag("state", state.name().toLowerCase())
+                        .register(registry);
+            }
+            FunctionCounter.builder("felix.breaker.rejected", felixCircuitBreaker, CircuitBreaker::getRejected)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Creates the file transfer strategy used by the application, which makes concurrent requests for
+     * the same file share one call to the file transfer api
+     *
+     * @param fileTransferService the strategy that calls the file transfer api
+     * @return the file transfer strategy
+     */
+    @Bean
+    @Primary
+    public CoalescingFileTransferStrategy fileTransferStrategy(FileTransferService fileTransferService) {
+        return new CoalescingFileTransferStrategy(fileTransferService);
+    }
+
+    /**
+     * Publishes the number of file transfer calls that were given the result of a call already in flight
+     *
+     * @param fileTransferStrategy the strategy to monitor
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder fileTransferCoalescingMetrics(CoalescingFileTransferStrategy fileTransferStrategy) {
+        return registry -> {
+            FunctionCounter.builder("file.transfer.coalesced", fileTransferStrategy,
+                            CoalescingFileTransferStrategy::getCoalescedDownloads)
+                    .tag("operation", "download")
+                    .register(registry);
+            FunctionCounter.builder("file.transfer.coalesced", fileTransferStrategy,
+                            CoalescingFileTransferStrategy::getCoalescedDetails)
+                    .tag("operation", "details")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Creates the disk cache of rendered PDFs
+     *
+     * @param directory the directory the renders are kept in
+     * @param maxMb     the most disk space the renders may use in megabytes
+     * @return the render cache
+     */
+    @Bean
+    public RenderCache renderCache(@Value("${render.cache.dir:${java.io.tmpdir}/account-validator-render-cache}") String directory,
+                                   @Value("${render.cache.max.mb:1024}") long maxMb) {
+        return new RenderCache(Path.of(directory), maxMb * 1024 * 1024);
+    }
+
+    /**
+     * Publishes the size of the render cache, its hits, misses and evictions, and the renders shared
+     * with a concurrent request for the same file
+     *
+     * @param renderCache the cache to monitor
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder renderCacheMetrics(RenderCache renderCache) {
+        return registry -> {
+            Gauge.builder("render.cache.size", renderCache, RenderCache::getSizeBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("render.cache.entries", renderCache, RenderCache::getEntries).register(registry);
+            FunctionCounter.builder("render.cache.requests", renderCache, RenderCache::getHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("render.cache.requests", renderCache, RenderCache::getMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("render.cache.evictions", renderCache, RenderCache::getEvictions)
+                    .register(registry);
+            FunctionCounter.builder("render.cache.shared", renderCache, RenderCache::getSharedRenders)
+                    .register(registry);
+            FunctionCounter.builder("render.cache.oversize", renderCache, RenderCache::getOversize)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Creates the executor that makes blocking calls to the iXBRL to PDF service. A render holds a thread
+     * for as long as the renderer takes, so renders get their own pool, sized to the renderer's
+     * connection limit, rather than tying up the shared executor used for downloads. Renders submitted
+     * while the queue is full are rejected.
+     *
+     * @param threads       the most renders in progress at once
+     * @param queueCapacity the most renders waiting for a thread
+     * @return the render executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor renderExecutor(@Value("${rest.client.pdf.max.connections:20}") int threads,
+                                             @Value("${render.executor.queue.capacity:100}") int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory("render-"), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Publishes the size, queue and completed tasks of the render executor
+     *
+     * @param renderExecutor the executor to monitor
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder renderExecutorMetrics(@Qualifier("renderExecutor") ThreadPoolExecutor renderExecutor) {
+        return new ExecutorServiceMetrics(renderExecutor, "render", Tags.empty());
+    }
+
     /**
      * Creates the account validator bean. This can be used to specify the specific
-     * strategy required
+     * strategy required. Calls to Felix are guarded by the concurrency limiter and circuit breaker
+     * unless the guard is disabled.
      *
+     * @param internalApiUrl the base url Felix calls back on with the results
      * @return The account validator strategy to use
      */
     @Bean
@@ -96,8 +454,109 @@ public class ApplicationConfiguration {
                                                                RequestStatusRepository statusRepository,
                                                                RestTemplate restTemplate,
                                                                PrivateFelixValidatorResourceHandler felixClient,
-                                                               RequestStatusFactory statusFactory) {
-        return new FelixAccountValidator(logger, statusRepository, restTemplate, felixClient, statusFactory);
+                                                               RequestStatusFactory statusFactory,
+                                                               AimdConcurrencyLimiter felixConcurrencyLimiter,
+                                                               CircuitBreaker felixCircuitBreaker,
+                                                               @Value("${felix.guard.enabled:true}") boolean guardEnabled,
+                                                               @Value("${felix.limiter.max.wait.millis:1000}") long maxWaitMillis,
+                                                               @Value("${internal.api.base.path}") String internalApiUrl) {
+        AccountValidationStrategy felixValidator = new FelixAccountValidator(logger, statusRepository, restTemplate,
+                felixClient, statusFactory, internalApiUrl, felixValidatorUrl);
+        if (!guardEnabled) {
+            return felixValidator;
+        }
+        return new GuardedAccountValidator(felixValidator, felixConcurrencyLimiter, felixCircuitBreaker,
+                Duration.ofMillis(maxWaitMillis));
+    }
+
+    /**
+     * Creates the account validator used to submit files. In outbox mode files are queued in Mongo and
+     * sent to Felix by the {@link FelixDispatcher}. In async mode they are sent on a bounded pool of
+     * threads, and once its queue is full they are rejected or sent by the submitter as the overflow
+     * policy says. Otherwise they are sent while the submitter waits.
+     *
+     * @param logger                    the logger
+     * @param accountValidationStrategy the validator that sends files to Felix
+     * @param dispatchRepository        the outbox
+     * @param statusRepository          where the error status of a file that fails to send is saved
+     * @param statusFactory             creates the error status
+     * @param dispatchMode              direct, outbox or async
+     * @param asyncThreads              the most files sent at once in async mode
+     * @param asyncQueueCapacity        the most files waiting to be sent in async mode
+     * @param asyncOverflow             reject or caller-runs, for files submitted while the queue is full
+     * @return the account validator strategy used to submit files
+     */
+    @Bean
+    @Primary
+    public AccountValidationStrategy submissionValidationStrategy(Logger logger,
+            @Qualifier("accountValidationStrategy") AccountValidationStrategy accountValidationStrategy,
+            FelixDispatchRepository dispatchRepository,
+            RequestStatusRepository statusRepository,
+            RequestStatusFactory statusFactory,
+            @Value("${felix.dispatch.mode:direct}") String dispatchMode,
+            @Value("${felix.dispatch.async.threads:4}") int asyncThreads,
+            @Value("${felix.dispatch.async.queue.capacity:100}") int asyncQueueCapacity,
+            @Value("${felix.dispatch.async.overflow:reject}") String asyncOverflow) {
+        if ("outbox".equals(dispatchMode)) {
+            return new OutboxAccountValidator(logger, accountValidationStrategy, dispatchRepository);
+        }
+        if ("async".equals(dispatchMode)) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(asyncThreads, asyncThreads,
+                    60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(asyncQueueCapacity),
+                    threadFactory("felix-async-dispatch-"), new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            return new AsyncAccountValidator(logger, accountValidationStrategy, statusRepository, statusFactory,
+                    executor, AsyncAccountValidator.Overflow.parse(asyncOverflow));
+        }
+        return accountValidationStrategy;
+    }
+
+    /**
+     * Publishes the files waiting and being sent by the async dispatcher, the files that overflowed its
+     * queue and the files that failed to send. Nothing is published unless async dispatch is enabled.
+     *
+     * @param submissionValidationStrategy the validator used to submit files
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder felixAsyncDispatchMetrics(
+            @Qualifier("submissionValidationStrategy") AccountValidationStrategy submissionValidationStrategy) {
+        return registry -> {
+            if (!(submissionValidationStrategy instanceof AsyncAccountValidator dispatcher)) {
+                return;
+            }
+            Gauge.builder("felix.dispatch.async.queue.depth", dispatcher, AsyncAccountValidator::getQueueDepth)
+                    .register(registry);
+            Gauge.builder("felix.dispatch.async.active", dispatcher, AsyncAccountValidator::getActive)
+                    .register(registry);
+            FunctionCounter.builder("felix.dispatch.async.overflow", dispatcher, AsyncAccountValidator::getRejected)
+                    .tag("action", "reject")
+                    .register(registry);
+            FunctionCounter.builder("felix.dispatch.async.overflow", dispatcher, AsyncAccountValidator::getCallerRuns)
+                    .tag("action", "caller-runs")
+                    .register(registry);
+            FunctionCounter.builder("felix.dispatch.async.failed", dispatcher, AsyncAccountValidator::getFailed)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Publishes whether the request status change stream is active and how often it has been restarted
+     * after failing. Nothing is published unless the change stream is enabled.
+     *
+     * @param changeStreamListener the listener, if the change stream is enabled
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder requestStatusChangeStreamMetrics(
+            ObjectProvider<RequestStatusChangeStreamListener> changeStreamListener) {
+        return registry -> changeStreamListener.ifAvailable(listener -> {
+            Gauge.builder("request.status.change.stream.active", listener, l -> l.isActive() ? 1 : 0)
+                    .register(registry);
+            FunctionCounter.builder("request.status.change.stream.restarts", listener,
+                            RequestStatusChangeStreamListener::getRestarts)
+                    .register(registry);
+        });
     }
 
     /**
@@ -127,21 +586,33 @@ public class ApplicationConfiguration {
     }
 
 
+    /**
+     * Creates the supplier of the file transfer client. A single client is built up front and shared by
+     * every call, in the same way as the internal api client, rather than building a new http client for
+     * each details poll, download and delete. Idle connections are kept alive by the JDK transport,
+     * see http.maxConnections and http.keepAlive.time.server in docker_start.sh.
+     *
+     * @return the supplier of the shared file transfer client
+     */
     @Bean
     public Supplier<InternalFileTransferClient> internalFileTransferClientSupplier(
             @Value("${internal.api.key}") String internalApiKey,
             @Value("${file.transfer.api.base.path}") String fileTransferBasePath
     ) {
+        FileTransferHttpClient httpClient = new FileTransferHttpClient(internalApiKey);
+        InternalFileTransferClient internalFileTransferClient = new InternalFileTransferClient(httpClient);
+        internalFileTransferClient.setBasePath(fileTransferBasePath);
 
-        return () -> {
-            FileTransferHttpClient httpClient = new FileTransferHttpClient(internalApiKey);
-            InternalFileTransferClient internalFileTransferClient = new InternalFileTransferClient(httpClient);
-            internalFileTransferClient.setBasePath(fileTransferBasePath);
-            return internalFileTransferClient;
-        };
+        return () -> internalFileTransferClient;
     }
 
 
+    private ThreadFactory threadFactory(String prefix) {
+        return virtualThreadsEnabled
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : Thread.ofPlatform().name(prefix, 0).daemon().factory();
+    }
+
     @Bean
     PrivateFelixValidatorResourceHandler felixClient(InternalApiClient internalApiClient) {
         return internalApiClient.privateFelixValidatorResourceHandler(felixValidatorUrl);
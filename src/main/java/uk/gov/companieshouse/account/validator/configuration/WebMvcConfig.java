@@ -1,21 +1,33 @@
 package uk.gov.companieshouse.account.validator.configuration;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import uk.gov.companieshouse.account.validator.security.LoggingInterceptor;
 import uk.gov.companieshouse.account.validator.security.UserAuthenticationInterceptor;
 
+import java.util.concurrent.Executor;
+
 @Component
 public class WebMvcConfig implements WebMvcConfigurer {
     private final LoggingInterceptor loggingInterceptor;
     private final UserAuthenticationInterceptor userAuthenticationInterceptor;
+    private final Executor executor;
+    private final boolean virtualThreadsEnabled;
 
     @Autowired
-    public WebMvcConfig(LoggingInterceptor loggingInterceptor, UserAuthenticationInterceptor userAuthenticationInterceptor) {
+    public WebMvcConfig(LoggingInterceptor loggingInterceptor, UserAuthenticationInterceptor userAuthenticationInterceptor,
+                        @Qualifier("executor") Executor executor,
+                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled) {
         this.loggingInterceptor = loggingInterceptor;
         this.userAuthenticationInterceptor = userAuthenticationInterceptor;
+        this.executor = executor;
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
     }
 
     @Override
@@ -23,4 +35,15 @@ public class WebMvcConfig implements WebMvcConfigurer {
         registry.addInterceptor(loggingInterceptor).addPathPatterns("/**").excludePathPatterns("/**/healthcheck");
         registry.addInterceptor(userAuthenticationInterceptor).addPathPatterns("/**").excludePathPatterns("/**/healthcheck");
     }
+
+    /**
+     * Runs streamed responses on the virtual thread executor when virtual threads are enabled. Otherwise
+     * Spring's default async executor is kept, as the work stealing pool is not suited to blocking writes.
+     */
+    @Override
+    public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+        if (virtualThreadsEnabled) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+        }
+    }
 }
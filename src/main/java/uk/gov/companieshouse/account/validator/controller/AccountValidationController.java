@@ -4,12 +4,18 @@ import static org.springframework.http.MediaType.APPLICATION_PDF;
 
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,13 +23,21 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.companieshouse.account.validator.exceptionhandler.DeleteCompleteSubException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.DispatchRejectedException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FelixUnavailableException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FileTooLargeException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.MissingEnvironmentVariableException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.ResponseException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.UriValidationException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.File;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionSummary;
 import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
 import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
 import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
@@ -34,6 +48,9 @@ import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy
 import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
 import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
 import uk.gov.companieshouse.account.validator.service.maintenance.AccountMaintenanceService;
+import uk.gov.companieshouse.account.validator.service.render.RenderCache;
+import uk.gov.companieshouse.account.validator.service.render.RenderedPdf;
+import uk.gov.companieshouse.account.validator.service.status.RequestStatusCache;
 import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
 import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
@@ -41,8 +58,18 @@ import uk.gov.companieshouse.environment.EnvironmentReader;
 import uk.gov.companieshouse.logging.Logger;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Controller
 @RequestMapping("/account-validator/validate")
@@ -58,7 +85,18 @@ public class AccountValidationController {
     private final EnvironmentReader environmentReader;
     private final AccountMaintenanceService accountMaintenanceService;
     private final RequestStatusFactory requestStatusFactory;
+    private final RequestStatusCache statusCache;
+    private final RenderCache renderCache;
+    private final Executor renderExecutor;
 
+    @Value("${uk.gov.ch.account.validator.platformMaxDecodedSizeMB:0}")
+    private long maxSizeMb;
+
+    @Value("${render.streaming.enabled:true}")
+    private boolean streamingRender;
+
+    @Value("${render.cache.enabled:false}")
+    private boolean cacheRender;
 
     @Autowired
     public AccountValidationController(AccountValidationStrategy accountValidationStrategy,
@@ -68,7 +106,10 @@ public class AccountValidationController {
                                        RestTemplate restTemplate,
                                        EnvironmentReader environmentReader,
                                        AccountMaintenanceService accountMaintenanceService,
-                                       RequestStatusFactory requestStatusFactory) {
+                                       RequestStatusFactory requestStatusFactory,
+                                       RequestStatusCache statusCache,
+                                       RenderCache renderCache,
+                                       @Qualifier("renderExecutor") Executor renderExecutor) {
         this.accountValidationStrategy = accountValidationStrategy;
         this.fileTransferStrategy = fileTransferStrategy;
         this.logger = logger;
@@ -77,15 +118,20 @@ public class AccountValidationController {
         this.environmentReader = environmentReader;
         this.accountMaintenanceService = accountMaintenanceService;
         this.requestStatusFactory = requestStatusFactory;
+        this.statusCache = statusCache;
+        this.renderCache = renderCache;
+        this.renderExecutor = renderExecutor;
     }
 
     /**
      * Handles the request to validate an accounts file.
      * Starts a background process that will validate the file and save the result in the repository
-     * when complete.
+     * when complete. A file larger than the platform maximum is rejected before a status is saved or
+     * the file is sent to Felix.
      *
      * @param validationRequest the request data
-     * @return 404 if no file with that id is found, 200 and PENDING status otherwise
+     * @return 404 if no file with that id is found, 413 if the file is too large, 200 and PENDING
+     * status otherwise
      */
     @PostMapping
     public ResponseEntity<?> submitForValidation(
@@ -108,10 +154,17 @@ public class AccountValidationController {
 
         FileDetailsApi fileDetails = optionalFileDetails.get();
 
-        RequestStatus pendingStatus = requestStatusFactory.pending(fileId,
+        long maxSize = maxSizeMb * 1024 * 1024;
+        if (maxSize > 0 && fileDetails.getSize() > maxSize) {
+            logInfo.put("size", fileDetails.getSize());
+            logInfo.put("limit", maxSize);
+            logger.errorContext(fileId, "Rejecting file larger than the platform maximum", null, logInfo);
+            return ValidationResponse.fileTooLarge(maxSize);
+        }
+
+        RequestStatus pendingStatus = statusRepository.upsert(requestStatusFactory.pending(fileId,
                 fileDetails.getName(),
-                ValidationStatusApi.UPLOADED_TO_FTS);
-        statusRepository.save(pendingStatus);
+                ValidationStatusApi.UPLOADED_TO_FTS));
 
         // Asynchronously start validation
         logger.infoContext(fileId, "Sending file to felix.", logInfo);
@@ -124,13 +177,26 @@ public class AccountValidationController {
     /**
      * Checks the status of a validation request by retrieving the status from the repository
      * Can be pending or complete, and a complete request will include the validation result.
+     * Statuses are read through a cache, as clients poll this while the validation runs.
+     * The response carries an ETag, and a poll sending it back in If-None-Match gets a 304 without
+     * the status being loaded or serialised while it is unchanged.
      *
-     * @param fileId the id of the file for which validation was requested
-     * @return 404 if there is no request for a file with that id, 200 and the status otherwise
+     * @param fileId      the id of the file for which validation was requested
+     * @param ifNoneMatch the entity tags the client already has, if any
+     * @return 404 if there is no request for a file with that id, 304 if the client's copy is current,
+     * 200 and the status otherwise
      */
     @GetMapping("/check/{fileId}")
-    ResponseEntity<?> getStatus(@PathVariable("fileId") final String fileId) {
-        var requestStatus = statusRepository.findById(fileId);
+    ResponseEntity<?> getStatus(@PathVariable("fileId") final String fileId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            var eTag = statusCache.findETag(fileId);
+            if (eTag.isPresent() && matches(ifNoneMatch, eTag.get())) {
+                return ValidationResponse.notModified(eTag.get());
+            }
+        }
+
+        var requestStatus = statusCache.findById(fileId);
         if (requestStatus.isEmpty()) {
             return ValidationResponse.requestNotFound();
         }
@@ -138,6 +204,16 @@ public class AccountValidationController {
         return ValidationResponse.success(requestStatus.get());
     }
 
+    /**
+     * If-None-Match uses the weak comparison, so a W/ prefix on the client's tags is ignored.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+    }
+
     @PatchMapping("/{fileId}")
     ResponseEntity<Void> saveStatus(
             @PathVariable("fileId") final String fileId,
@@ -149,37 +225,206 @@ public class AccountValidationController {
 
     /**
      * Handles the request to transform a iXBRL file stored in S3 to PDF
-     * NOTE: getFilename() is overridden as required when posting byte[]
+     * NOTE: getFilename() is overridden as required when posting the file contents
+     * When streaming render is enabled the PDF is copied straight from the renderer's response
+     * to the client instead of being buffered in memory first. The body is always declared as a
+     * StreamingResponseBody so that Spring writes it with the streaming return value handler.
+     *
+     * The file is fetched asynchronously, so no request thread is held while waiting for the AV scan,
+     * and fetching stops if the request times out first.
+     * When the render cache is enabled a file that has been rendered before is served from disk, and
+     * concurrent renders of the same file share one call to the renderer. A render too large for the
+     * cache is sent from the temporary file it was written to rather than rendered again. Calls to the
+     * renderer that block run on the render executor, whose pool is sized to the renderer's connection
+     * limit. The file is closed once the response has been written, removing it from disk if it was
+     * spilled there. If the request times out before the response is ready, the file and rendered PDF
+     * are closed as soon as the render completes.
      *
      * @param fileId of remote file
      * @return S3 file as PDF
      */
     @GetMapping(path = "/render/{fileId}")
-    public ResponseEntity<?> render(@PathVariable("fileId") String fileId) {
-        var file = fileTransferStrategy.get(fileId);
-        if (file.isEmpty()) {
-            return ValidationResponse.fileNotFound();
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> render(@PathVariable("fileId") String fileId) {
+        DeferredResult<ResponseEntity<StreamingResponseBody>> deferredResult = new DeferredResult<>();
+
+        CompletableFuture<Optional<File>> download = fileTransferStrategy.getAsync(fileId);
+        deferredResult.onTimeout(() -> download.cancel(true));
+        download
+                .thenCompose(file -> file.isEmpty()
+                        ? CompletableFuture.completedFuture(ValidationResponse.<StreamingResponseBody>fileNotFound())
+                        : renderAndClose(file.get()))
+                .whenComplete((response, ex) -> {
+                    if (ex != null) {
+                        deferredResult.setErrorResult(ex instanceof CompletionException ? ex.getCause() : ex);
+                    } else if (!deferredResult.setResult(response)) {
+                        // The request timed out while rendering, so the body will never be written
+                        discard(response);
+                    }
+                });
+
+        return deferredResult;
+    }
+
+    private static void discard(ResponseEntity<StreamingResponseBody> response) {
+        if (response.getBody() instanceof ClosingResponseBody body) {
+            body.close();
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> renderAndClose(File file) {
+        CompletableFuture<ResponseEntity<StreamingResponseBody>> response;
+        try {
+            response = render(file);
+        } catch (RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        return response
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        file.close();
+                    }
+                })
+                .thenApply(result -> closeAfterWriting(result, file));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> closeAfterWriting(
+            ResponseEntity<StreamingResponseBody> response, File file) {
+        StreamingResponseBody body = response.getBody();
+        if (body == null) {
+            file.close();
+            return response;
+        }
+        return new ResponseEntity<>(new ClosingResponseBody(body, file::close), response.getHeaders(),
+                response.getStatusCode());
+    }
+
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> render(File file) {
+        if (!cacheRender) {
+            // A streamed render calls the renderer while the response is written, so needs no thread here
+            return streamingRender
+                    ? CompletableFuture.completedFuture(renderPdf(file))
+                    : CompletableFuture.supplyAsync(() -> renderPdf(file), renderExecutor);
+        }
+
+        String key = renderKey(file);
+        Optional<RenderedPdf> cached = renderCache.open(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(pdfResponse(cached.get()));
+        }
+
+        String iXbrlToPdfUri = getIxbrlToPdfUri();
+        MultiValueMap<String, Object> map = instanceParts(file);
+        return renderCache.storeOnce(key, outputStream -> restTemplate.execute(iXbrlToPdfUri, HttpMethod.POST,
+                        restTemplate.httpEntityCallback(map),
+                        response -> StreamUtils.copy(response.getBody(), outputStream)), renderExecutor)
+                .thenApply(AccountValidationController::pdfResponse);
+    }
+
+    private static String renderKey(File file) {
+        try (InputStream content = file.openStream()) {
+            return RenderCache.key(file.getId(), content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> pdfResponse(RenderedPdf pdf) {
+        return ResponseEntity.ok().contentType(APPLICATION_PDF)
+                .body(new ClosingResponseBody(pdf::transferTo, pdf::close));
+    }
+
+    /**
+     * A response body that releases what it reads from once it has been written, or when it is discarded
+     * without being written. A wrapped body that is also a {@code ClosingResponseBody} is released too.
+     */
+    private record ClosingResponseBody(StreamingResponseBody body, Runnable release) implements StreamingResponseBody {
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try {
+                body.writeTo(outputStream);
+            } finally {
+                release.run();
+            }
         }
 
+        void close() {
+            try {
+                if (body instanceof ClosingResponseBody inner) {
+                    inner.close();
+                }
+            } finally {
+                release.run();
+            }
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> renderPdf(File file) {
+        String iXbrlToPdfUri = getIxbrlToPdfUri();
+        MultiValueMap<String, Object> map = instanceParts(file);
+
+        if (streamingRender) {
+            return ResponseEntity.ok().contentType(APPLICATION_PDF).body(streamPdf(iXbrlToPdfUri, map));
+        }
+
+        byte[] bytes = restTemplate.postForObject(iXbrlToPdfUri, map, byte[].class);
+
+        return ResponseEntity.ok().contentType(APPLICATION_PDF).body(outputStream -> {
+            if (bytes != null) {
+                outputStream.write(bytes);
+            }
+        });
+    }
+
+    private String getIxbrlToPdfUri() {
         String iXbrlToPdfUri = getIxbrlToPDFEnvVal();
         if (StringUtils.isBlank(iXbrlToPdfUri)) {
             throw new MissingEnvironmentVariableException(String.format("Missing '%s' environment variable", IXBRL_TO_PDF_URI_KEY));
         }
+        return iXbrlToPdfUri;
+    }
+
+    private static MultiValueMap<String, Object> instanceParts(File file) {
+        AbstractResource contentsAsResource = new AbstractResource() {
+            @Override
+            public String getDescription() {
+                return "file [" + file.getId() + "]";
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return file.openStream();
+            }
+
+            @Override
+            public long contentLength() {
+                return file.getSize();
+            }
 
-        ByteArrayResource contentsAsResource = new ByteArrayResource(file.get().getData()) {
             @Override
             public String getFilename() {
                 return "anything";
             }
         };
 
-        MultiValueMap<String, Object> map = new LinkedMultiValueMap<>() {{
+        return new LinkedMultiValueMap<>() {{
             add("instance", contentsAsResource);
         }};
+    }
 
-        byte[] bytes = restTemplate.postForObject(iXbrlToPdfUri, map, byte[].class);
-
-        return ResponseEntity.ok().contentType(APPLICATION_PDF).body(bytes);
+    /**
+     * Posts the multipart request to the iXBRL to PDF service once the response body is being written,
+     * copying the rendered PDF to the client as it arrives.
+     *
+     * @param iXbrlToPdfUri the renderer uri
+     * @param parts         the multipart body containing the iXBRL instance
+     * @return a response body that streams the PDF
+     */
+    private StreamingResponseBody streamPdf(String iXbrlToPdfUri, MultiValueMap<String, Object> parts) {
+        return outputStream -> restTemplate.execute(iXbrlToPdfUri, HttpMethod.POST,
+                restTemplate.httpEntityCallback(parts),
+                response -> StreamUtils.copy(response.getBody(), outputStream));
     }
 
     /**
@@ -213,6 +458,57 @@ public class AccountValidationController {
         return ResponseEntity.badRequest().body("Validation failed");
     }
 
+    /**
+     * Handles the exception thrown when a file is larger than the platform maximum
+     *
+     * @param e the exception
+     * @return 413 content too large response
+     */
+    @ExceptionHandler({FileTooLargeException.class})
+    ResponseEntity<?> fileTooLargeException(FileTooLargeException e) {
+        return ValidationResponse.fileTooLarge(e.getLimit());
+    }
+
+    /**
+     * Handles the exception thrown when too many files are waiting to be sent to Felix
+     *
+     * @param e the exception
+     * @return 429 too many requests response
+     */
+    @ExceptionHandler({DispatchRejectedException.class})
+    ResponseEntity<?> dispatchRejectedException(DispatchRejectedException e) {
+        logger.error("Felix dispatch queue full", e);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+    }
+
+    /**
+     * Handles the exception thrown when the render or file transfer executor's queue is full
+     *
+     * @param e the exception
+     * @return 503 service unavailable response
+     */
+    @ExceptionHandler({RejectedExecutionException.class})
+    ResponseEntity<?> rejectedExecutionException(RejectedExecutionException e) {
+        logger.error("Too many requests waiting", e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many requests waiting, try again later");
+    }
+
+    /**
+     * Handles the exception thrown when Felix is refusing files because it is failing or busy
+     *
+     * @param e the exception
+     * @return 503 service unavailable response, with when to try again
+     */
+    @ExceptionHandler({FelixUnavailableException.class})
+    ResponseEntity<?> felixUnavailableException(FelixUnavailableException e) {
+        logger.error("Felix unavailable", e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(e.getMessage());
+    }
+
     /**
      * Handles all un-caught exceptions
      *
@@ -238,11 +534,12 @@ public class AccountValidationController {
     /**
      * Handles delete request based on the file status complete.
      * Delete files from S3 bucket & mongodb
+     *
+     * @return 200 with the numbers of files deleted, failed and skipped and the first failed ids
      */
     @DeleteMapping("/cleanup-submissions")
-    ResponseEntity<Void> delete() {
-        accountMaintenanceService.deleteCompleteSubmissions();
-        return ResponseEntity.noContent().build();
+    ResponseEntity<DeletionSummary> delete() {
+        return ResponseEntity.ok(accountMaintenanceService.deleteCompleteSubmissions());
     }
 
     /**
@@ -0,0 +1,160 @@
+package uk.gov.companieshouse.account.validator.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusField;
+import uk.gov.companieshouse.account.validator.model.validation.StatusLookupRequest;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationRequest;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.BatchValidationService;
+
+import javax.validation.Valid;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Handles requests that cover many files at once, so bulk filers and dashboards do not need a request
+ * per file.
+ */
+@Controller
+@RequestMapping("/account-validator/validate")
+public class BatchValidationController {
+
+    private final BatchValidationService batchValidationService;
+    private final RequestStatusRepository statusRepository;
+    private final ObjectWriter statusWriter;
+    private final int maxBatchSize;
+    private final int maxLookupSize;
+
+    @Autowired
+    public BatchValidationController(BatchValidationService batchValidationService,
+            RequestStatusRepository statusRepository,
+            ObjectMapper objectMapper,
+            @Value("${validation.batch.max.size:500}") int maxBatchSize,
+            @Value("${check.batch.max.size:1000}") int maxLookupSize) {
+        this.batchValidationService = batchValidationService;
+        this.statusRepository = statusRepository;
+        // Fields left out of a projection are null, so they are left out of the response too
+        this.statusWriter = objectMapper.copy()
+                .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL)
+                .writerFor(RequestStatus.class);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLookupSize = maxLookupSize;
+    }
+
+    /**
+     * Handles the request to validate many accounts files. Each file is handled as it would be by a
+     * single submission, and the outcome of each is returned with the status code it would have had.
+     *
+     * @param validationRequests the request data for each file
+     * @return 400 if the batch is empty, too large or contains a null file, 200 and the outcome for each
+     * file otherwise
+     */
+    @PostMapping("/batch")
+    ResponseEntity<?> submitBatch(@Valid @RequestBody List<@Valid ValidationRequest> validationRequests) {
+        if (validationRequests.isEmpty()) {
+            return ResponseEntity.badRequest().body("Batch must contain at least one file");
+        }
+        if (validationRequests.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body("Batch must contain no more than " + maxBatchSize + " files");
+        }
+        if (validationRequests.stream().anyMatch(Objects::isNull)) {
+            return ResponseEntity.badRequest().body("Batch must not contain null files");
+        }
+
+        return ResponseEntity.ok(batchValidationService.submit(validationRequests));
+    }
+
+    /**
+     * Handles the request for the statuses of many files. The statuses are found with one query and
+     * written to the response as they are read, so large lookups are not held in memory.
+     *
+     * @param lookupRequest the ids of the files and, optionally, the fields to return for each
+     * @return 400 if there are no ids, too many ids or an unknown field, 200 and the statuses found
+     * otherwise. Files with no status are left out.
+     */
+    @PostMapping("/check")
+    ResponseEntity<?> getStatuses(@RequestBody StatusLookupRequest lookupRequest) {
+        return lookup(lookupRequest.fileIds(), lookupRequest.fields());
+    }
+
+    /**
+     * Handles the request for the statuses of many files given as repeated {@code fileId} parameters.
+     *
+     * @see #getStatuses(StatusLookupRequest)
+     */
+    @GetMapping(path = "/check", params = "fileId")
+    ResponseEntity<?> getStatuses(@RequestParam("fileId") List<String> fileIds,
+            @RequestParam(name = "fields", required = false) List<String> fields) {
+        return lookup(fileIds, fields);
+    }
+
+    private ResponseEntity<?> lookup(List<String> fileIds, List<String> fieldNames) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (fileIds != null) {
+            fileIds.stream().filter(id -> id != null && !id.isBlank()).forEach(ids::add);
+        }
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one file id is required");
+        }
+        if (ids.size() > maxLookupSize) {
+            return ResponseEntity.badRequest().body("No more than " + maxLookupSize + " file ids can be checked at once");
+        }
+
+        Set<RequestStatusField> fields = EnumSet.noneOf(RequestStatusField.class);
+        if (fieldNames != null) {
+            for (String name : fieldNames) {
+                Optional<RequestStatusField> field = RequestStatusField.fromName(name);
+                if (field.isEmpty()) {
+                    return ResponseEntity.badRequest().body("Unknown field: " + name);
+                }
+                fields.add(field.get());
+            }
+        }
+
+        StreamingResponseBody body = out -> {
+            try (Stream<RequestStatus> statuses = statusRepository.streamAllById(ids, fields);
+                 JsonGenerator generator = statusWriter.createGenerator(out)) {
+                generator.writeStartArray();
+                Iterator<RequestStatus> iterator = statuses.iterator();
+                while (iterator.hasNext()) {
+                    statusWriter.writeValue(generator, iterator.next());
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Handles the exception thrown when there's no request body
+     *
+     * @return 400 bad request response
+     */
+    @ExceptionHandler({HttpMessageNotReadableException.class})
+    ResponseEntity<?> noBodyException() {
+        return ResponseEntity.badRequest().body("Request required a body");
+    }
+}
@@ -0,0 +1,45 @@
+package uk.gov.companieshouse.account.validator.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationResponse;
+import uk.gov.companieshouse.account.validator.service.dispatch.FelixDispatcher;
+
+import java.util.Optional;
+
+/**
+ * Handles requests to manage the files queued for Felix when submissions are sent through the outbox.
+ */
+@Controller
+@RequestMapping("/account-validator/validate/dispatch")
+@ConditionalOnProperty(name = "felix.dispatch.mode", havingValue = "outbox")
+public class FelixDispatchController {
+
+    private final FelixDispatcher dispatcher;
+
+    @Autowired
+    public FelixDispatchController(FelixDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Handles the request to send a file to Felix again after it failed or got stuck.
+     *
+     * @param fileId the id of the file
+     * @return 404 if the file is not failed or stuck, 200 and the pending status otherwise
+     */
+    @PostMapping("/{fileId}/replay")
+    ResponseEntity<?> replay(@PathVariable("fileId") final String fileId) {
+        Optional<RequestStatus> status = dispatcher.replay(fileId);
+        if (status.isEmpty()) {
+            return ValidationResponse.requestNotFound();
+        }
+        return ValidationResponse.success(status.get());
+    }
+}
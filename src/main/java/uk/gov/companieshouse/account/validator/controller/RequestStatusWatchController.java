@@ -0,0 +1,209 @@
+package uk.gov.companieshouse.account.validator.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationResponse;
+import uk.gov.companieshouse.account.validator.service.status.RequestStatusCache;
+import uk.gov.companieshouse.account.validator.service.status.RequestStatusWatchers;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets clients wait for a validation to finish instead of polling for its status. Waiting requests are
+ * parked asynchronously, so they do not hold a request thread. Status events are sent on the executor
+ * rather than on the thread that changed the status, which may be handling a Felix callback, so a slow
+ * client cannot hold it up.
+ */
+@Controller
+@RequestMapping("/account-validator/validate")
+public class RequestStatusWatchController {
+
+    static final String STATUS_EVENT = "status";
+    static final String REMOVED_EVENT = "removed";
+
+    private final Logger logger;
+    private final RequestStatusCache statusCache;
+    private final RequestStatusWatchers watchers;
+    private final Executor executor;
+    private final int maxWaitSeconds;
+    private final int eventsTimeoutSeconds;
+
+    @Autowired
+    public RequestStatusWatchController(Logger logger,
+            RequestStatusCache statusCache,
+            RequestStatusWatchers watchers,
+            @Qualifier("executor") Executor executor,
+            @Value("${check.wait.max.seconds:60}") int maxWaitSeconds,
+            @Value("${check.events.timeout.seconds:600}") int eventsTimeoutSeconds) {
+        this.logger = logger;
+        this.statusCache = statusCache;
+        this.watchers = watchers;
+        this.executor = executor;
+        this.maxWaitSeconds = maxWaitSeconds;
+        this.eventsTimeoutSeconds = eventsTimeoutSeconds;
+    }
+
+    /**
+     * Long-poll for the status of a validation request. Responds as soon as the validation is complete or
+     * has failed, or with the current status once the wait is over.
+     *
+     * @param fileId      the id of the file for which validation was requested
+     * @param waitSeconds how long to wait for the validation to finish, capped at the configured maximum
+     * @return 404 if there is no request for a file with that id, 200 and the status otherwise
+     */
+    @GetMapping(path = "/check/{fileId}", params = "waitSeconds")
+    DeferredResult<ResponseEntity<?>> waitForStatus(@PathVariable("fileId") final String fileId,
+            @RequestParam("waitSeconds") final int waitSeconds) {
+        long wait = Math.max(0, Math.min(waitSeconds, maxWaitSeconds));
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(wait),
+                () -> currentStatus(fileId));
+
+        Optional<RequestStatus> current = statusCache.findById(fileId);
+        if (current.isEmpty() || wait == 0 || RequestStatusWatchers.isFinished(current.get())) {
+            result.setResult(response(current));
+            return result;
+        }
+
+        Runnable cancel = watchers.watch(fileId, event -> {
+            if (event.isRemoved() || RequestStatusWatchers.isFinished(event.status())) {
+                result.setResult(response(Optional.ofNullable(event.status())));
+            }
+        });
+        result.onCompletion(cancel);
+
+        // The validation may have finished before the watch started
+        statusCache.findById(fileId)
+                .filter(RequestStatusWatchers::isFinished)
+                .ifPresent(status -> result.setResult(ValidationResponse.success(status)));
+        return result;
+    }
+
+    /**
+     * Streams the status of a validation request as server-sent events. The current status is sent
+     * straight away, then each change to it, and the stream ends once the validation is complete or has
+     * failed. Each status event carries the status's ETag as its id.
+     *
+     * @param fileId the id of the file for which validation was requested
+     * @return 404 if there is no request for a file with that id, otherwise a stream of status events
+     */
+    @GetMapping(path = "/check/{fileId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<SseEmitter> statusEvents(@PathVariable("fileId") final String fileId) {
+        Optional<RequestStatus> current = statusCache.findById(fileId);
+        if (current.isEmpty()) {
+            return ValidationResponse.fileNotFound();
+        }
+
+        StatusEmitter emitter = new StatusEmitter(TimeUnit.SECONDS.toMillis(eventsTimeoutSeconds), executor);
+        if (!send(fileId, emitter, current.get())) {
+            return ResponseEntity.ok(emitter);
+        }
+        if (RequestStatusWatchers.isFinished(current.get())) {
+            emitter.complete();
+            return ResponseEntity.ok(emitter);
+        }
+
+        Runnable cancel = watchers.watch(fileId,
+                event -> emitter.enqueue(() -> onStatusChanged(fileId, emitter, event)));
+        emitter.onCompletion(cancel);
+        emitter.onError(e -> cancel.run());
+
+        // The validation may have finished before the watch started
+        statusCache.findById(fileId)
+                .filter(RequestStatusWatchers::isFinished)
+                .ifPresent(status -> emitter.enqueue(
+                        () -> onStatusChanged(fileId, emitter, RequestStatusChangedEvent.saved(status))));
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void onStatusChanged(String fileId, StatusEmitter emitter, RequestStatusChangedEvent event) {
+        if (event.isRemoved()) {
+            try {
+                emitter.send(SseEmitter.event().name(REMOVED_EVENT).data(fileId));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                logger.debugContext(fileId, "Removed event could not be sent", Map.of("error", String.valueOf(e)));
+                emitter.completeWithError(e);
+            }
+        } else if (send(fileId, emitter, event.status()) && RequestStatusWatchers.isFinished(event.status())) {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * A change may be reported more than once, so a status the client has already been sent is skipped.
+     */
+    private boolean send(String fileId, StatusEmitter emitter, RequestStatus status) {
+        Optional<String> eTag = ValidationResponse.eTag(status);
+        if (eTag.isPresent() && !emitter.isNew(eTag.get())) {
+            return true;
+        }
+
+        SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .name(STATUS_EVENT)
+                .data(status, MediaType.APPLICATION_JSON);
+        eTag.ifPresent(event::id);
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            logger.debugContext(fileId, "Status event could not be sent", Map.of("error", String.valueOf(e)));
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    /**
+     * An event stream that remembers the last status sent on it. Sends are queued one behind another on
+     * the executor, so events reach the client in the order the changes were reported.
+     */
+    private static final class StatusEmitter extends SseEmitter {
+
+        private final Executor executor;
+        private CompletableFuture<Void> queue = CompletableFuture.completedFuture(null);
+        private String lastETag;
+
+        StatusEmitter(long timeout, Executor executor) {
+            super(timeout);
+            this.executor = executor;
+        }
+
+        synchronized void enqueue(Runnable send) {
+            queue = queue.thenRunAsync(send, executor).exceptionally(e -> null);
+        }
+
+        synchronized boolean isNew(String eTag) {
+            if (eTag.equals(lastETag)) {
+                return false;
+            }
+            lastETag = eTag;
+            return true;
+        }
+    }
+
+    private ResponseEntity<?> currentStatus(String fileId) {
+        return response(statusCache.findById(fileId));
+    }
+
+    private static ResponseEntity<?> response(Optional<RequestStatus> status) {
+        return status.<ResponseEntity<?>>map(ValidationResponse::success)
+                .orElseGet(ValidationResponse::requestNotFound);
+    }
+}
@@ -0,0 +1,12 @@
+package uk.gov.companieshouse.account.validator.exceptionhandler;
+
+/**
+ * Thrown when the async dispatch queue is full and files are rejected rather than sent by the submitter.
+ * The file was not sent and can be submitted again.
+ */
+public class DispatchRejectedException extends XBRLValidationException {
+
+    public DispatchRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.companieshouse.account.validator.exceptionhandler;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling Felix when it is failing or already has as many requests as it can take.
+ * The file was not sent and can be sent again after the given delay.
+ */
+public class FelixUnavailableException extends XBRLValidationException {
+
+    private final Duration retryAfter;
+
+    public FelixUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,27 @@
+package uk.gov.companieshouse.account.validator.exceptionhandler;
+
+/**
+ * Thrown when a file is larger than the platform allows, so it is rejected before it is buffered or
+ * sent on for validation or rendering.
+ */
+public class FileTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = -3489617705240375530L;
+
+    private final long size;
+    private final long limit;
+
+    public FileTooLargeException(String fileId, long size, long limit) {
+        super("File " + fileId + " is " + size + " bytes, larger than the limit of " + limit + " bytes");
+        this.size = size;
+        this.limit = limit;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
@@ -1,16 +1,85 @@
 package uk.gov.companieshouse.account.validator.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A downloaded file. Small files are held in memory and files above the spill threshold are written to
+ * a temporary file, so a large accounts package does not hold hundreds of megabytes of heap while it is
+ * being rendered. The contents should be read with {@link #openStream} or {@link #openChannel}.
+ * <p>
+ * A file is closed by each holder once it is finished with, and a spilled file's temporary file is
+ * deleted when the last holder closes it. A file that is never closed is deleted once it is garbage
+ * collected.
+ */
+public final class File implements AutoCloseable {
+
+    private static final Cleaner CLEANER = Cleaner.create();
 
-public final class File {
     private final String id;
     private final String name;
     private final byte[] data;
+    private final Path path;
+    private final long size;
+    private final AtomicInteger holders = new AtomicInteger(1);
+    private final Cleaner.Cleanable cleanable;
 
     public File(String id, String name, byte[] data) {
         this.id = id;
         this.name = name;
         this.data = data;
+        this.path = null;
+        this.size = data == null ? 0 : data.length;
+        this.cleanable = null;
+    }
+
+    private File(String id, String name, Path path, long size) {
+        this.id = id;
+        this.name = name;
+        this.data = null;
+        this.path = path;
+        this.size = size;
+        this.cleanable = CLEANER.register(this, new TempFileDeleter(path));
+    }
+
+    /**
+     * Creates a file, writing the contents to a temporary file if they are larger than the threshold so
+     * that the array can be garbage collected.
+     *
+     * @param id             the id of the file
+     * @param name           the name of the file
+     * @param data           the contents of the file
+     * @param spillThreshold the largest size held in memory in bytes, or 0 to always hold it in memory
+     * @return the file
+     */
+    public static File of(String id, String name, byte[] data, long spillThreshold) {
+        if (spillThreshold <= 0 || data.length <= spillThreshold) {
+            return new File(id, name, data);
+        }
+
+        try {
+            Path path = Files.createTempFile("account-validator-", ".file");
+            try {
+                Files.write(path, data);
+            } catch (IOException e) {
+                Files.deleteIfExists(path);
+                throw e;
+            }
+            return new File(id, name, path, data.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spill file " + id + " to disk", e);
+        }
     }
 
     public String getId() {
@@ -21,8 +90,70 @@ public final class File {
         return name;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isSpilled() {
+        return path != null;
+    }
+
+    /**
+     * @return a new stream over the contents of the file
+     * @throws IOException if a spilled file cannot be opened
+     */
+    public InputStream openStream() throws IOException {
+        return path == null ? new ByteArrayInputStream(data) : Files.newInputStream(path);
+    }
+
+    /**
+     * @return a new channel over the contents of the file
+     * @throws IOException if a spilled file cannot be opened
+     */
+    public ReadableByteChannel openChannel() throws IOException {
+        return path == null
+                ? Channels.newChannel(new ByteArrayInputStream(data))
+                : FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Gets the contents of the file as an array. A spilled file is read back into memory, so
+     * {@link #openStream} should be used for files that may be large.
+     *
+     * @return the contents of the file
+     */
     public byte[] getData() {
-        return data;
+        if (path == null) {
+            return data;
+        }
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds a holder of the file, who must close it once finished with it.
+     *
+     * @return this file
+     * @throws IllegalStateException if the file has already been closed by every holder
+     */
+    public File retain() {
+        if (holders.getAndUpdate(count -> count > 0 ? count + 1 : count) <= 0) {
+            throw new IllegalStateException("File " + id + " has already been closed");
+        }
+        return this;
+    }
+
+    /**
+     * Releases this holder's use of the file, deleting a spilled file once no holders remain.
+     */
+    @Override
+    public void close() {
+        if (holders.getAndUpdate(count -> count > 0 ? count - 1 : count) == 1 && cleanable != null) {
+            cleanable.clean();
+        }
     }
 
     @Override
@@ -32,12 +163,13 @@ public final class File {
         var that = (File) obj;
         return Objects.equals(this.id, that.id) &&
                 Objects.equals(this.name, that.name) &&
-                Objects.equals(this.data, that.data);
+                Objects.equals(this.data, that.data) &&
+                Objects.equals(this.path, that.path);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, data);
+        return Objects.hash(id, name, data, path);
     }
 
     @Override
@@ -45,6 +177,21 @@ public final class File {
         return "File[" +
                 "id=" + id + ", " +
                 "name=" + name + ", " +
-                "data=" + data + ']';
+                "size=" + size + ", " +
+                "spilled=" + isSpilled() + ']';
+    }
+
+    /**
+     * Deletes a spilled file. Kept separate from the file so the cleaner does not keep it reachable.
+     */
+    private record TempFileDeleter(Path path) implements Runnable {
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // Left in the temporary directory
+            }
+        }
     }
 }
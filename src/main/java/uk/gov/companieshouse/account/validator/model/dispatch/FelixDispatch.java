@@ -0,0 +1,34 @@
+package uk.gov.companieshouse.account.validator.model.dispatch;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
+
+import java.time.LocalDateTime;
+
+/*
+ * A file waiting to be sent to Felix, or one that has been sent. Records are written when a file is
+ * submitted and sent by the dispatcher, so Felix is not called while the submitter waits.
+ *
+ * While a record is queued the next attempt date is when it may next be sent. While it is being sent
+ * the date is when the claim expires, after which another dispatcher may send it again.
+ */
+@Document("felix_dispatch")
+public record FelixDispatch(
+    @Id String fileId,
+    @Field String fileName,
+    @Field("package_type") PackageTypeApi packageType,
+    @Field("company_number") String companyNumber,
+    @Field String state,
+    @Field int attempts,
+    @Field("next_attempt") LocalDateTime nextAttemptDateTime,
+    @Field("last_error") String lastError,
+    @Field("created") LocalDateTime createdDateTime,
+    @Field("updated") LocalDateTime updatedDateTime) {
+
+    public static final String STATE_QUEUED = "queued";
+    public static final String STATE_SENDING = "sending";
+    public static final String STATE_SENT = "sent";
+    public static final String STATE_FAILED = "failed";
+}
@@ -0,0 +1,30 @@
+package uk.gov.companieshouse.account.validator.model.maintenance;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The outcome of deleting one batch of files. A batch is at most one page of ids, so its lists stay small.
+ *
+ * @param deleted         ids whose files were deleted
+ * @param failed          ids whose files could not be deleted. Their statuses are kept so a later run retries them.
+ * @param skipped         ids whose files had already gone from the file transfer api
+ * @param deleteMillis    how long the deletes took in total
+ * @param maxDeleteMillis how long the slowest delete took
+ * @param elapsedMillis   how long the whole batch took
+ */
+public record DeletionBatch(
+        List<String> deleted,
+        List<String> failed,
+        List<String> skipped,
+        long deleteMillis,
+        long maxDeleteMillis,
+        long elapsedMillis) {
+
+    /**
+     * @return the ids whose statuses can be removed, i.e. those with no file left behind
+     */
+    public List<String> removable() {
+        return Stream.concat(deleted.stream(), skipped.stream()).toList();
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.companieshouse.account.validator.model.maintenance;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The outcome of a file deletion run. Only counts are kept for the whole run, along with the first
+ * {@link #MAX_FAILED_IDS} failed ids, so the summary does not grow with the number of files.
+ *
+ * @param deleted         the number of files deleted
+ * @param failed          the number of files that could not be deleted
+ * @param skipped         the number of files that had already gone from the file transfer api
+ * @param failedIds       the first ids whose files could not be deleted
+ * @param deleteMillis    how long the deletes took in total
+ * @param maxDeleteMillis how long the slowest delete took
+ * @param elapsedMillis   how long the whole run took
+ */
+public record DeletionSummary(
+        long deleted,
+        long failed,
+        long skipped,
+        List<String> failedIds,
+        long deleteMillis,
+        long maxDeleteMillis,
+        long elapsedMillis) {
+
+    public static final int MAX_FAILED_IDS = 100;
+
+    public static DeletionSummary empty() {
+        return new DeletionSummary(0, 0, 0, List.of(), 0, 0, 0);
+    }
+
+    /**
+     * Adds a batch to this summary
+     *
+     * @param batch the batch to add
+     * @return a summary covering this run and the batch
+     */
+    public DeletionSummary plus(DeletionBatch batch) {
+        List<String> ids = failedIds.size() >= MAX_FAILED_IDS || batch.failed().isEmpty()
+                ? failedIds
+                : Stream.concat(failedIds.stream(), batch.failed().stream()).limit(MAX_FAILED_IDS).toList();
+        return new DeletionSummary(
+                deleted + batch.deleted().size(),
+                failed + batch.failed().size(),
+                skipped + batch.skipped().size(),
+                ids,
+                deleteMillis + batch.deleteMillis(),
+                Math.max(maxDeleteMillis, batch.maxDeleteMillis()),
+                elapsedMillis + batch.elapsedMillis());
+    }
+}
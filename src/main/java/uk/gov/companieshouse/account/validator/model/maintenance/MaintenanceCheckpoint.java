@@ -0,0 +1,17 @@
+package uk.gov.companieshouse.account.validator.model.maintenance;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/*
+ * Records how far a maintenance task has got so that an interrupted run can resume where it stopped.
+ */
+@Document("maintenance_checkpoint")
+public record MaintenanceCheckpoint(
+    @Id String task,
+    @Field("last_file_id") String lastFileId,
+    @Field("updated") LocalDateTime updatedDateTime) {
+}
@@ -0,0 +1,20 @@
+package uk.gov.companieshouse.account.validator.model.maintenance;
+
+/**
+ * The outcome of a run that looks for pending statuses whose Felix callback never arrived.
+ *
+ * @param scanned       stale pending statuses looked at
+ * @param resubmitted   orphans sent to Felix again
+ * @param errored       orphans marked as error
+ * @param waiting       files still queued to be sent to Felix, so not orphaned
+ * @param elapsedMillis how long the run took
+ */
+public record ReconciliationSummary(int scanned, int resubmitted, int errored, int waiting, long elapsedMillis) {
+
+    /**
+     * @return the statuses that were stuck pending, whether resubmitted or errored
+     */
+    public int orphans() {
+        return resubmitted + errored;
+    }
+}
@@ -0,0 +1,47 @@
+package uk.gov.companieshouse.account.validator.model.validation;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+/**
+ * The outcome of one file in a batch validation request.
+ *
+ * @param fileId        the id of the file
+ * @param status        the HTTP status the file would have had if it had been submitted on its own
+ * @param requestStatus the pending status, if the file was accepted
+ * @param error         why the file was not accepted, if it was not
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchValidationResult(String fileId, int status, RequestStatus requestStatus, String error) {
+
+    public static BatchValidationResult accepted(RequestStatus requestStatus) {
+        return new BatchValidationResult(requestStatus.fileId(), HttpStatus.OK.value(), requestStatus, null);
+    }
+
+    public static BatchValidationResult invalid(String fileId, String error) {
+        return new BatchValidationResult(fileId, HttpStatus.BAD_REQUEST.value(), null, error);
+    }
+
+    public static BatchValidationResult fileNotFound(String fileId) {
+        return new BatchValidationResult(fileId, HttpStatus.NOT_FOUND.value(), null, "File not found");
+    }
+
+    public static BatchValidationResult tooLarge(String fileId, long limit) {
+        return new BatchValidationResult(fileId, HttpStatus.CONTENT_TOO_LARGE.value(), null,
+                "File is larger than the limit of " + limit + " bytes");
+    }
+
+    public static BatchValidationResult failed(String fileId, String error) {
+        return new BatchValidationResult(fileId, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, error);
+    }
+
+    public static BatchValidationResult unavailable(String fileId, String error) {
+        return new BatchValidationResult(fileId, HttpStatus.SERVICE_UNAVAILABLE.value(), null, error);
+    }
+
+    @JsonIgnore
+    public boolean isAccepted() {
+        return status == HttpStatus.OK.value();
+    }
+}
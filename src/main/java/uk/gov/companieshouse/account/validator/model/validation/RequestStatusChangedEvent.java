@@ -0,0 +1,22 @@
+package uk.gov.companieshouse.account.validator.model.validation;
+
+/**
+ * Published after a request status has been written or removed.
+ *
+ * @param fileId the id of the file the status belongs to
+ * @param status the status as stored, or null when it has been removed
+ */
+public record RequestStatusChangedEvent(String fileId, RequestStatus status) {
+
+    public static RequestStatusChangedEvent saved(RequestStatus status) {
+        return new RequestStatusChangedEvent(status.fileId(), status);
+    }
+
+    public static RequestStatusChangedEvent removed(String fileId) {
+        return new RequestStatusChangedEvent(fileId, null);
+    }
+
+    public boolean isRemoved() {
+        return status == null;
+    }
+}
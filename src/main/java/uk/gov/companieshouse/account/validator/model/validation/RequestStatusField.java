@@ -0,0 +1,44 @@
+package uk.gov.companieshouse.account.validator.model.validation;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The parts of a {@link RequestStatus} a caller can ask for when looking up many statuses, with the
+ * document field each is read from. The file id is always returned.
+ */
+public enum RequestStatusField {
+
+    FILE_NAME("fileName", "fileName"),
+    STATUS("status", "status"),
+    VALIDATION_STATUS("validationStatus", "result.validationStatus"),
+    RESULT("result", "result"),
+    CREATED("createdDateTime", "created"),
+    UPDATED("updatedDateTime", "updated");
+
+    private final String name;
+    private final String documentField;
+
+    RequestStatusField(String name, String documentField) {
+        this.name = name;
+        this.documentField = documentField;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDocumentField() {
+        return documentField;
+    }
+
+    /**
+     * @param name the name used in the request, e.g. {@code validationStatus}
+     * @return the field with that name, empty if there is none
+     */
+    public static Optional<RequestStatusField> fromName(String name) {
+        return Arrays.stream(values())
+                .filter(field -> field.name.equals(name))
+                .findFirst();
+    }
+}
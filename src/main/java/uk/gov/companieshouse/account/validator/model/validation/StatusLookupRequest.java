@@ -0,0 +1,12 @@
+package uk.gov.companieshouse.account.validator.model.validation;
+
+import java.util.List;
+
+/**
+ * A request for the statuses of many files.
+ *
+ * @param fileIds the ids of the files
+ * @param fields  the {@link RequestStatusField} names to return, all fields if empty or null
+ */
+public record StatusLookupRequest(List<String> fileIds, List<String> fields) {
+}
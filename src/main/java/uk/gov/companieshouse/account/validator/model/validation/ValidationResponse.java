@@ -1,17 +1,45 @@
 package uk.gov.companieshouse.account.validator.model.validation;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Optional;
+
 public final class ValidationResponse {
-    public static ResponseEntity<?> fileNotFound() {
+    public static <T> ResponseEntity<T> fileNotFound() {
         return ResponseEntity.notFound().build();
     }
 
+    public static ResponseEntity<?> fileTooLarge(long limit) {
+        return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body("File is larger than the limit of " + limit + " bytes");
+    }
+
     public static ResponseEntity<?> requestNotFound() {
         return ResponseEntity.notFound().build();
     }
 
     public static ResponseEntity<RequestStatus> success(RequestStatus requestStatus) {
-        return ResponseEntity.ok(requestStatus);
+        return eTag(requestStatus)
+                .map(eTag -> ResponseEntity.ok().eTag(eTag).body(requestStatus))
+                .orElseGet(() -> ResponseEntity.ok(requestStatus));
+    }
+
+    public static ResponseEntity<?> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    /**
+     * Every write to a status sets its updated date, so the state and updated date together identify a
+     * version of the status.
+     *
+     * @param requestStatus the status
+     * @return a strong entity tag for the status, or empty if it has never been updated
+     */
+    public static Optional<String> eTag(RequestStatus requestStatus) {
+        if (requestStatus.updatedDateTime() == null) {
+            return Optional.empty();
+        }
+        return Optional.of("\"" + requestStatus.status() + "-" + requestStatus.updatedDateTime() + "\"");
     }
 }
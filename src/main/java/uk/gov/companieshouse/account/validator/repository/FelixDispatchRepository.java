@@ -0,0 +1,8 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+
+public interface FelixDispatchRepository extends MongoRepository<FelixDispatch, String>, FelixDispatchRepositoryCustom {
+
+}
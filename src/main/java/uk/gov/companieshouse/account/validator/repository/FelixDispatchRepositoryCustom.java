@@ -0,0 +1,81 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * The state changes of a {@link FelixDispatch}. Each is a single atomic write, so any number of
+ * dispatchers, on any number of instances, can share the queue.
+ */
+public interface FelixDispatchRepositoryCustom {
+
+    /**
+     * Queues a file to be sent straight away. A file that is already queued or sent is queued again with
+     * its attempts reset, as it has been submitted again.
+     *
+     * @param dispatch the file to send
+     */
+    void enqueue(FelixDispatch dispatch);
+
+    /**
+     * Claims the queued file that has waited longest, or a file whose previous claim has expired. The
+     * claim counts as an attempt.
+     *
+     * @param now          the current time
+     * @param claimedUntil when the claim expires if the file has not been sent
+     * @return the claimed file, empty if there is nothing to send
+     */
+    Optional<FelixDispatch> claimNext(LocalDateTime now, LocalDateTime claimedUntil);
+
+    /**
+     * @param claim the claimed file that Felix accepted
+     * @return false if the claim had expired or the file had been queued again, so nothing was changed
+     */
+    boolean markSent(FelixDispatch claim);
+
+    /**
+     * Returns a claimed file to the queue after a failed attempt.
+     *
+     * @param claim       the claimed file to retry
+     * @param nextAttempt when the file may next be sent
+     * @param error       why the attempt failed
+     * @return false if the claim had expired or the file had been queued again, so nothing was changed
+     */
+    boolean retryLater(FelixDispatch claim, LocalDateTime nextAttempt, String error);
+
+    /**
+     * Returns a claimed file to the queue without it counting as an attempt, as it was not sent.
+     *
+     * @param claim       the claimed file to send later
+     * @param nextAttempt when the file may next be sent
+     * @return false if the claim had expired or the file had been queued again, so nothing was changed
+     */
+    boolean release(FelixDispatch claim, LocalDateTime nextAttempt);
+
+    /**
+     * @param claim the claimed file that will not be sent again unless it is replayed
+     * @param error why the last attempt failed
+     * @return false if the claim had expired or the file had been queued again, so nothing was changed
+     */
+    boolean markFailed(FelixDispatch claim, String error);
+
+    /**
+     * Queues a file that failed, or whose claim has expired, to be sent straight away with its attempts
+     * reset.
+     *
+     * @param fileId the file to send again
+     * @param now    the current time
+     * @return the file, empty if there is no such file or it is not failed or stuck
+     */
+    Optional<FelixDispatch> replay(String fileId, LocalDateTime now);
+
+    /**
+     * Removes files that were sent or failed before the given date.
+     *
+     * @param updatedBefore the date the files were last changed before
+     * @return the number of files removed
+     */
+    long deleteFinished(LocalDateTime updatedBefore);
+}
@@ -0,0 +1,128 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public class FelixDispatchRepositoryImpl implements FelixDispatchRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public FelixDispatchRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void enqueue(FelixDispatch dispatch) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("fileName", dispatch.fileName())
+                .set("package_type", dispatch.packageType())
+                .set("company_number", dispatch.companyNumber())
+                .set("state", FelixDispatch.STATE_QUEUED)
+                .set("attempts", 0)
+                .set("next_attempt", now)
+                .unset("last_error")
+                .set("updated", now)
+                .setOnInsert("created", now);
+        mongoTemplate.upsert(byId(dispatch.fileId()), update, FelixDispatch.class);
+    }
+
+    @Override
+    public Optional<FelixDispatch> claimNext(LocalDateTime now, LocalDateTime claimedUntil) {
+        Query query = query(where("state").in(FelixDispatch.STATE_QUEUED, FelixDispatch.STATE_SENDING)
+                .and("next_attempt").lte(now))
+                .with(Sort.by("next_attempt"));
+        Update update = new Update()
+                .set("state", FelixDispatch.STATE_SENDING)
+                .set("next_attempt", claimedUntil)
+                .inc("attempts", 1)
+                .set("updated", now);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update, options().returnNew(true),
+                FelixDispatch.class));
+    }
+
+    @Override
+    public boolean markSent(FelixDispatch claim) {
+        return updateClaim(claim, new Update()
+                .set("state", FelixDispatch.STATE_SENT)
+                .unset("last_error")
+                .set("updated", LocalDateTime.now()));
+    }
+
+    @Override
+    public boolean retryLater(FelixDispatch claim, LocalDateTime nextAttempt, String error) {
+        return updateClaim(claim, new Update()
+                .set("state", FelixDispatch.STATE_QUEUED)
+                .set("next_attempt", nextAttempt)
+                .set("last_error", error)
+                .set("updated", LocalDateTime.now()));
+    }
+
+    @Override
+    public boolean release(FelixDispatch claim, LocalDateTime nextAttempt) {
+        return updateClaim(claim, new Update()
+                .set("state", FelixDispatch.STATE_QUEUED)
+                .set("next_attempt", nextAttempt)
+                .inc("attempts", -1)
+                .set("updated", LocalDateTime.now()));
+    }
+
+    @Override
+    public boolean markFailed(FelixDispatch claim, String error) {
+        return updateClaim(claim, new Update()
+                .set("state", FelixDispatch.STATE_FAILED)
+                .set("last_error", error)
+                .set("updated", LocalDateTime.now()));
+    }
+
+    @Override
+    public Optional<FelixDispatch> replay(String fileId, LocalDateTime now) {
+        Query query = query(where("_id").is(fileId).orOperator(
+                where("state").is(FelixDispatch.STATE_FAILED),
+                new Criteria().andOperator(where("state").is(FelixDispatch.STATE_SENDING),
+                        where("next_attempt").lte(now))));
+        Update update = new Update()
+                .set("state", FelixDispatch.STATE_QUEUED)
+                .set("attempts", 0)
+                .set("next_attempt", now)
+                .set("updated", now);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update, options().returnNew(true),
+                FelixDispatch.class));
+    }
+
+    @Override
+    public long deleteFinished(LocalDateTime updatedBefore) {
+        Query query = query(where("state").in(FelixDispatch.STATE_SENT, FelixDispatch.STATE_FAILED)
+                .and("updated").lt(updatedBefore));
+        return mongoTemplate.remove(query, FelixDispatch.class).getDeletedCount();
+    }
+
+    /**
+     * Updates a file only while it is still held by the claim. Once the claim has expired and the file has
+     * been claimed again, or the file has been queued again, the attempts or claim expiry no longer match.
+     */
+    private boolean updateClaim(FelixDispatch claim, Update update) {
+        Query query = query(where("_id").is(claim.fileId())
+                .and("state").is(FelixDispatch.STATE_SENDING)
+                .and("attempts").is(claim.attempts())
+                .and("next_attempt").is(claim.nextAttemptDateTime()));
+        return mongoTemplate.updateFirst(query, update, FelixDispatch.class).getMatchedCount() > 0;
+    }
+
+    private static Query byId(String fileId) {
+        return query(where("_id").is(fileId));
+    }
+}
@@ -0,0 +1,124 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Creates the indexes used by the request status queries once the application has started, and logs
+ * the indexes present on the collection.
+ *
+ * <p>Mongo cannot build a partial index that only holds documents missing a field, so statuses with no
+ * created date are found through a plain index on {@code created}, which indexes a missing value as null.
+ *
+ * <p>When TTL mode is enabled the index on {@code updated} expires statuses itself. Mongo only removes the
+ * status documents, so their files are left to the file transfer service's own retention rather than
+ * being deleted by the cleanup sweep.
+ */
+@Component
+public class RequestStatusIndexManager {
+
+    static final String UPDATED_INDEX = "updated_1";
+    static final String CREATED_INDEX = "created_1";
+    static final String STATUS_UPDATED_INDEX = "status_1_updated_1";
+
+    private final Logger logger;
+    private final MongoTemplate mongoTemplate;
+    private final boolean ttlEnabled;
+    private final int ttlDays;
+
+    @Autowired
+    public RequestStatusIndexManager(Logger logger,
+            MongoTemplate mongoTemplate,
+            @Value("${request.status.ttl.enabled:false}") boolean ttlEnabled,
+            @Value("${request.status.ttl.days:30}") int ttlDays) {
+        this.logger = logger;
+        this.mongoTemplate = mongoTemplate;
+        this.ttlEnabled = ttlEnabled;
+        this.ttlDays = ttlDays;
+    }
+
+    /**
+     * Creates any missing indexes. A failure is logged rather than stopping the application, as the
+     * queries still work without the indexes, only more slowly.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(RequestStatus.class);
+        try {
+            ensureUpdatedIndex(indexOps);
+            indexOps.ensureIndex(new Index()
+                    .on("created", Sort.Direction.ASC)
+                    .named(CREATED_INDEX));
+            indexOps.ensureIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("updated", Sort.Direction.ASC)
+                    .named(STATUS_UPDATED_INDEX));
+            report(indexOps.getIndexInfo());
+        } catch (DataAccessException e) {
+            logger.error("Failed to create request status indexes", e);
+        }
+    }
+
+    /**
+     * The index on updated is a TTL index or a plain one depending on the configuration. An existing index
+     * of the other kind is dropped first, as Mongo will not change the options of an index in place.
+     */
+    private void ensureUpdatedIndex(IndexOperations indexOps) {
+        Optional<Duration> expireAfter = ttlEnabled ? Optional.of(Duration.ofDays(ttlDays)) : Optional.empty();
+
+        indexOps.getIndexInfo().stream()
+                .filter(info -> UPDATED_INDEX.equals(info.getName()))
+                .filter(info -> !info.getExpireAfter().equals(expireAfter))
+                .findFirst()
+                .ifPresent(info -> {
+                    logger.info("Replacing request status index", new HashMap<>(Map.of(
+                            "index", info.getName(),
+                            "ttl", ttlEnabled)));
+                    indexOps.dropIndex(info.getName());
+                });
+
+        Index index = new Index()
+                .on("updated", Sort.Direction.ASC)
+                .named(UPDATED_INDEX);
+        expireAfter.ifPresent(index::expire);
+        indexOps.ensureIndex(index);
+    }
+
+    private void report(List<IndexInfo> indexes) {
+        Map<String, Object> logInfo = new HashMap<>();
+        for (IndexInfo index : indexes) {
+            logInfo.put(index.getName(), index.getExpireAfter()
+                    .map(ttl -> "ttl " + ttl.toDays() + " days")
+                    .orElse("ok"));
+        }
+
+        Set<String> names = logInfo.keySet();
+        List<String> missing = List.of(UPDATED_INDEX, CREATED_INDEX, STATUS_UPDATED_INDEX).stream()
+                .filter(name -> !names.contains(name))
+                .toList();
+        if (!missing.isEmpty()) {
+            logInfo.put("missing", missing);
+            logger.error("Request status indexes are missing", logInfo);
+        } else {
+            logger.info("Request status indexes", logInfo);
+        }
+    }
+}
@@ -1,15 +1,38 @@
 package uk.gov.companieshouse.account.validator.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
-public interface RequestStatusRepository extends MongoRepository<RequestStatus, String> {
+public interface RequestStatusRepository extends MongoRepository<RequestStatus, String>, RequestStatusRepositoryCustom {
 
-    List<RequestStatus> findByUpdatedDateTimeLessThan(LocalDate updated);
+    /**
+     * Finds the statuses that are due to be removed, either because they were last updated before the
+     * given date or because they have no created date. Results are ordered by id and start after the
+     * given id so the collection can be walked a page at a time. Only the id of each status is loaded.
+     *
+     * @param afterFileId   the id to start after, an empty string to start from the beginning
+     * @param updatedBefore statuses updated before this date are removed
+     * @param page          the page size
+     * @return the statuses to remove, with only the file id populated
+     */
+    @Query(value = "{ '_id': { $gt: ?0 }, $or: [ { 'updated': { $lt: ?1 } }, { 'created': null } ] }",
+            fields = "{ '_id': 1 }",
+            sort = "{ '_id': 1 }")
+    List<RequestStatus> findIdsToRemove(String afterFileId, LocalDate updatedBefore, Pageable page);
 
-    List<RequestStatus> findByCreatedDateTimeIsNull();
+    /**
+     * Finds the state and updated date of a status without loading its result.
+     *
+     * @param fileId the id of the file
+     * @return the status with only the file id, state and updated date populated
+     */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'status': 1, 'updated': 1 }")
+    Optional<RequestStatus> findVersionById(String fileId);
 
-}
\ No newline at end of file
+}
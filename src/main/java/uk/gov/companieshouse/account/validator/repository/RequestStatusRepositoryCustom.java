@@ -0,0 +1,72 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusField;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Status reads and writes that need more than the derived repository methods provide.
+ */
+public interface RequestStatusRepositoryCustom {
+
+    /**
+     * Writes a status in a single round-trip. The status, result and updated date always replace the stored
+     * values. The created date is only written when the status is inserted, so it keeps the date of the
+     * first write. A null file name leaves any stored file name as it is. A
+     * {@link uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent} is published
+     * once the status has been written.
+     *
+     * @param status the status to write
+     * @return the status as stored after the write
+     */
+    RequestStatus upsert(RequestStatus status);
+
+    /**
+     * Writes many statuses in one unordered bulk write, with the same rules as {@link #upsert}. A status
+     * that fails to write does not stop the others. A bulk write does not return the stored documents, so
+     * the written statuses are read back with one {@code $in} query and published as stored. Nothing is
+     * published if that read fails.
+     *
+     * @param statuses the statuses to write
+     * @return the file ids of any statuses that could not be written
+     */
+    Set<String> upsertAll(List<RequestStatus> statuses);
+
+    /**
+     * Finds the statuses of many files with a single {@code $in} query. The statuses are read from a
+     * cursor as the stream is consumed, so the stream must be closed once it has been read.
+     *
+     * @param fileIds the ids of the files, ids with no status are left out of the results
+     * @param fields  the fields to load alongside the file id, all fields if empty
+     * @return the statuses found, in no particular order
+     */
+    Stream<RequestStatus> streamAllById(Collection<String> fileIds, Set<RequestStatusField> fields);
+
+    /**
+     * Writes a status only if the stored status has not changed since it was read, i.e. it still has the
+     * same state and updated date. This stops a background task overwriting a result that arrived after
+     * the status was read.
+     *
+     * @param current     the status as it was read
+     * @param replacement the status to write, with the same rules as {@link #upsert}
+     * @return the status as stored after the write, empty if the stored status had changed
+     */
+    Optional<RequestStatus> replaceIfUnchanged(RequestStatus current, RequestStatus replacement);
+
+    /**
+     * Finds pending statuses last updated before the given date, oldest first. Results start after the
+     * given status so statuses that are left pending can be paged past. Uses the status and updated index.
+     *
+     * @param updatedBefore pending statuses updated before this date are found
+     * @param after         the last status of the previous page, null to start from the oldest
+     * @param limit         the page size
+     * @return the statuses, without their results
+     */
+    List<RequestStatus> findStalePending(LocalDateTime updatedBefore, RequestStatus after, int limit);
+}
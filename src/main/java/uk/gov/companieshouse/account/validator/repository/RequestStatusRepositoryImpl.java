@@ -0,0 +1,154 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusField;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RequestStatusRepositoryImpl implements RequestStatusRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public RequestStatusRepositoryImpl(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public RequestStatus upsert(RequestStatus status) {
+        RequestStatus stored = mongoTemplate.findAndModify(
+                query(where("_id").is(status.fileId())),
+                toUpdate(status),
+                options().upsert(true).returnNew(true),
+                RequestStatus.class);
+        if (stored != null) {
+            eventPublisher.publishEvent(RequestStatusChangedEvent.saved(stored));
+        }
+        return stored;
+    }
+
+    @Override
+    public Set<String> upsertAll(List<RequestStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return Set.of();
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RequestStatus.class);
+        statuses.forEach(status -> bulk.upsert(query(where("_id").is(status.fileId())), toUpdate(status)));
+
+        Set<String> failed;
+        try {
+            bulk.execute();
+            failed = Set.of();
+        } catch (BulkOperationException e) {
+            failed = e.getErrors().stream()
+                    .map(BulkWriteError::getIndex)
+                    .map(index -> statuses.get(index).fileId())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        publishStored(statuses.stream()
+                .map(RequestStatus::fileId)
+                .filter(fileId -> !failed.contains(fileId))
+                .toList());
+        return failed;
+    }
+
+    /**
+     * Publishes the statuses as Mongo stored them. A bulk write does not return the documents, and the
+     * stored created date, file name and updated date can differ from those that were written, so the
+     * statuses are read back. The statuses have already been saved, so a failure to read them back is not
+     * reported; caches then read the statuses through once their entries expire.
+     */
+    private void publishStored(List<String> fileIds) {
+        if (fileIds.isEmpty()) {
+            return;
+        }
+        List<RequestStatus> stored;
+        try {
+            stored = mongoTemplate.find(query(where("_id").in(fileIds)), RequestStatus.class);
+        } catch (DataAccessException e) {
+            return;
+        }
+        stored.forEach(status -> eventPublisher.publishEvent(RequestStatusChangedEvent.saved(status)));
+    }
+
+    @Override
+    public Stream<RequestStatus> streamAllById(Collection<String> fileIds, Set<RequestStatusField> fields) {
+        Query query = query(where("_id").in(fileIds));
+        fields.forEach(field -> query.fields().include(field.getDocumentField()));
+        return mongoTemplate.stream(query, RequestStatus.class);
+    }
+
+    @Override
+    public Optional<RequestStatus> replaceIfUnchanged(RequestStatus current, RequestStatus replacement) {
+        RequestStatus stored = mongoTemplate.findAndModify(
+                query(where("_id").is(current.fileId())
+                        .and("status").is(current.status())
+                        .and("updated").is(current.updatedDateTime())),
+                toUpdate(replacement),
+                options().returnNew(true),
+                RequestStatus.class);
+        if (stored != null) {
+            eventPublisher.publishEvent(RequestStatusChangedEvent.saved(stored));
+        }
+        return Optional.ofNullable(stored);
+    }
+
+    @Override
+    public List<RequestStatus> findStalePending(LocalDateTime updatedBefore, RequestStatus after, int limit) {
+        Criteria criteria = where("status").is(RequestStatus.STATE_PENDING);
+        if (after == null) {
+            criteria.and("updated").lt(updatedBefore);
+        } else {
+            criteria.andOperator(
+                    where("updated").lt(updatedBefore),
+                    new Criteria().orOperator(
+                            where("updated").gt(after.updatedDateTime()),
+                            where("updated").is(after.updatedDateTime()).and("_id").gt(after.fileId())));
+        }
+        Query query = query(criteria)
+                .with(Sort.by("updated", "_id"))
+                .limit(limit);
+        query.fields().include("fileName", "status", "created", "updated");
+        return mongoTemplate.find(query, RequestStatus.class);
+    }
+
+    private static Update toUpdate(RequestStatus status) {
+        Update update = new Update()
+                .set("status", status.status())
+                .set("result", status.result())
+                .set("updated", status.updatedDateTime())
+                .setOnInsert("created", status.createdDateTime());
+        if (status.fileName() != null) {
+            update.set("fileName", status.fileName());
+        } else {
+            update.setOnInsert("fileName", "");
+        }
+        return update;
+    }
+}
@@ -0,0 +1,214 @@
+package uk.gov.companieshouse.account.validator.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FelixUnavailableException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.validation.BatchValidationResult;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationRequest;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Submits many files for validation at once. File details are looked up in parallel, the pending statuses
+ * are saved in a single bulk write and the files are then sent to Felix in parallel. Each file succeeds or
+ * fails on its own, so a failure does not undo the files that were accepted. As with a single submission,
+ * a file larger than the platform maximum is rejected before a status is saved or it is sent to Felix.
+ */
+@Service
+public class BatchValidationService {
+
+    private final Logger logger;
+    private final FileTransferStrategy fileTransferStrategy;
+    private final AccountValidationStrategy accountValidationStrategy;
+    private final RequestStatusRepository statusRepository;
+    private final RequestStatusFactory statusFactory;
+    private final Executor executor;
+    private final int concurrency;
+    private final long maxSize;
+
+    @Autowired
+    public BatchValidationService(Logger logger,
+            FileTransferStrategy fileTransferStrategy,
+            AccountValidationStrategy accountValidationStrategy,
+            RequestStatusRepository statusRepository,
+            RequestStatusFactory statusFactory,
+            @Qualifier("executor") Executor executor,
+            @Value("${validation.batch.concurrency:8}") int concurrency,
+            @Value("${uk.gov.ch.account.validator.platformMaxDecodedSizeMB:0}") long maxSizeMb) {
+        this.logger = logger;
+        this.fileTransferStrategy = fileTransferStrategy;
+        this.accountValidationStrategy = accountValidationStrategy;
+        this.statusRepository = statusRepository;
+        this.statusFactory = statusFactory;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.maxSize = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * @param requests the files to validate
+     * @return the outcome for each file, in the order they were requested
+     */
+    public List<BatchValidationResult> submit(List<ValidationRequest> requests) {
+        BatchValidationResult[] results = new BatchValidationResult[requests.size()];
+
+        List<Integer> valid = new ArrayList<>();
+        Set<String> fileIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String fileId = requests.get(i).getId();
+            if (fileId == null || fileId.isBlank()) {
+                results[i] = BatchValidationResult.invalid(fileId, "File id is required");
+            } else if (!fileIds.add(fileId)) {
+                results[i] = BatchValidationResult.invalid(fileId, "File id is repeated in the batch");
+            } else {
+                valid.add(i);
+            }
+        }
+
+        Map<Integer, FileDetailsApi> found = new LinkedHashMap<>();
+        List<Outcome<Optional<FileDetailsApi>>> details = inParallel(valid,
+                i -> fileTransferStrategy.getDetails(requests.get(i).getId()));
+        for (int k = 0; k < valid.size(); k++) {
+            int i = valid.get(k);
+            Outcome<Optional<FileDetailsApi>> outcome = details.get(k);
+            String fileId = requests.get(i).getId();
+            if (outcome.error() != null) {
+                logger.errorContext(fileId, "Failed to get file details", outcome.error(), null);
+                results[i] = BatchValidationResult.failed(fileId, "File details could not be read");
+            } else if (outcome.value().isEmpty()) {
+                results[i] = BatchValidationResult.fileNotFound(fileId);
+            } else if (maxSize > 0 && outcome.value().get().getSize() > maxSize) {
+                Map<String, Object> logInfo = new LinkedHashMap<>();
+                logInfo.put("size", outcome.value().get().getSize());
+                logInfo.put("limit", maxSize);
+                logger.errorContext(fileId, "Rejecting file larger than the platform maximum", null, logInfo);
+                results[i] = BatchValidationResult.tooLarge(fileId, maxSize);
+            } else {
+                found.put(i, outcome.value().get());
+            }
+        }
+
+        Map<Integer, RequestStatus> pending = new LinkedHashMap<>();
+        found.forEach((i, file) -> pending.put(i, statusFactory.pending(requests.get(i).getId(), file.getName(),
+                ValidationStatusApi.UPLOADED_TO_FTS)));
+        Set<String> unsaved = savePending(pending.values());
+
+        List<Integer> saved = new ArrayList<>();
+        pending.forEach((i, status) -> {
+            if (unsaved.contains(status.fileId())) {
+                results[i] = BatchValidationResult.failed(status.fileId(), "Status could not be saved");
+            } else {
+                saved.add(i);
+            }
+        });
+
+        List<Outcome<Void>> submitted = inParallel(saved, i -> {
+            ValidationRequest request = requests.get(i);
+            accountValidationStrategy.startValidation(found.get(i),
+                    new AccountsDetails(request.getPackageType(), request.getCompanyNumber()));
+            return null;
+        });
+        for (int k = 0; k < saved.size(); k++) {
+            int i = saved.get(k);
+            String fileId = requests.get(i).getId();
+            Exception error = submitted.get(k).error();
+            if (error == null) {
+                results[i] = BatchValidationResult.accepted(pending.get(i));
+            } else {
+                logger.errorContext(fileId, "Failed to send file to felix", error, null);
+                markError(fileId);
+                results[i] = error instanceof FelixUnavailableException
+                        ? BatchValidationResult.unavailable(fileId, error.getMessage())
+                        : BatchValidationResult.failed(fileId, "Validation could not be started");
+            }
+        }
+
+        Map<String, Object> logInfo = new LinkedHashMap<>();
+        logInfo.put("requested", requests.size());
+        logInfo.put("accepted", Arrays.stream(results).filter(BatchValidationResult::isAccepted).count());
+        logger.info("Batch validation submitted", logInfo);
+        return List.of(results);
+    }
+
+    private Set<String> savePending(Collection<RequestStatus> statuses) {
+        try {
+            return statusRepository.upsertAll(new ArrayList<>(statuses));
+        } catch (RuntimeException e) {
+            logger.error("Failed to save batch statuses", e);
+            Set<String> unsaved = new HashSet<>();
+            statuses.forEach(status -> unsaved.add(status.fileId()));
+            return unsaved;
+        }
+    }
+
+    /**
+     * Records the failure so that clients waiting for the file stop waiting.
+     */
+    private void markError(String fileId) {
+        try {
+            statusRepository.upsert(statusFactory.error(fileId));
+        } catch (RuntimeException e) {
+            logger.errorContext(fileId, "Failed to save error status", e, null);
+        }
+    }
+
+    /**
+     * Runs a task for each item on the executor, with no more than {@code concurrency} running at once.
+     *
+     * @return the outcome for each item, in the order of the items
+     */
+    private <R> List<Outcome<R>> inParallel(List<Integer> items, Task<R> task) {
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<Outcome<R>>> futures = new ArrayList<>(items.size());
+        try {
+            for (Integer item : items) {
+                permits.acquire();
+                futures.add(CompletableFuture.supplyAsync(() -> run(task, item), executor)
+                        .whenComplete((outcome, e) -> permits.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            while (futures.size() < items.size()) {
+                futures.add(CompletableFuture.completedFuture(new Outcome<>(null, e)));
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static <R> Outcome<R> run(Task<R> task, Integer item) {
+        try {
+            return new Outcome<>(task.apply(item), null);
+        } catch (Exception e) {
+            return new Outcome<>(null, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task<R> {
+        R apply(Integer item) throws Exception;
+    }
+
+    private record Outcome<R>(R value, Exception error) {
+    }
+}
@@ -1,7 +1,5 @@
 package uk.gov.companieshouse.account.validator.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.client.RestTemplate;
 import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
 import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
@@ -31,24 +29,30 @@ public class FelixAccountValidator implements AccountValidationStrategy {
     private final RestTemplate restTemplate;
     private final PrivateFelixValidatorResourceHandler felixClient;
     private final RequestStatusFactory statusFactory;
+    private final String internalApiUrl;
+    private final String felixValidatorUrl;
 
-    @Value("${internal.api.base.path}")
-    private String internalApiUrl;
-
-    @Value("${felix.validator.url}")
-    private String felixValidatorUrl;
-
-    @Autowired
+    /**
+     * The urls are passed in rather than injected into fields, as the validator is usually wrapped by
+     * another validator and so is not itself a Spring bean.
+     *
+     * @param internalApiUrl    the base url Felix calls back on with the results
+     * @param felixValidatorUrl the url of Felix
+     */
     public FelixAccountValidator(Logger logger,
             RequestStatusRepository statusRepository,
             RestTemplate restTemplate,
             PrivateFelixValidatorResourceHandler felixClient,
-            RequestStatusFactory statusFactory) {
+            RequestStatusFactory statusFactory,
+            String internalApiUrl,
+            String felixValidatorUrl) {
         this.logger = logger;
         this.statusRepository = statusRepository;
         this.restTemplate = restTemplate;
         this.felixClient = felixClient;
         this.statusFactory = statusFactory;
+        this.internalApiUrl = internalApiUrl;
+        this.felixValidatorUrl = felixValidatorUrl;
     }
 
     /**
@@ -91,13 +95,9 @@ public class FelixAccountValidator implements AccountValidationStrategy {
 
         logger.info("Saving status for file id " + fileId, logInfo);
 
-        String fileName = getStatus(fileId)
-                .map(RequestStatus::fileName)
-                .orElse("");
-
-        var requestStatus = statusFactory.fromResults(fileId, results, fileName);
+        // A null file name keeps the name stored when the file was submitted
+        var requestStatus = statusRepository.upsert(statusFactory.fromResults(fileId, results, null));
         logInfo.put("result", requestStatus);
-        statusRepository.save(requestStatus);
         logger.debugContext(fileId, "Result saved to db", logInfo);
     }
 
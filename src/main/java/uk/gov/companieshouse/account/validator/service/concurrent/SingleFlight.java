@@ -0,0 +1,106 @@
+package uk.gov.companieshouse.account.validator.service.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Makes concurrent callers asking for the same key share one call. The first caller starts the call
+ * and callers arriving while it is in flight are given its result, so a burst of identical requests
+ * reaches the downstream service once. The key is forgotten as soon as the call completes, so results
+ * are never cached here.
+ *
+ * @param <K> the type of key identifying a call
+ * @param <V> the type of result
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Starts the call for the key, or joins the one already in flight. Each caller gets its own copy
+     * of the shared future, so one caller cancelling does not affect the others.
+     *
+     * @param key  identifies the call
+     * @param call starts the call, only invoked if no call for the key is in flight
+     * @return a future completed with the result of the call
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        return execute(key, call, result -> { });
+    }
+
+    /**
+     * Starts the call for the key, or joins the one already in flight. When the call succeeds the result
+     * is passed to {@code share} once for every caller after the first, before any caller is given it.
+     * This lets a result that each caller must release, such as a reference counted resource, be
+     * retained for every caller.
+     *
+     * @param key   identifies the call
+     * @param call  starts the call, only invoked if no call for the key is in flight
+     * @param share invoked with the result for each caller that joined the call
+     * @return a future completed with the result of the call
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call, Consumer<V> share) {
+        Flight<V> started = new Flight<>();
+        Flight<V> flight = inFlight.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return started;
+            }
+            existing.callers++;
+            return existing;
+        });
+        if (flight != started) {
+            shared.increment();
+            return flight.future.copy();
+        }
+
+        try {
+            call.get().whenComplete((result, ex) -> {
+                // No caller can join once the flight is removed, so the number of callers is final
+                inFlight.remove(key, started);
+                if (ex != null) {
+                    started.future.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                            ? ex.getCause() : ex);
+                    return;
+                }
+                try {
+                    for (int i = 1; i < started.callers; i++) {
+                        share.accept(result);
+                    }
+                    started.future.complete(result);
+                } catch (RuntimeException e) {
+                    started.future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, started);
+            started.future.completeExceptionally(e);
+        }
+        return started.future.copy();
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return the number of callers given the result of a call started by another caller
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        // Only changed inside the map's compute for the key, and read after the key is removed
+        private int callers = 1;
+    }
+}
@@ -0,0 +1,160 @@
+package uk.gov.companieshouse.account.validator.service.dispatch;
+
+import uk.gov.companieshouse.account.validator.exceptionhandler.DispatchRejectedException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends files to Felix on a bounded pool of threads so submissions return without waiting for Felix.
+ * Files wait in the pool's queue while every thread is busy. Once the queue is full a file is either
+ * rejected, so the submitter can try again later, or sent by the submitter's own thread, which slows
+ * submissions down to the rate Felix takes them.
+ *
+ * <p>The submitter has already been given a pending status when a file is sent, so a file that fails to
+ * send, or is rejected because the queue is full, has its status set to error rather than being left
+ * pending until the reconciler finds it. Nothing is kept if the
+ * application stops with files still queued; their statuses are left pending for the reconciler.
+ */
+public class AsyncAccountValidator implements AccountValidationStrategy, AutoCloseable {
+
+    /**
+     * What happens to a file submitted while the queue is full
+     */
+    public enum Overflow {
+        REJECT,
+        CALLER_RUNS;
+
+        /**
+         * @param value reject or caller-runs, in any case
+         * @return the overflow policy
+         */
+        public static Overflow parse(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private final Logger logger;
+    private final AccountValidationStrategy delegate;
+    private final RequestStatusRepository statusRepository;
+    private final RequestStatusFactory statusFactory;
+    private final ThreadPoolExecutor executor;
+    private final Overflow overflow;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param executor the pool files are sent on, which must reject tasks once its queue is full
+     * @param overflow what happens to a file submitted while the queue is full
+     */
+    public AsyncAccountValidator(Logger logger, AccountValidationStrategy delegate,
+            RequestStatusRepository statusRepository, RequestStatusFactory statusFactory,
+            ThreadPoolExecutor executor, Overflow overflow) {
+        this.logger = logger;
+        this.delegate = delegate;
+        this.statusRepository = statusRepository;
+        this.statusFactory = statusFactory;
+        this.executor = executor;
+        this.overflow = overflow;
+    }
+
+    @Override
+    public void startValidation(FileDetailsApi file, AccountsDetails fileContent) throws XBRLValidationException {
+        try {
+            executor.execute(() -> send(file, fileContent));
+        } catch (RejectedExecutionException e) {
+            if (overflow == Overflow.REJECT || executor.isShutdown()) {
+                rejected.increment();
+                saveError(file.getId());
+                throw new DispatchRejectedException("Too many files waiting to be sent for validation");
+            }
+            callerRuns.increment();
+            send(file, fileContent);
+        }
+    }
+
+    private void send(FileDetailsApi file, AccountsDetails fileContent) {
+        String fileId = file.getId();
+        try {
+            delegate.startValidation(file, fileContent);
+        } catch (XBRLValidationException | RuntimeException e) {
+            failed.increment();
+            Map<String, Object> logInfo = new HashMap<>();
+            logInfo.put("fileId", fileId);
+            logger.errorContext(fileId, "Failed to send file to felix", e, logInfo);
+            saveError(fileId);
+        }
+    }
+
+    private void saveError(String fileId) {
+        try {
+            statusRepository.upsert(statusFactory.error(fileId));
+        } catch (RuntimeException e) {
+            Map<String, Object> logInfo = new HashMap<>();
+            logInfo.put("fileId", fileId);
+            logger.errorContext(fileId, "Failed to save error status", e, logInfo);
+        }
+    }
+
+    @Override
+    public void saveResults(String fileId, Results results) {
+        delegate.saveResults(fileId, results);
+    }
+
+    @Override
+    public Optional<RequestStatus> getStatus(String fileId) {
+        return delegate.getStatus(fileId);
+    }
+
+    /**
+     * Stops taking files and gives those already queued a short time to be sent.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getCallerRuns() {
+        return callerRuns.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+}
@@ -0,0 +1,255 @@
+package uk.gov.companieshouse.account.validator.service.dispatch;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FelixUnavailableException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the files queued by the {@link OutboxAccountValidator} to Felix. Each worker claims a file, sends
+ * it and claims the next until the queue is empty, then waits for the poll interval. The number of
+ * workers limits how many files are sent at once.
+ *
+ * <p>A failed send is retried after a delay that grows with each attempt, up to the maximum attempts.
+ * The file is then marked as failed and its status as error, and it can be replayed with
+ * {@link #replay(String)}. A file claimed by a worker that stops before sending it is sent again once
+ * the claim expires. A worker only records its result while it still holds the claim, so a file that was
+ * claimed again or resubmitted in the meantime is left to its newer owner.
+ */
+@Component
+@ConditionalOnProperty(name = "felix.dispatch.mode", havingValue = "outbox")
+public class FelixDispatcher implements SmartLifecycle {
+
+    private final Logger logger;
+    private final FelixDispatchRepository dispatchRepository;
+    private final AccountValidationStrategy felixValidator;
+    private final RequestStatusRepository statusRepository;
+    private final RequestStatusFactory statusFactory;
+    private final MongoTemplate mongoTemplate;
+    private final int concurrency;
+    private final Duration pollInterval;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration delayIncrement;
+    private final Duration maxDelay;
+
+    private ScheduledExecutorService workers;
+    private volatile boolean stopping;
+
+    @Autowired
+    public FelixDispatcher(Logger logger,
+            FelixDispatchRepository dispatchRepository,
+            @Qualifier("accountValidationStrategy") AccountValidationStrategy felixValidator,
+            RequestStatusRepository statusRepository,
+            RequestStatusFactory statusFactory,
+            MongoTemplate mongoTemplate,
+            @Value("${felix.dispatch.concurrency:4}") int concurrency,
+            @Value("${felix.dispatch.poll.millis:500}") long pollMillis,
+            @Value("${felix.dispatch.lease.seconds:120}") long leaseSeconds,
+            @Value("${felix.dispatch.max.attempts:8}") int maxAttempts,
+            @Value("${felix.dispatch.retry.base.delay.seconds:5}") long baseDelaySeconds,
+            @Value("${felix.dispatch.retry.delay.increment.seconds:10}") long delayIncrementSeconds,
+            @Value("${felix.dispatch.retry.max.delay.seconds:300}") long maxDelaySeconds) {
+        this.logger = logger;
+        this.dispatchRepository = dispatchRepository;
+        this.felixValidator = felixValidator;
+        this.statusRepository = statusRepository;
+        this.statusFactory = statusFactory;
+        this.mongoTemplate = mongoTemplate;
+        this.concurrency = concurrency;
+        this.pollInterval = Duration.ofMillis(pollMillis);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = Duration.ofSeconds(baseDelaySeconds);
+        this.delayIncrement = Duration.ofSeconds(delayIncrementSeconds);
+        this.maxDelay = Duration.ofSeconds(maxDelaySeconds);
+    }
+
+    @Override
+    public synchronized void start() {
+        ensureIndex();
+        stopping = false;
+        workers = Executors.newScheduledThreadPool(concurrency,
+                Thread.ofPlatform().name("felix-dispatch-", 0).daemon().factory());
+        for (int i = 0; i < concurrency; i++) {
+            workers.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        Map<String, Object> logInfo = new HashMap<>();
+        logInfo.put("concurrency", concurrency);
+        logger.info("Felix dispatcher started", logInfo);
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopping = true;
+        workers.shutdown();
+        try {
+            // A file still being sent after this is sent again once its claim expires
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        workers = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return workers != null;
+    }
+
+    /**
+     * Queues a file that failed, or whose claim has expired, to be sent again and sets its status back to
+     * pending so that clients wait for the new result.
+     *
+     * @param fileId the file to send again
+     * @return the pending status, empty if the file is not failed or stuck
+     */
+    public Optional<RequestStatus> replay(String fileId) {
+        return dispatchRepository.replay(fileId, LocalDateTime.now())
+                .map(dispatch -> {
+                    logger.infoContext(fileId, "Replaying felix dispatch", new HashMap<>(Map.of("fileId", fileId)));
+                    return statusRepository.upsert(statusFactory.pending(fileId, dispatch.fileName(),
+                            ValidationStatusApi.UPLOADED_TO_FTS));
+                });
+    }
+
+    /**
+     * Sends queued files until there are none left to claim.
+     *
+     * @return the number of files claimed
+     */
+    int drain() {
+        int claimed = 0;
+        boolean felixAvailable = true;
+        while (!stopping && felixAvailable) {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<FelixDispatch> next = dispatchRepository.claimNext(now, now.plus(lease));
+            if (next.isEmpty()) {
+                break;
+            }
+            felixAvailable = dispatch(next.get());
+            claimed++;
+        }
+        return claimed;
+    }
+
+    private void poll() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // An exception would stop this worker being scheduled again
+            logger.error("Failed to dispatch files to felix", e);
+        }
+    }
+
+    /**
+     * @return false if Felix refused the file without it being sent, so no more should be sent for now
+     */
+    private boolean dispatch(FelixDispatch dispatch) {
+        String fileId = dispatch.fileId();
+        Map<String, Object> logInfo = new HashMap<>();
+        logInfo.put("fileId", fileId);
+        logInfo.put("attempt", dispatch.attempts());
+
+        Exception error = send(dispatch);
+        if (error instanceof FelixUnavailableException unavailable) {
+            // The file was not sent, so it waits for Felix without using up an attempt
+            logInfo.put("retryInSeconds", unavailable.getRetryAfter().toSeconds());
+            logger.debugContext(fileId, "Felix unavailable, file returned to the queue", logInfo);
+            if (!dispatchRepository.release(dispatch, LocalDateTime.now().plus(unavailable.getRetryAfter()))) {
+                logClaimLost(fileId, logInfo);
+            }
+            return false;
+        }
+        if (error == null) {
+            if (dispatchRepository.markSent(dispatch)) {
+                logger.debugContext(fileId, "File sent to felix", logInfo);
+            } else {
+                logClaimLost(fileId, logInfo);
+            }
+        } else if (dispatch.attempts() >= maxAttempts) {
+            logger.errorContext(fileId, "Giving up sending file to felix", error, logInfo);
+            if (dispatchRepository.markFailed(dispatch, error.getMessage())) {
+                statusRepository.upsert(statusFactory.error(fileId));
+            } else {
+                // The file has been queued again, so its status belongs to the newer submission
+                logClaimLost(fileId, logInfo);
+            }
+        } else {
+            Duration delay = retryDelay(dispatch.attempts());
+            logInfo.put("retryInSeconds", delay.toSeconds());
+            logger.errorContext(fileId, "Failed to send file to felix", error, logInfo);
+            if (!dispatchRepository.retryLater(dispatch, LocalDateTime.now().plus(delay), error.getMessage())) {
+                logClaimLost(fileId, logInfo);
+            }
+        }
+        return true;
+    }
+
+    private void logClaimLost(String fileId, Map<String, Object> logInfo) {
+        logger.infoContext(fileId, "Felix dispatch claim expired or file queued again, result not recorded", logInfo);
+    }
+
+    private Exception send(FelixDispatch dispatch) {
+        // Only the id is used to send a file, so the details need not be read again
+        FileDetailsApi file = new FileDetailsApi(dispatch.fileId(), null, null, null, 0L, dispatch.fileName(),
+                null, null);
+        try {
+            felixValidator.startValidation(file, new AccountsDetails(dispatch.packageType(), dispatch.companyNumber()));
+            return null;
+        } catch (XBRLValidationException | RuntimeException e) {
+            return e;
+        }
+    }
+
+    /**
+     * @param attempts the attempts made so far, at least 1
+     * @return the delay before the next attempt
+     */
+    Duration retryDelay(int attempts) {
+        Duration delay = baseDelay.plus(delayIncrement.multipliedBy(attempts - 1L));
+        return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+    }
+
+    private void ensureIndex() {
+        try {
+            mongoTemplate.indexOps(FelixDispatch.class).ensureIndex(new Index()
+                    .on("state", Sort.Direction.ASC)
+                    .on("next_attempt", Sort.Direction.ASC)
+                    .named("state_1_next_attempt_1"));
+        } catch (RuntimeException e) {
+            logger.error("Failed to create the felix dispatch index", e);
+        }
+    }
+}
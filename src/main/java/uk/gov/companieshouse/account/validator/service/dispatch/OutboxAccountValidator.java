@@ -0,0 +1,59 @@
+package uk.gov.companieshouse.account.validator.service.dispatch;
+
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Queues files to be sent to Felix by the {@link FelixDispatcher} instead of sending them while the
+ * submitter waits. Submissions then take as long as a single Mongo write, however slow Felix is, and a
+ * Felix outage delays validations instead of failing them. Everything else is handled by the validator
+ * that sends the files.
+ */
+public class OutboxAccountValidator implements AccountValidationStrategy {
+
+    private final Logger logger;
+    private final AccountValidationStrategy delegate;
+    private final FelixDispatchRepository dispatchRepository;
+
+    public OutboxAccountValidator(Logger logger, AccountValidationStrategy delegate,
+            FelixDispatchRepository dispatchRepository) {
+        this.logger = logger;
+        this.delegate = delegate;
+        this.dispatchRepository = dispatchRepository;
+    }
+
+    @Override
+    public void startValidation(FileDetailsApi file, AccountsDetails fileContent) throws XBRLValidationException {
+        try {
+            dispatchRepository.enqueue(new FelixDispatch(file.getId(), file.getName(), fileContent.getPackageType(),
+                    fileContent.getCompanyNumber(), FelixDispatch.STATE_QUEUED, 0, null, null, null, null));
+        } catch (RuntimeException e) {
+            throw new XBRLValidationException("Failed to queue the file for validation", e);
+        }
+
+        Map<String, Object> logInfo = new HashMap<>();
+        logInfo.put("fileId", file.getId());
+        logger.debugContext(file.getId(), "File queued for felix", logInfo);
+    }
+
+    @Override
+    public void saveResults(String fileId, Results results) {
+        delegate.saveResults(fileId, results);
+    }
+
+    @Override
+    public Optional<RequestStatus> getStatus(String fileId) {
+        return delegate.getStatus(fileId);
+    }
+}
@@ -2,42 +2,35 @@ package uk.gov.companieshouse.account.validator.service.factory.request.status;
 
 import java.time.LocalDateTime;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
 import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
-import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
 import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
 
+/**
+ * Builds the statuses written for each state transition. The created date is set to the time of the
+ * transition. {@link uk.gov.companieshouse.account.validator.repository.RequestStatusRepository#upsert}
+ * only writes it when the status is first inserted, so no read is needed to preserve it.
+ */
 @Component
 public class RequestStatusFactory {
 
-    private final RequestStatusRepository statusRepository;
-
-    @Autowired
-    public RequestStatusFactory(
-            RequestStatusRepository statusRepository) {
-        this.statusRepository = statusRepository;
-    }
-
     public RequestStatus pending(String fileId, String fileName, ValidationStatusApi status) {
         Results results = new Results();
         results.setValidationStatus(status);
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime createdDateTime = getCreatedDateTime(fileId, now);
-        return new RequestStatus(fileId, fileName, RequestStatus.STATE_PENDING, results, createdDateTime,
-                now);
+        return new RequestStatus(fileId, fileName, RequestStatus.STATE_PENDING, results, now, now);
     }
 
     public RequestStatus complete(String fileId, String fileName, Results result) {
-        return new RequestStatus(fileId, fileName, RequestStatus.STATE_COMPLETE, result, getCreatedDateTime(fileId, LocalDateTime.now()),
-                LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        return new RequestStatus(fileId, fileName, RequestStatus.STATE_COMPLETE, result, now, now);
     }
 
     public RequestStatus error(String fileId) {
-        return new RequestStatus(fileId, "", RequestStatus.STATE_ERROR, null, getCreatedDateTime(fileId, LocalDateTime.now()),
-                LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        return new RequestStatus(fileId, "", RequestStatus.STATE_ERROR, null, now, now);
     }
 
     public RequestStatus fromResults(String fileId, Results results, String fileName) {
@@ -52,10 +45,4 @@ public class RequestStatusFactory {
         }
     }
 
-    private LocalDateTime getCreatedDateTime(String fileId, LocalDateTime defaultDateTime) {
-        return statusRepository.findById(fileId)
-                .map(RequestStatus::createdDateTime)
-                .orElse(defaultDateTime);
-    }
-
 }
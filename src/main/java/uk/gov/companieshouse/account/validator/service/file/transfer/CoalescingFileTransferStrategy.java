@@ -0,0 +1,95 @@
+package uk.gov.companieshouse.account.validator.service.file.transfer;
+
+import uk.gov.companieshouse.account.validator.model.File;
+import uk.gov.companieshouse.account.validator.service.concurrent.SingleFlight;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Makes concurrent requests for the same file share one call to the file transfer api. Callers asking
+ * for a file that is already being fetched wait for that fetch, including its wait for the AV scan,
+ * and are given the same downloaded file rather than a copy. The file is retained for each caller, so
+ * each must close it. Downloads and details are coalesced separately, as only a download waits for the
+ * scan. Nothing is cached once a call completes. A caller that cancels its download stops waiting for
+ * it, and its share of the file is closed when the download completes, but the download carries on for
+ * any other callers.
+ */
+public class CoalescingFileTransferStrategy implements FileTransferStrategy {
+
+    private final FileTransferStrategy fileTransferStrategy;
+    private final SingleFlight<String, Optional<File>> downloads = new SingleFlight<>();
+    private final SingleFlight<String, Optional<FileDetailsApi>> details = new SingleFlight<>();
+
+    public CoalescingFileTransferStrategy(FileTransferStrategy fileTransferStrategy) {
+        this.fileTransferStrategy = fileTransferStrategy;
+    }
+
+    @Override
+    public Optional<File> get(String id) {
+        return join(downloads.execute(id, () -> CompletableFuture.completedFuture(fileTransferStrategy.get(id)),
+                CoalescingFileTransferStrategy::retain));
+    }
+
+    @Override
+    public CompletableFuture<Optional<File>> getAsync(String id) {
+        CompletableFuture<Optional<File>> result = new CompletableFuture<>();
+        downloads.execute(id, () -> fileTransferStrategy.getAsync(id), CoalescingFileTransferStrategy::retain)
+                .whenComplete((file, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else if (!result.complete(file)) {
+                        file.ifPresent(File::close);
+                    }
+                });
+        return result;
+    }
+
+    @Override
+    public Optional<FileDetailsApi> getDetails(String id) {
+        return join(details.execute(id, () -> CompletableFuture.completedFuture(fileTransferStrategy.getDetails(id))));
+    }
+
+    @Override
+    public void delete(String id) {
+        fileTransferStrategy.delete(id);
+    }
+
+    /**
+     * @return the number of downloads given the result of a download started by another caller
+     */
+    public long getCoalescedDownloads() {
+        return downloads.getShared();
+    }
+
+    /**
+     * @return the number of details requests given the result of a request started by another caller
+     */
+    public long getCoalescedDetails() {
+        return details.getShared();
+    }
+
+    private static void retain(Optional<File> file) {
+        file.ifPresent(File::retain);
+    }
+
+    /**
+     * Waits for a shared call, rethrowing the exception it failed with as the caller that made the call
+     * would have seen it.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -2,11 +2,14 @@ package uk.gov.companieshouse.account.validator.service.file.transfer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FileTooLargeException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.ResponseException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.UriValidationException;
 import uk.gov.companieshouse.account.validator.model.File;
+import uk.gov.companieshouse.account.validator.service.retry.AsyncRetryStrategy;
 import uk.gov.companieshouse.account.validator.service.retry.RetryException;
 import uk.gov.companieshouse.account.validator.service.retry.RetryStrategy;
 import uk.gov.companieshouse.api.InternalApiClient;
@@ -26,6 +29,8 @@ import uk.gov.companieshouse.logging.Logger;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 /**
@@ -36,56 +41,119 @@ public class FileTransferService implements FileTransferStrategy {
 
     private final Logger logger;
     private final RetryStrategy retryStrategy;
+    private final AsyncRetryStrategy asyncRetryStrategy;
+    private final Executor executor;
 
     private final Supplier<InternalFileTransferClient> apiClientSupplier;
 
+    @Value("${file.spill.threshold.mb:0}")
+    private long spillThresholdMb;
+
+    @Value("${uk.gov.ch.account.validator.platformMaxDecodedSizeMB:0}")
+    private long maxSizeMb;
+
     @Autowired
     public FileTransferService(
             Logger logger,
             @Qualifier("fileTransferRetryStrategy") RetryStrategy retryStrategy,
+            @Qualifier("fileTransferAsyncRetryStrategy") AsyncRetryStrategy asyncRetryStrategy,
+            @Qualifier("fileTransferExecutor") Executor executor,
             Supplier<InternalFileTransferClient> apiClientSupplier) {
 
         this.logger = logger;
         this.retryStrategy = retryStrategy;
+        this.asyncRetryStrategy = asyncRetryStrategy;
+        this.executor = executor;
         this.apiClientSupplier = apiClientSupplier;
     }
 
     /**
-     * Downloads a file from S3 using the file transfer api
+     * Downloads a file from S3 using the file transfer api. Files above the spill threshold are written
+     * to a temporary file, so the returned file must be closed once finished with.
      *
      * @param id the id of the file to get
      * @return The File if it exists, Empty otherwise
+     * @throws FileTooLargeException if the file is larger than the platform maximum
      */
     @Override
     public Optional<File> get(String id) {
+        Optional<FileDetailsApi> details = retryStrategy.attempt(() -> getScannedFileDetails(id));
 
+        // No file with id
+        if (details.isEmpty()) {
+            return Optional.empty();
+        }
 
-        Optional<FileDetailsApi> details = retryStrategy.attempt(() -> {
-            Optional<FileDetailsApi> maybeFileDetails;
-            maybeFileDetails = getFileDetails(id);
-            var stillAwaitingScan = maybeFileDetails
-                    .map(fileDetailsApi -> fileDetailsApi.getAvStatus().equals(AvStatus.NOT_SCANNED))
-                    .orElse(false);
-
-            logger.debugContext(id, "File still awaiting scan. Retrying.", null);
+        return Optional.of(download(id, details.get()));
+    }
 
-            if (stillAwaitingScan) {
-                // AvScan has still not been completed. Attempt to retry
-                throw new RetryException();
+    /**
+     * Downloads a file from S3 using the file transfer api. Waiting for the AV scan is scheduled by the
+     * async retry strategy so no thread is held between polls, and the download itself runs on the
+     * file transfer executor. Cancelling the returned future stops polling, and a file downloaded after
+     * it was cancelled is closed.
+     *
+     * @param id the id of the file to get
+     * @return a future completed with the File if it exists, Empty otherwise
+     */
+    @Override
+    public CompletableFuture<Optional<File>> getAsync(String id) {
+        CompletableFuture<Optional<FileDetailsApi>> details = asyncRetryStrategy.attemptAsync(
+                () -> getScannedFileDetails(id));
+        CompletableFuture<Optional<File>> result = new CompletableFuture<>();
+        details.thenApplyAsync(fileDetails -> fileDetails.map(found -> download(id, found)), executor)
+                .whenComplete((file, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else if (!result.complete(file)) {
+                        file.ifPresent(File::close);
+                    }
+                });
+        result.whenComplete((file, ex) -> {
+            if (result.isCancelled()) {
+                details.cancel(true);
             }
-
-            return maybeFileDetails;
         });
+        return result;
+    }
 
-        // No file with id
-        if (details.isEmpty()) {
-            return Optional.empty();
+    private Optional<FileDetailsApi> getScannedFileDetails(String id) {
+        Optional<FileDetailsApi> maybeFileDetails = getFileDetails(id);
+        var stillAwaitingScan = maybeFileDetails
+                .map(fileDetailsApi -> fileDetailsApi.getAvStatus().equals(AvStatus.NOT_SCANNED))
+                .orElse(false);
+
+        if (stillAwaitingScan) {
+            // AvScan has still not been completed. Attempt to retry
+            logger.debugContext(id, "File still awaiting scan. Retrying.", null);
+            throw new RetryException();
         }
 
+        return maybeFileDetails;
+    }
+
+    /**
+     * The size in the details is checked before downloading, so a file that is declared too large is never
+     * buffered. The api client buffers the whole download, so the downloaded size is checked again before
+     * it is kept in case it differs from the details.
+     */
+    private File download(String id, FileDetailsApi details) {
+        checkSize(id, details.getSize());
         ApiResponse<FileApi> response = getFileApiResponse(id);
+        byte[] body = response.getData().getBody();
+        checkSize(id, body.length);
+        return File.of(id, details.getName(), body, spillThresholdMb * 1024 * 1024);
+    }
 
-        var file = new File(id, details.get().getName(), response.getData().getBody());
-        return Optional.of(file);
+    private void checkSize(String id, long size) {
+        long limit = maxSizeMb * 1024 * 1024;
+        if (limit > 0 && size > limit) {
+            logger.errorContext(id, "File is larger than the platform maximum", null, Map.of(
+                    "size", size,
+                    "limit", limit
+            ));
+            throw new FileTooLargeException(id, size, limit);
+        }
     }
 
     @Override
@@ -4,6 +4,7 @@ import uk.gov.companieshouse.account.validator.model.File;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An interface exposing the file transfer needs of the application.
@@ -11,13 +12,23 @@ import java.util.Optional;
  */
 public interface FileTransferStrategy {
     /**
-     * Downloads a file from the remote repository
+     * Downloads a file from the remote repository. The file must be closed once finished with.
      *
      * @param id the id of the file to get
      * @return Empty, if there is no such file, otherwise the File wrapped in an optional
      */
     Optional<File> get(String id);
 
+    /**
+     * Downloads a file from the remote repository without blocking the caller while waiting for
+     * the file to become available
+     *
+     * @param id the id of the file to get
+     * @return a future completed with Empty, if there is no such file, otherwise the File wrapped in
+     * an optional
+     */
+    CompletableFuture<Optional<File>> getAsync(String id);
+
 
     /**
      * Gets the metadata of a file without downloading
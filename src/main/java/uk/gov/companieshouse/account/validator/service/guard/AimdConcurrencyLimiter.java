@@ -0,0 +1,113 @@
+package uk.gov.companieshouse.account.validator.service.guard;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of calls in flight to a downstream service, adjusting the limit to how the service
+ * is coping. The limit grows by one after each call that finishes within the latency threshold while the
+ * limit is in use, and is cut by the backoff ratio after each call that fails or is slow (additive
+ * increase, multiplicative decrease). A slowing service therefore gets fewer concurrent calls long before
+ * it falls over, and the limit recovers as it does.
+ */
+public final class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private int limit;
+    private int inFlight;
+    private long rejected;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+            double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Takes a place for a call, waiting up to the given time for one to become free. A place that is
+     * taken must be given back with {@link #onSuccess}, {@link #onFailure} or {@link #release}.
+     *
+     * @param maxWait the longest time to wait for a place
+     * @return true if a place was taken, false if the limit was still reached after waiting
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean tryAcquire(Duration maxWait) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (inFlight >= limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                rejected++;
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Gives back a place after a call that completed.
+     *
+     * @param latencyNanos how long the call took
+     */
+    public synchronized void onSuccess(long latencyNanos) {
+        boolean limitInUse = inFlight * 2 >= limit;
+        inFlight--;
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (limitInUse) {
+            // Only grow when the limit is what is holding calls back, so an idle period does not inflate it
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Gives back a place after a call that failed.
+     */
+    public synchronized void onFailure() {
+        inFlight--;
+        decrease();
+        notifyAll();
+    }
+
+    /**
+     * Gives back a place without a call having been made.
+     */
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return the number of calls that could not get a place
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, (int) (limit * backoffRatio));
+    }
+}
@@ -0,0 +1,105 @@
+package uk.gov.companieshouse.account.validator.service.guard;
+
+import uk.gov.companieshouse.account.validator.exceptionhandler.FelixUnavailableException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.api.error.ApiErrorResponseException;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Guards the calls that send files to Felix with an adaptive concurrency limit and a circuit breaker.
+ * A file is refused with a {@link FelixUnavailableException}, without calling Felix, when the breaker is
+ * open or no place becomes free within the maximum wait. In outbox mode the dispatcher puts a refused file
+ * back on the queue, so files wait while Felix recovers rather than failing.
+ * <p>
+ * Only server errors, I/O errors and timeouts count as failures. Felix refusing a file with a client
+ * error says the file is bad, not that Felix is, so it must not open the breaker for everyone else.
+ */
+public class GuardedAccountValidator implements AccountValidationStrategy {
+
+    private final AccountValidationStrategy delegate;
+    private final AimdConcurrencyLimiter limiter;
+    private final CircuitBreaker breaker;
+    private final Duration maxWait;
+
+    public GuardedAccountValidator(AccountValidationStrategy delegate, AimdConcurrencyLimiter limiter,
+            CircuitBreaker breaker, Duration maxWait) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.breaker = breaker;
+        this.maxWait = maxWait;
+    }
+
+    @Override
+    public void startValidation(FileDetailsApi file, AccountsDetails fileContent) throws XBRLValidationException {
+        if (!breaker.tryAcquirePermission()) {
+            throw new FelixUnavailableException("Felix is failing, the circuit breaker is open",
+                    breaker.getRetryAfter());
+        }
+        acquire();
+
+        long start = System.nanoTime();
+        try {
+            delegate.startValidation(file, fileContent);
+        } catch (XBRLValidationException | RuntimeException e) {
+            if (isFelixFailure(e)) {
+                limiter.onFailure();
+                breaker.onFailure();
+            } else {
+                limiter.onSuccess(System.nanoTime() - start);
+                breaker.onSuccess();
+            }
+            throw e;
+        }
+        limiter.onSuccess(System.nanoTime() - start);
+        breaker.onSuccess();
+    }
+
+    /**
+     * @param e the exception thrown sending a file
+     * @return true if Felix answered with a server error, or did not answer at all
+     */
+    static boolean isFelixFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            // Checked before IOException, which it extends
+            if (cause instanceof ApiErrorResponseException response) {
+                return response.getStatusCode() >= 500 || response.getStatusCode() < 100;
+            }
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void acquire() throws FelixUnavailableException {
+        try {
+            if (limiter.tryAcquire(maxWait)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        breaker.release();
+        throw new FelixUnavailableException("Felix is busy, the concurrency limit of " + limiter.getLimit()
+                + " has been reached", Duration.ofSeconds(1));
+    }
+
+    @Override
+    public void saveResults(String fileId, Results results) {
+        delegate.saveResults(fileId, results);
+    }
+
+    @Override
+    public Optional<RequestStatus> getStatus(String fileId) {
+        return delegate.getStatus(fileId);
+    }
+}
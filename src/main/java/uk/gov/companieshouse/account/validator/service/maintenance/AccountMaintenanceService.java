@@ -2,16 +2,22 @@ package uk.gov.companieshouse.account.validator.service.maintenance;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import uk.gov.companieshouse.account.validator.exceptionhandler.DeleteCompleteSubException;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionBatch;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionSummary;
+import uk.gov.companieshouse.account.validator.model.maintenance.MaintenanceCheckpoint;
 import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.repository.MaintenanceCheckpointRepository;
 import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
-import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
 import uk.gov.companieshouse.logging.Logger;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -24,26 +30,49 @@ import java.util.Map;
 @Service
 public class AccountMaintenanceService {
 
-    private final FileTransferStrategy fileTransferStrategy;
+    static final String CHECKPOINT_TASK = "delete-complete-submissions";
+
+    private final ParallelFileDeleter fileDeleter;
     private final Logger logger;
     private final RequestStatusRepository statusRepository;
+    private final MaintenanceCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FelixDispatchRepository dispatchRepository;
 
     @Value("${delete.files.older.than.days}")
     private int DAYS_TO_DELETE;
 
+    @Value("${delete.files.batch.size}")
+    private int BATCH_SIZE;
+
     @Autowired
-    public AccountMaintenanceService(Logger logger, FileTransferStrategy fileTransferStrategy,
-            RequestStatusRepository statusRepository) {
+    public AccountMaintenanceService(Logger logger, ParallelFileDeleter fileDeleter,
+            RequestStatusRepository statusRepository,
+            MaintenanceCheckpointRepository checkpointRepository,
+            ApplicationEventPublisher eventPublisher,
+            FelixDispatchRepository dispatchRepository) {
         this.logger = logger;
-        this.fileTransferStrategy = fileTransferStrategy;
+        this.fileDeleter = fileDeleter;
         this.statusRepository = statusRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.eventPublisher = eventPublisher;
+        this.dispatchRepository = dispatchRepository;
     }
 
     public static boolean isEmptyOrNull(Collection<?> collection) {
         return (collection == null || collection.isEmpty());
     }
 
-    public void deleteCompleteSubmissions() {
+    /**
+     * Removes the files and statuses of old submissions. Statuses are read a page of ids at a time and
+     * each page is deleted before the next is read, so memory use does not grow with the number of
+     * statuses. Progress is checkpointed after every page so a failed run resumes where it stopped.
+     * A file that cannot be deleted keeps its status, so it is retried by the next run. Felix dispatch
+     * records that were sent or failed before the same date are removed once the statuses are done.
+     *
+     * @return the numbers of files deleted, failed and skipped by this run
+     */
+    public DeletionSummary deleteCompleteSubmissions() {
         LocalDateTime now = LocalDateTime.now();
         LocalDate date = getBoundaryDate(now, DAYS_TO_DELETE);
         Map<String, Object> infoContext = new HashMap<>();
@@ -51,18 +80,36 @@ public class AccountMaintenanceService {
         infoContext.put("Deletion requested at", now);
         logger.info("Deletion date range for old accounts", infoContext);
         try {
-            List<RequestStatus> distinctRequestStatusesToRemove = allRequestStatusesToBeRemoved(date).stream()
-                    .distinct().toList();
-            if (!isEmptyOrNull(distinctRequestStatusesToRemove)) {
-                distinctRequestStatusesToRemove.forEach(requestStatus -> deleteRequest(requestStatus.fileId()));
+            String lastFileId = checkpointRepository.findById(CHECKPOINT_TASK)
+                    .map(MaintenanceCheckpoint::lastFileId)
+                    .orElse("");
+            if (!lastFileId.isEmpty()) {
+                infoContext.put("Resumed after file id", lastFileId);
+            }
+
+            DeletionSummary summary = DeletionSummary.empty();
+            List<String> fileIds = nextBatch(lastFileId, date);
+            while (!isEmptyOrNull(fileIds)) {
+                summary = summary.plus(deleteBatch(fileIds));
+                lastFileId = fileIds.get(fileIds.size() - 1);
+                checkpointRepository.save(new MaintenanceCheckpoint(CHECKPOINT_TASK, lastFileId, LocalDateTime.now()));
+                fileIds = nextBatch(lastFileId, date);
             }
+            checkpointRepository.deleteById(CHECKPOINT_TASK);
+            long dispatchesDeleted = dispatchRepository.deleteFinished(date.atStartOfDay());
+
             infoContext.put("Completed at", LocalDateTime.now());
-            infoContext.put("Number of request statuses removed", distinctRequestStatusesToRemove.size());
+            infoContext.put("Number of files deleted", summary.deleted());
+            infoContext.put("Number of files skipped", summary.skipped());
+            infoContext.put("Number of files failed", summary.failed());
+            infoContext.put("Number of felix dispatches deleted", dispatchesDeleted);
+            logger.info("Completed deletion of old submissions", infoContext);
+            return summary;
+        } catch (DeleteCompleteSubException ex) {
+            throw ex;
         } catch (RuntimeException ex) {
             throw new DeleteCompleteSubException(ex);
-
         }
-        logger.info("Completed deletion of old submissions", infoContext);
     }
 
     private LocalDate getBoundaryDate(LocalDateTime to, int minusDays) {
@@ -70,19 +117,20 @@ public class AccountMaintenanceService {
         return minusDate.toLocalDate();
     }
 
-    private void deleteRequest(String fileId) {
-        fileTransferStrategy.delete(fileId);
-        statusRepository.deleteById(fileId);
+    private List<String> nextBatch(String afterFileId, LocalDate deleteLessThan) {
+        return statusRepository.findIdsToRemove(afterFileId, deleteLessThan, PageRequest.of(0, BATCH_SIZE))
+                .stream()
+                .map(RequestStatus::fileId)
+                .toList();
     }
 
-    private List<RequestStatus> allRequestStatusesToBeRemoved(LocalDate deleteLessThan) {
-
-        List<RequestStatus> completeRequestStatusList = statusRepository
-                .findByUpdatedDateTimeLessThan(deleteLessThan);
-        List<RequestStatus> nullCreatedDateRequestStatuses = statusRepository
-                .findByCreatedDateTimeIsNull();
-        List<RequestStatus> toRemoveRequestStatuses = new ArrayList<>(completeRequestStatusList);
-        toRemoveRequestStatuses.addAll(nullCreatedDateRequestStatuses);
-        return toRemoveRequestStatuses;
+    private DeletionBatch deleteBatch(List<String> fileIds) {
+        DeletionBatch batch = fileDeleter.delete(fileIds);
+        List<String> removable = batch.removable();
+        if (!removable.isEmpty()) {
+            statusRepository.deleteAllById(removable);
+            removable.forEach(fileId -> eventPublisher.publishEvent(RequestStatusChangedEvent.removed(fileId)));
+        }
+        return batch;
     }
 }
@@ -0,0 +1,138 @@
+package uk.gov.companieshouse.account.validator.service.maintenance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.exceptionhandler.DeleteCompleteSubException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.ResponseException;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionBatch;
+import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
+import uk.gov.companieshouse.api.error.ApiErrorResponseException;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deletes files from the file transfer api in parallel. At most {@code concurrency} deletes are in flight at
+ * once and new deletes are started no faster than {@code ratePerSecond}. A failed delete is recorded in the
+ * summary and does not stop the others.
+ */
+@Component
+public class ParallelFileDeleter {
+
+    private final Logger logger;
+    private final FileTransferStrategy fileTransferStrategy;
+    private final Executor executor;
+    private final int concurrency;
+    private final long intervalNanos;
+
+    @Autowired
+    public ParallelFileDeleter(Logger logger,
+            FileTransferStrategy fileTransferStrategy,
+            @Qualifier("executor") Executor executor,
+            @Value("${delete.files.concurrency:8}") int concurrency,
+            @Value("${delete.files.rate.per.second:20}") int ratePerSecond) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("delete.files.concurrency must be at least 1");
+        }
+        this.logger = logger;
+        this.fileTransferStrategy = fileTransferStrategy;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.intervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+    }
+
+    /**
+     * Deletes the files with the given ids. The calling thread waits for the concurrency and rate limits
+     * before handing each delete to the executor, so the executor never holds more than
+     * {@code concurrency} deletes.
+     *
+     * @param fileIds the ids of the files to delete
+     * @return which ids were deleted, failed or skipped
+     */
+    public DeletionBatch delete(List<String> fileIds) {
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(concurrency);
+        List<String> deleted = Collections.synchronizedList(new ArrayList<>());
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+        LongAdder totalNanos = new LongAdder();
+        AtomicLong maxNanos = new AtomicLong();
+
+        List<CompletableFuture<Void>> deletes = new ArrayList<>(fileIds.size());
+        long nextStart = start;
+        try {
+            for (String fileId : fileIds) {
+                permits.acquire();
+                nextStart = awaitSlot(nextStart);
+                deletes.add(CompletableFuture
+                        .runAsync(() -> deleteOne(fileId, deleted, failed, skipped, totalNanos, maxNanos), executor)
+                        .whenComplete((ignored, ex) -> permits.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeleteCompleteSubException("Interrupted while deleting files", e);
+        } finally {
+            CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new)).join();
+        }
+
+        return new DeletionBatch(List.copyOf(deleted), List.copyOf(failed), List.copyOf(skipped),
+                TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()), TimeUnit.NANOSECONDS.toMillis(maxNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void deleteOne(String fileId, List<String> deleted, List<String> failed, List<String> skipped,
+            LongAdder totalNanos, AtomicLong maxNanos) {
+        long start = System.nanoTime();
+        try {
+            fileTransferStrategy.delete(fileId);
+            deleted.add(fileId);
+        } catch (RuntimeException e) {
+            if (isNotFound(e)) {
+                skipped.add(fileId);
+            } else {
+                failed.add(fileId);
+                logger.errorContext(fileId, "Failed to delete file", e, null);
+            }
+        } finally {
+            long nanos = System.nanoTime() - start;
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    private static boolean isNotFound(RuntimeException e) {
+        return e instanceof ResponseException
+                && e.getCause() instanceof ApiErrorResponseException apiError
+                && apiError.getStatusCode() == HttpStatus.NOT_FOUND.value();
+    }
+
+    /**
+     * Waits until {@code slot} and returns the time the following delete may start.
+     */
+    private long awaitSlot(long slot) throws InterruptedException {
+        if (intervalNanos == 0) {
+            return slot;
+        }
+        long now = System.nanoTime();
+        while (now < slot) {
+            LockSupport.parkNanos(slot - now);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            now = System.nanoTime();
+        }
+        return Math.max(slot, now) + intervalNanos;
+    }
+}
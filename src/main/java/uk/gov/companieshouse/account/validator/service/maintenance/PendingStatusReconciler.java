@@ -0,0 +1,198 @@
+package uk.gov.companieshouse.account.validator.service.maintenance;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+import uk.gov.companieshouse.account.validator.model.maintenance.ReconciliationSummary;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Finds statuses left pending because the Felix callback never arrived, so that clients stop polling
+ * them. Stale pending statuses are read oldest first, a page at a time, from the status and updated index.
+ *
+ * <p>A file that was sent through the outbox is queued to be sent again, unless it was first submitted
+ * longer ago than the give up period. Any other orphan is marked as error, as the request details needed
+ * to send it again were not kept. A file still queued in the outbox is not an orphan and is left alone.
+ * Each status is only changed if it has not changed since it was read, so a late callback is never
+ * overwritten and instances running at the same time do not resubmit the same file.
+ *
+ * <p>The run pauses between pages and stops after the maximum number of statuses, so a large backlog is
+ * worked through over several runs rather than loading Mongo and Felix all at once.
+ */
+@Component
+@ConditionalOnProperty(name = "reconcile.pending.enabled", havingValue = "true")
+public class PendingStatusReconciler {
+
+    private enum Outcome {
+        RESUBMITTED, ERRORED, WAITING, CHANGED
+    }
+
+    private final Logger logger;
+    private final RequestStatusRepository statusRepository;
+    private final FelixDispatchRepository dispatchRepository;
+    private final RequestStatusFactory statusFactory;
+    private final DistributionSummary orphansPerRun;
+    private final Counter resubmittedCounter;
+    private final Counter erroredCounter;
+    private final Duration staleAfter;
+    private final Duration giveUpAfter;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final int maxPerRun;
+
+    @Autowired
+    public PendingStatusReconciler(Logger logger,
+            RequestStatusRepository statusRepository,
+            FelixDispatchRepository dispatchRepository,
+            RequestStatusFactory statusFactory,
+            MeterRegistry meterRegistry,
+            @Value("${reconcile.pending.stale.minutes:30}") long staleMinutes,
+            @Value("${reconcile.pending.give.up.hours:24}") long giveUpHours,
+            @Value("${reconcile.pending.batch.size:100}") int batchSize,
+            @Value("${reconcile.pending.batch.pause.millis:200}") long batchPauseMillis,
+            @Value("${reconcile.pending.max.per.run:1000}") int maxPerRun) {
+        this.logger = logger;
+        this.statusRepository = statusRepository;
+        this.dispatchRepository = dispatchRepository;
+        this.statusFactory = statusFactory;
+        this.orphansPerRun = DistributionSummary.builder("request.status.reconcile.orphans")
+                .description("Pending statuses found with no Felix callback, per run")
+                .register(meterRegistry);
+        this.resubmittedCounter = Counter.builder("request.status.reconcile")
+                .tag("outcome", "resubmitted")
+                .register(meterRegistry);
+        this.erroredCounter = Counter.builder("request.status.reconcile")
+                .tag("outcome", "errored")
+                .register(meterRegistry);
+        this.staleAfter = Duration.ofMinutes(staleMinutes);
+        this.giveUpAfter = Duration.ofHours(giveUpHours);
+        this.batchSize = batchSize;
+        this.batchPause = Duration.ofMillis(batchPauseMillis);
+        this.maxPerRun = maxPerRun;
+    }
+
+    @Scheduled(initialDelayString = "${reconcile.pending.interval.millis:300000}",
+            fixedDelayString = "${reconcile.pending.interval.millis:300000}")
+    void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.error("Failed to reconcile pending statuses", e);
+        }
+    }
+
+    /**
+     * Resubmits or errors the statuses that have been pending for longer than the stale period.
+     *
+     * @return what the run found and did
+     */
+    public ReconciliationSummary reconcile() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(staleAfter);
+        LocalDateTime giveUpBefore = now.minus(giveUpAfter);
+
+        Map<Outcome, Integer> counts = new HashMap<>();
+        int scanned = 0;
+        List<RequestStatus> page = statusRepository.findStalePending(staleBefore, null, Math.min(batchSize, maxPerRun));
+        while (!page.isEmpty()) {
+            for (RequestStatus status : page) {
+                scanned++;
+                reconcile(status, giveUpBefore).ifPresent(outcome -> counts.merge(outcome, 1, Integer::sum));
+            }
+
+            int limit = Math.min(batchSize, maxPerRun - scanned);
+            if (limit <= 0 || !pause()) {
+                break;
+            }
+            page = statusRepository.findStalePending(staleBefore, page.get(page.size() - 1), limit);
+        }
+
+        ReconciliationSummary summary = new ReconciliationSummary(scanned,
+                counts.getOrDefault(Outcome.RESUBMITTED, 0),
+                counts.getOrDefault(Outcome.ERRORED, 0),
+                counts.getOrDefault(Outcome.WAITING, 0),
+                System.currentTimeMillis() - start);
+        orphansPerRun.record(summary.orphans());
+
+        Map<String, Object> logInfo = new HashMap<>();
+        logInfo.put("Stale pending statuses", summary.scanned());
+        logInfo.put("Orphans resubmitted", summary.resubmitted());
+        logInfo.put("Orphans marked as error", summary.errored());
+        logInfo.put("Still queued for felix", summary.waiting());
+        logInfo.put("Elapsed millis", summary.elapsedMillis());
+        logger.info("Reconciled pending statuses", logInfo);
+        return summary;
+    }
+
+    private Optional<Outcome> reconcile(RequestStatus status, LocalDateTime giveUpBefore) {
+        String fileId = status.fileId();
+        try {
+            Optional<FelixDispatch> dispatch = dispatchRepository.findById(fileId);
+            if (dispatch.isPresent() && isQueued(dispatch.get())) {
+                return Optional.of(Outcome.WAITING);
+            }
+
+            boolean resubmit = dispatch.isPresent()
+                    && FelixDispatch.STATE_SENT.equals(dispatch.get().state())
+                    && status.createdDateTime() != null
+                    && status.createdDateTime().isAfter(giveUpBefore);
+            if (resubmit) {
+                // Refreshing the status first means only one instance resubmits the file
+                Optional<RequestStatus> claimed = statusRepository.replaceIfUnchanged(status,
+                        statusFactory.pending(fileId, status.fileName(), ValidationStatusApi.UPLOADED_TO_FTS));
+                if (claimed.isEmpty()) {
+                    return Optional.of(Outcome.CHANGED);
+                }
+                dispatchRepository.enqueue(dispatch.get());
+                resubmittedCounter.increment();
+                return Optional.of(Outcome.RESUBMITTED);
+            }
+
+            if (statusRepository.replaceIfUnchanged(status, statusFactory.error(fileId)).isEmpty()) {
+                return Optional.of(Outcome.CHANGED);
+            }
+            erroredCounter.increment();
+            return Optional.of(Outcome.ERRORED);
+        } catch (RuntimeException e) {
+            logger.errorContext(fileId, "Failed to reconcile pending status", e, null);
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isQueued(FelixDispatch dispatch) {
+        return FelixDispatch.STATE_QUEUED.equals(dispatch.state())
+                || FelixDispatch.STATE_SENDING.equals(dispatch.state());
+    }
+
+    /**
+     * @return false if the thread was interrupted and the run should stop
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
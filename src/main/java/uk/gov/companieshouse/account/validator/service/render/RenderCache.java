@@ -0,0 +1,282 @@
+package uk.gov.companieshouse.account.validator.service.render;
+
+import uk.gov.companieshouse.account.validator.service.concurrent.SingleFlight;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Keeps rendered PDFs on disk so the same accounts file is only sent to the iXBRL to PDF service once.
+ * Entries are keyed by the file id and a hash of the file's contents, so a changed file is never served
+ * an old render. The total size of the entries is kept within a byte budget by evicting the least
+ * recently used. Entries are written to a temporary file and moved into place, so a half written
+ * render is never served, and entries left by a previous run are picked up on start up. Concurrent
+ * renders of the same file share one call to the renderer.
+ * <p>
+ * Every render written is handed back open, whether or not it fits in the cache, so the renderer is
+ * never called again to serve a render that was just written.
+ */
+public class RenderCache {
+
+    private static final String SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final SingleFlight<String, RenderedPdf> renders = new SingleFlight<>();
+
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long oversize;
+
+    /**
+     * Writes a render to the cache.
+     */
+    @FunctionalInterface
+    public interface PdfWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    public RenderCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to use render cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * Builds the key of a render from the id and contents of the file rendered.
+     *
+     * @param fileId  the id of the file
+     * @param content the contents of the file, read to the end but not closed
+     * @return the key, which is safe to use as a file name
+     * @throws IOException if the contents cannot be read
+     */
+    public static String key(String fileId, InputStream content) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(fileId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] buffer = new byte[8192];
+            for (int read = content.read(buffer); read != -1; read = content.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Opens a cached render, marking it as recently used. The channel stays readable if the entry is
+     * evicted while it is open.
+     *
+     * @param key the key of the render
+     * @return the open render, or empty if it is not cached
+     */
+    public synchronized Optional<RenderedPdf> open(String key) {
+        Long size = entries.get(key);
+        if (size == null) {
+            misses++;
+            return Optional.empty();
+        }
+
+        try {
+            FileChannel channel = FileChannel.open(path(key), StandardOpenOption.READ);
+            hits++;
+            return Optional.of(new RenderedPdf(channel, true));
+        } catch (NoSuchFileException e) {
+            entries.remove(key);
+            sizeBytes -= size;
+            misses++;
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a render to the cache, evicting the least recently used renders to make room, and returns
+     * it open. A render larger than the whole budget is not cached, and is returned open on its
+     * temporary file, which is deleted once the render is closed.
+     *
+     * @param key    the key of the render
+     * @param writer writes the render
+     * @return the render, which must be closed once finished with
+     */
+    public RenderedPdf store(String key, PdfWriter writer) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                writer.writeTo(outputStream);
+            }
+
+            long size = Files.size(temp);
+            if (size > maxBytes) {
+                FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+                synchronized (this) {
+                    oversize++;
+                }
+                return new RenderedPdf(channel, false);
+            }
+
+            // Opened before the move, so the render stays readable if it is evicted straight away
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ);
+            try {
+                synchronized (this) {
+                    Files.move(temp, path(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    Long replaced = entries.put(key, size);
+                    sizeBytes += size - (replaced == null ? 0 : replaced);
+                    evict();
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            return new RenderedPdf(channel, true);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a render to the cache on the executor, unless the same render is already being written, in
+     * which case the caller is given that one instead. Each caller is given its own hold on the render,
+     * so each must close it.
+     *
+     * @param key      the key of the render
+     * @param writer   writes the render
+     * @param executor runs the writer
+     * @return a future completed with the open render
+     */
+    public CompletableFuture<RenderedPdf> storeOnce(String key, PdfWriter writer, Executor executor) {
+        return renders.execute(key, () -> CompletableFuture.supplyAsync(() -> store(key, writer), executor),
+                RenderedPdf::retain);
+    }
+
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            Files.deleteIfExists(path(entry.getKey()));
+            sizeBytes -= entry.getValue();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> cached = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    cached.add(file);
+                }
+            }
+        }
+
+        cached.sort(Comparator.comparing(RenderCache::lastModified));
+        synchronized (this) {
+            for (Path file : cached) {
+                String name = file.getFileName().toString();
+                long size = Files.size(file);
+                entries.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                sizeBytes += size;
+            }
+            evict();
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Left for the next start up to remove
+        }
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of renders too large to be cached
+     */
+    public synchronized long getOversize() {
+        return oversize;
+    }
+
+    public long getSharedRenders() {
+        return renders.getShared();
+    }
+}
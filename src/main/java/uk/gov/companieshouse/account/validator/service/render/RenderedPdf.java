@@ -0,0 +1,78 @@
+package uk.gov.companieshouse.account.validator.service.render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A rendered PDF on disk, open for reading. A cached render stays readable while it is open even if it
+ * is evicted, and a render too large for the cache is read from a temporary file that is deleted once
+ * it is closed. A render shared by concurrent requests is closed by each of them, and the file is only
+ * closed once the last has finished with it.
+ */
+public final class RenderedPdf implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final boolean cached;
+    private final AtomicInteger holders = new AtomicInteger(1);
+
+    RenderedPdf(FileChannel channel, boolean cached) {
+        this.channel = channel;
+        this.cached = cached;
+    }
+
+    /**
+     * @return true if the render is kept in the cache, false if it is deleted once closed
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Copies the render using {@link FileChannel#transferTo}, which avoids copying the file through the
+     * heap where the target allows it. Reads do not move the channel's position, so holders sharing the
+     * render can copy it at the same time.
+     *
+     * @param outputStream where the render is copied to
+     * @throws IOException if the render cannot be read or written
+     */
+    public void transferTo(OutputStream outputStream) throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long size = channel.size();
+        for (long position = 0; position < size; ) {
+            position += channel.transferTo(position, size - position, target);
+        }
+    }
+
+    /**
+     * Adds a holder of the render, who must close it once finished with it.
+     *
+     * @return this render
+     * @throws IllegalStateException if the render has already been closed by every holder
+     */
+    public RenderedPdf retain() {
+        if (holders.getAndUpdate(count -> count > 0 ? count + 1 : count) <= 0) {
+            throw new IllegalStateException("Render has already been closed");
+        }
+        return this;
+    }
+
+    /**
+     * Releases this holder's use of the render, closing the file once no holders remain.
+     */
+    @Override
+    public void close() {
+        if (holders.getAndUpdate(count -> count > 0 ? count - 1 : count) != 1) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
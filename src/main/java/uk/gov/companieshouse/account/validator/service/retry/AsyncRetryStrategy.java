@@ -0,0 +1,22 @@
+package uk.gov.companieshouse.account.validator.service.retry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Allows for an operation to be retried without holding the calling thread while waiting between
+ * attempts
+ */
+public interface AsyncRetryStrategy {
+    /**
+     * Attempts to run the given function. If it returns a value without throwing an exception, the
+     * returned future completes with that value. Otherwise, if the function throws a RetryException,
+     * the strategy will schedule a retry.
+     *
+     * @param func a function wrapping the operation to be retried
+     * @param <T>  The return type of the function
+     * @return A future completed with the value returned by the function on success, or exceptionally
+     * when the function fails or the strategy gives up retrying
+     */
+    <T> CompletableFuture<T> attemptAsync(Supplier<T> func);
+}
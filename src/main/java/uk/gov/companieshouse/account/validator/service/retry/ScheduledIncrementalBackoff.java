@@ -0,0 +1,94 @@
+package uk.gov.companieshouse.account.validator.service.retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * The asynchronous counterpart of {@link IncrementalBackoff}. Instead of sleeping between attempts,
+ * each retry is scheduled on a shared scheduler so no thread is held while waiting. The scheduler only
+ * keeps time; attempts, which usually block on I/O, run on the given executor so a few slow attempts
+ * cannot hold up every other retry. Cancelling the returned future stops any further attempts.
+ */
+public final class ScheduledIncrementalBackoff implements AsyncRetryStrategy, AutoCloseable {
+    private final IncrementalBackoff backoff;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    /**
+     * @param scheduler used only to wait between attempts, and shut down when this is closed
+     * @param executor  the attempts are run on
+     */
+    public ScheduledIncrementalBackoff(IncrementalBackoff backoff, ScheduledExecutorService scheduler,
+            Executor executor) {
+        this.backoff = backoff;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> attemptAsync(Supplier<T> func) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Instant timeoutInstant = Instant.now().plusMillis(backoff.getTimeout().toMillis());
+
+        submit(() -> run(func, result, backoff.getBaseDelay(), timeoutInstant), Duration.ZERO, result);
+        return result;
+    }
+
+    private <T> void run(Supplier<T> func, CompletableFuture<T> result, Duration delay, Instant timeoutInstant) {
+        if (result.isDone()) {
+            // The caller has cancelled or timed out the request
+            return;
+        }
+
+        try {
+            result.complete(func.get());
+        } catch (RetryException e) {
+            // See if waiting again will exceed the timeout. If so, fail the attempt
+            if (Instant.now().plusMillis(delay.toMillis()).isAfter(timeoutInstant)) {
+                result.completeExceptionally(new RuntimeException(new TimeoutException()));
+                return;
+            }
+
+            Duration nextDelay = delay.plus(backoff.getDelayIncrement());
+            nextDelay = Duration.ofMillis(Math.min(nextDelay.toMillis(), backoff.getMaxDelay().toMillis()));
+            Duration finalNextDelay = nextDelay;
+            submit(() -> run(func, result, finalNextDelay, timeoutInstant), delay, result);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void submit(Runnable task, Duration delay, CompletableFuture<?> result) {
+        try {
+            scheduler.schedule(() -> execute(task, result), delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void execute(Runnable task, CompletableFuture<?> result) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledIncrementalBackoff[" +
+                "backoff=" + backoff + ']';
+    }
+}
@@ -0,0 +1,123 @@
+package uk.gov.companieshouse.account.validator.service.status;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationResponse;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A bounded, read-through cache of request statuses, so that clients polling for a result do not each
+ * read from Mongo. Entries are replaced whenever a status is written and dropped when it is removed.
+ * Pending statuses are only kept briefly, as they may be updated by a callback to another instance.
+ * Complete and error statuses change only when the file is resubmitted or its status is removed, so they
+ * are kept for longer. Unless the change stream is enabled, a change made on another instance is not
+ * seen here until the cached entry expires, so the complete TTL should only be raised when it is.
+ */
+@Component
+public class RequestStatusCache {
+
+    static final String CACHE_NAME = "request-status";
+
+    private final RequestStatusRepository statusRepository;
+    private final Cache<String, RequestStatus> cache;
+
+    @Autowired
+    public RequestStatusCache(RequestStatusRepository statusRepository,
+            MeterRegistry meterRegistry,
+            @Value("${request.status.cache.max.size:10000}") long maxSize,
+            @Value("${request.status.cache.pending.ttl.seconds:2}") long pendingTtlSeconds,
+            @Value("${request.status.cache.complete.ttl.seconds:30}") long completeTtlSeconds) {
+        this.statusRepository = statusRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new StatusExpiry(Duration.ofSeconds(pendingTtlSeconds),
+                        Duration.ofSeconds(completeTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Gets the status for the given file, reading it from the repository if it is not cached
+     *
+     * @param fileId the id of the file
+     * @return the status, or empty if there is no status for the file
+     */
+    public Optional<RequestStatus> findById(String fileId) {
+        return Optional.ofNullable(cache.get(fileId, id -> statusRepository.findById(id).orElse(null)));
+    }
+
+    /**
+     * Gets the entity tag of the current status for the given file. A cached status is used if there is
+     * one, otherwise only the state and updated date are read from the repository.
+     *
+     * @param fileId the id of the file
+     * @return the entity tag, or empty if there is no status for the file
+     */
+    public Optional<String> findETag(String fileId) {
+        RequestStatus cached = cache.getIfPresent(fileId);
+        if (cached != null) {
+            return ValidationResponse.eTag(cached);
+        }
+        return statusRepository.findVersionById(fileId).flatMap(ValidationResponse::eTag);
+    }
+
+    /**
+     * Runs before other listeners, so a request that checks the cache after starting to watch a status
+     * cannot miss a change. A status older than the cached one is ignored, as events from the change
+     * stream can arrive after the local write that followed them.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStatusChanged(RequestStatusChangedEvent event) {
+        if (event.isRemoved()) {
+            cache.invalidate(event.fileId());
+        } else {
+            cache.asMap().merge(event.fileId(), event.status(),
+                    (cached, incoming) -> isOlder(incoming, cached) ? cached : incoming);
+        }
+    }
+
+    private static boolean isOlder(RequestStatus status, RequestStatus than) {
+        return status.updatedDateTime() != null && than.updatedDateTime() != null
+                && status.updatedDateTime().isBefore(than.updatedDateTime());
+    }
+
+    private record StatusExpiry(Duration pendingTtl, Duration completeTtl) implements Expiry<String, RequestStatus> {
+
+        @Override
+        public long expireAfterCreate(String fileId, RequestStatus status, long currentTime) {
+            return ttl(status).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String fileId, RequestStatus status, long currentTime,
+                long currentDuration) {
+            return ttl(status).toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String fileId, RequestStatus status, long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
+
+        private Duration ttl(RequestStatus status) {
+            return RequestStatus.STATE_PENDING.equals(status.status()) ? pendingTtl : completeTtl;
+        }
+    }
+}
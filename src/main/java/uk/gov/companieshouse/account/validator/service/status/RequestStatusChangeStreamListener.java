@@ -0,0 +1,245 @@
+package uk.gov.companieshouse.account.validator.service.status;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches the request status collection with a Mongo change stream and publishes a
+ * {@link RequestStatusChangedEvent} for every status written or removed by any instance. This keeps the
+ * status cache and waiting requests on every instance up to date, whichever instance received the Felix
+ * callback. Change streams need Mongo to run as a replica set.
+ *
+ * <p>Writes made by this instance are also seen here, so their events are published twice. Both the cache
+ * and the watchers handle a repeated event.
+ *
+ * <p>The change stream stops when its cursor fails, so it is started again after a delay that doubles with
+ * each failure, up to a minute, and resumes from the last change seen so none are missed. If Mongo no
+ * longer has that change the stream starts from the present instead. Whether the stream is active and how
+ * often it has been restarted are published as metrics.
+ */
+@Component
+@ConditionalOnProperty(name = "request.status.change.stream.enabled", havingValue = "true")
+public class RequestStatusChangeStreamListener implements SmartLifecycle, DisposableBean {
+
+    static final String COLLECTION = "validation_request_status";
+
+    private static final List<String> OPERATIONS = List.of(
+            OperationType.INSERT.getValue(),
+            OperationType.UPDATE.getValue(),
+            OperationType.REPLACE.getValue(),
+            OperationType.DELETE.getValue());
+
+    static final Duration INITIAL_RESTART_DELAY = Duration.ofSeconds(1);
+    static final Duration MAX_RESTART_DELAY = Duration.ofMinutes(1);
+
+    // The error Mongo returns when a resume token is older than its oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final Logger logger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MessageListenerContainer container;
+    private final ScheduledExecutorService restartScheduler;
+    private final LongAdder restarts = new LongAdder();
+    private Subscription subscription;
+    private ScheduledFuture<?> pendingRestart;
+    private Duration restartDelay = INITIAL_RESTART_DELAY;
+    private volatile BsonValue resumeToken;
+    private boolean running;
+
+    @Autowired
+    public RequestStatusChangeStreamListener(Logger logger,
+            MongoTemplate mongoTemplate,
+            ApplicationEventPublisher eventPublisher) {
+        this.logger = logger;
+        this.eventPublisher = eventPublisher;
+        // The change stream is read by one long-running task, so it gets a thread of its own
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("request-status-changes-");
+        executor.setDaemon(true);
+        this.container = new DefaultMessageListenerContainer(mongoTemplate, executor, this::onError);
+        this.restartScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "request-status-changes-restart");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        container.start();
+        subscription = container.register(request(), RequestStatus.class);
+        logger.info("Watching request status changes");
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (pendingRestart != null) {
+            pendingRestart.cancel(false);
+            pendingRestart = null;
+        }
+        container.stop();
+        subscription = null;
+    }
+
+    /**
+     * Stops the thread that restarts the change stream. The listener cannot be started again afterwards.
+     */
+    @Override
+    public synchronized void destroy() {
+        stop();
+        restartScheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return container.isRunning();
+    }
+
+    /**
+     * @return the change stream subscription, or null if the listener is not running
+     */
+    synchronized Subscription getSubscription() {
+        return subscription;
+    }
+
+    /**
+     * @return true if the change stream is open and being read
+     */
+    public synchronized boolean isActive() {
+        return subscription != null && subscription.isActive();
+    }
+
+    /**
+     * @return the number of times the change stream has been started again after failing
+     */
+    public long getRestarts() {
+        return restarts.sum();
+    }
+
+    private ChangeStreamRequest<RequestStatus> request() {
+        ChangeStreamRequest.ChangeStreamRequestBuilder<RequestStatus> builder =
+                ChangeStreamRequest.<RequestStatus>builder(this::onMessage)
+                        .collection(COLLECTION)
+                        .filter(newAggregation(match(where("operationType").in(OPERATIONS))))
+                        .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        BsonValue token = resumeToken;
+        if (token != null) {
+            builder.resumeToken(token);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Called by the container when the change stream or a listener fails. A failed cursor ends the
+     * subscription, so a restart is scheduled if it is no longer active.
+     */
+    void onError(Throwable error) {
+        Exception e = asException(error);
+        if (historyLost(e)) {
+            logger.error("Request status changes since the last one seen are no longer available", e);
+            resumeToken = null;
+        } else {
+            logger.error("Request status change stream failed", e);
+        }
+        scheduleRestart();
+    }
+
+    private synchronized void scheduleRestart() {
+        if (!running || pendingRestart != null || restartScheduler.isShutdown()) {
+            return;
+        }
+        Duration delay = restartDelay;
+        restartDelay = delay.multipliedBy(2).compareTo(MAX_RESTART_DELAY) > 0
+                ? MAX_RESTART_DELAY : delay.multipliedBy(2);
+        pendingRestart = restartScheduler.schedule(this::restart, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void restart() {
+        pendingRestart = null;
+        if (!running || (subscription != null && subscription.isActive())) {
+            return;
+        }
+        if (subscription != null) {
+            container.remove(subscription);
+        }
+        subscription = container.register(request(), RequestStatus.class);
+        restarts.increment();
+        logger.info("Restarted watching request status changes");
+    }
+
+    void onMessage(Message<ChangeStreamDocument<Document>, RequestStatus> message) {
+        ChangeStreamDocument<Document> change = message.getRaw();
+        if (change == null) {
+            return;
+        }
+        resumeToken = change.getResumeToken();
+        synchronized (this) {
+            restartDelay = INITIAL_RESTART_DELAY;
+        }
+
+        if (change.getOperationType() == OperationType.DELETE) {
+            fileId(change.getDocumentKey()).ifPresent(fileId ->
+                    eventPublisher.publishEvent(RequestStatusChangedEvent.removed(fileId)));
+        } else if (message.getBody() != null) {
+            // An update whose document has since been deleted has no body, the delete is handled separately
+            eventPublisher.publishEvent(RequestStatusChangedEvent.saved(message.getBody()));
+        }
+    }
+
+    private static Optional<String> fileId(BsonDocument documentKey) {
+        if (documentKey == null) {
+            return Optional.empty();
+        }
+        BsonValue id = documentKey.get("_id");
+        return id != null && id.isString() ? Optional.of(id.asString().getValue()) : Optional.empty();
+    }
+
+    private static boolean historyLost(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Exception asException(Throwable t) {
+        return t instanceof Exception e ? e : new RuntimeException(t);
+    }
+}
@@ -0,0 +1,67 @@
+package uk.gov.companieshouse.account.validator.service.status;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Lets requests wait for a status to change without holding a thread. Watchers are told of every change
+ * to the status of the file they watch until they cancel their watch.
+ */
+@Component
+public class RequestStatusWatchers {
+
+    private final Map<String, Set<Consumer<RequestStatusChangedEvent>>> watchers = new ConcurrentHashMap<>();
+
+    /**
+     * @param status a status, may be null
+     * @return whether the validation has finished, so the status will not change again
+     */
+    public static boolean isFinished(RequestStatus status) {
+        return status != null && (RequestStatus.STATE_COMPLETE.equals(status.status())
+                || RequestStatus.STATE_ERROR.equals(status.status()));
+    }
+
+    /**
+     * Starts watching the status of a file
+     *
+     * @param fileId  the id of the file
+     * @param watcher called with each change to the status, on the thread that made the change
+     * @return cancels the watch when run
+     */
+    public Runnable watch(String fileId, Consumer<RequestStatusChangedEvent> watcher) {
+        // Added inside compute so a cancel that empties and removes the set cannot lose this watcher
+        watchers.compute(fileId, (id, fileWatchers) -> {
+            Set<Consumer<RequestStatusChangedEvent>> set = fileWatchers == null
+                    ? ConcurrentHashMap.newKeySet()
+                    : fileWatchers;
+            set.add(watcher);
+            return set;
+        });
+        return () -> watchers.computeIfPresent(fileId, (id, fileWatchers) -> {
+            fileWatchers.remove(watcher);
+            return fileWatchers.isEmpty() ? null : fileWatchers;
+        });
+    }
+
+    /**
+     * @return the number of files being watched
+     */
+    public int size() {
+        return watchers.size();
+    }
+
+    @EventListener
+    public void onStatusChanged(RequestStatusChangedEvent event) {
+        Set<Consumer<RequestStatusChangedEvent>> fileWatchers = watchers.get(event.fileId());
+        if (fileWatchers != null) {
+            fileWatchers.forEach(watcher -> watcher.accept(event));
+        }
+    }
+}
@@ -1,21 +1,47 @@
 package uk.gov.companieshouse.account.validator.configuration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.http.HttpHost;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
 import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.account.validator.service.FelixAccountValidator;
+import uk.gov.companieshouse.account.validator.service.dispatch.AsyncAccountValidator;
+import uk.gov.companieshouse.account.validator.service.dispatch.OutboxAccountValidator;
 import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.account.validator.service.guard.AimdConcurrencyLimiter;
+import uk.gov.companieshouse.account.validator.service.guard.CircuitBreaker;
+import uk.gov.companieshouse.account.validator.service.guard.GuardedAccountValidator;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 import uk.gov.companieshouse.api.handler.felixvalidator.PrivateFelixValidatorResourceHandler;
+import uk.gov.companieshouse.api.handler.felixvalidator.request.PrivateModelFelixValidatorValidateAsync;
+import uk.gov.companieshouse.api.model.felixvalidator.AsyncValidationRequestApi;
 import uk.gov.companieshouse.logging.Logger;
 
+import java.util.concurrent.ExecutorService;
+
 @ExtendWith(MockitoExtension.class)
 @TestPropertySource(properties = {"file.transfer.retry.base.delay.seconds=99"})
 class ApplicationConfigurationTest {
@@ -35,6 +61,9 @@ class ApplicationConfigurationTest {
     @Mock
     RequestStatusFactory statusFactory;
 
+    @Mock
+    FelixDispatchRepository dispatchRepository;
+
     private ApplicationConfiguration undertest;
 
     @BeforeEach
@@ -54,10 +83,37 @@ class ApplicationConfigurationTest {
         assertNotNull(undertest.executor());
     }
 
+    @Test
+    @DisplayName("Test Executor Bean runs tasks on virtual threads when enabled")
+    void testVirtualThreadExecutorCreation() throws Exception {
+        ReflectionTestUtils.setField(undertest, "virtualThreadsEnabled", true);
+
+        ExecutorService executor = (ExecutorService) undertest.executor();
+
+        assertTrue(executor.submit(() -> Thread.currentThread().isVirtual()).get());
+        executor.shutdown();
+    }
+
     @Test
     @DisplayName("Test RestTemplate Bean creates correct type")
     void testRestTemplateCreation() {
-        assertNotNull(undertest.restTemplate());
+        var connectionManager = undertest.restTemplateConnectionManager(10, 5, 2, "", 1L, 1L);
+
+        assertNotNull(undertest.restTemplate(new RestTemplateBuilder(), connectionManager, 1L, 1L, 1L));
+        connectionManager.close();
+    }
+
+    @Test
+    @DisplayName("Test rest template connection pool limits the iXBRL to PDF route separately")
+    void testRestTemplateConnectionManagerCreation() {
+        var connectionManager = undertest.restTemplateConnectionManager(10, 5, 2, "https://pdf.example.com/render", 1L, 1L);
+
+        assertEquals(10, connectionManager.getMaxTotal());
+        assertEquals(5, connectionManager.getDefaultMaxPerRoute());
+        assertEquals(2, connectionManager.getMaxPerRoute(
+                new HttpRoute(new HttpHost("https", "pdf.example.com", 443), null, true)));
+        assertNotNull(undertest.restTemplateConnectionPoolMetrics(connectionManager));
+        connectionManager.close();
     }
 
     @Test
@@ -66,10 +122,94 @@ class ApplicationConfigurationTest {
         assertNotNull(undertest.fileTransferRetryStrategy(1L, 2L, 3L, 4L));
     }
 
+    @Test
+    @DisplayName("Test file transfer async retry strategy Bean creates correct type")
+    void testFileTransferAsyncRetryStrategyCreation() {
+        assertNotNull(undertest.fileTransferAsyncRetryStrategy(1L, 2L, 3L, 4L, 1, Runnable::run));
+    }
+
     @Test
     @DisplayName("Test AccountValidationStrategy Bean creates correct type")
     void testAccountValidationStrategyCreation() {
-        assertNotNull(undertest.accountValidationStrategy(logger, statusRepository, restTemplate, felixClient, statusFactory));
+        assertTrue(accountValidationStrategy(true) instanceof GuardedAccountValidator);
+        assertTrue(accountValidationStrategy(false) instanceof FelixAccountValidator);
+    }
+
+    @Test
+    @DisplayName("Test the Felix validator wrapped by the guard is given the callback url")
+    void testGuardedValidatorCallbackUrl() throws XBRLValidationException {
+        ArgumentCaptor<AsyncValidationRequestApi> request = ArgumentCaptor.forClass(AsyncValidationRequestApi.class);
+        when(felixClient.validateAsync(request.capture())).thenReturn(mock(PrivateModelFelixValidatorValidateAsync.class));
+        FileDetailsApi file = new FileDetailsApi("fileId", null, null, null, 0L, "accounts.zip", null, null);
+
+        accountValidationStrategy(true).startValidation(file, new AccountsDetails());
+
+        assertEquals("http://internal-api/account-validator/validate/fileId", request.getValue().getCallbackUrl());
+    }
+
+    @Test
+    @DisplayName("Test Felix guard Beans create correct types")
+    void testFelixGuardCreation() {
+        AimdConcurrencyLimiter limiter = undertest.felixConcurrencyLimiter(16, 1, 64, 2000L, 0.9);
+        CircuitBreaker breaker = undertest.felixCircuitBreaker(5, 30L);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        undertest.felixGuardMetrics(limiter, breaker).bindTo(registry);
+
+        assertEquals(16.0, registry.get("felix.limiter.limit").gauge().value());
+        assertEquals(1.0, registry.get("felix.breaker.state").tag("state", "closed").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test submissions go straight to the Felix validator in direct mode")
+    void testSubmissionValidationStrategyDirect() {
+        AccountValidationStrategy felixValidator = accountValidationStrategy(true);
+
+        assertSame(felixValidator, submissionValidationStrategy(felixValidator, "direct"));
+    }
+
+    @Test
+    @DisplayName("Test submissions are queued in outbox mode")
+    void testSubmissionValidationStrategyOutbox() {
+        AccountValidationStrategy felixValidator = accountValidationStrategy(true);
+
+        assertTrue(submissionValidationStrategy(felixValidator, "outbox") instanceof OutboxAccountValidator);
+    }
+
+    @Test
+    @DisplayName("Test submissions are sent on a thread pool in async mode")
+    void testSubmissionValidationStrategyAsync() {
+        AccountValidationStrategy felixValidator = accountValidationStrategy(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        AccountValidationStrategy actual = submissionValidationStrategy(felixValidator, "async");
+        undertest.felixAsyncDispatchMetrics(actual).bindTo(registry);
+
+        assertTrue(actual instanceof AsyncAccountValidator);
+        assertEquals(0.0, registry.get("felix.dispatch.async.queue.depth").gauge().value());
+        assertEquals(0.0, registry.get("felix.dispatch.async.overflow").tag("action", "reject").functionCounter().count());
+        ((AsyncAccountValidator) actual).close();
+    }
+
+    private AccountValidationStrategy submissionValidationStrategy(AccountValidationStrategy felixValidator,
+            String dispatchMode) {
+        return undertest.submissionValidationStrategy(logger, felixValidator, dispatchRepository, statusRepository,
+                statusFactory, dispatchMode, 1, 1, "reject");
+    }
+
+    private AccountValidationStrategy accountValidationStrategy(boolean guardEnabled) {
+        return undertest.accountValidationStrategy(logger, statusRepository, restTemplate, felixClient, statusFactory,
+                undertest.felixConcurrencyLimiter(16, 1, 64, 2000L, 0.9), undertest.felixCircuitBreaker(5, 30L),
+                guardEnabled, 1000L, "http://internal-api");
+    }
+
+    @Test
+    @DisplayName("Test file transfer client supplier shares a single client")
+    void testInternalFileTransferClientSupplierCreation() {
+        var supplier = undertest.internalFileTransferClientSupplier("apiKey", "http://localhost");
+
+        assertNotNull(supplier.get());
+        assertSame(supplier.get(), supplier.get());
     }
 
     @Test
@@ -5,16 +5,19 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.account.validator.model.validation.RequestStatus.STATE_COMPLETE;
 import static uk.gov.companieshouse.account.validator.model.validation.RequestStatus.STATE_PENDING;
 
 import org.junit.jupiter.api.Assertions;
@@ -22,35 +25,56 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.gov.companieshouse.account.validator.exceptionhandler.DispatchRejectedException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FileTooLargeException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.MissingEnvironmentVariableException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.ResponseException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
 import uk.gov.companieshouse.account.validator.model.File;
 import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionSummary;
 import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
 import uk.gov.companieshouse.account.validator.model.validation.ValidationRequest;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationResponse;
 import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
 import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
 import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
 import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
 import uk.gov.companieshouse.account.validator.service.maintenance.AccountMaintenanceService;
+import uk.gov.companieshouse.account.validator.service.render.RenderCache;
+import uk.gov.companieshouse.account.validator.service.status.RequestStatusCache;
 import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
 import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 import uk.gov.companieshouse.environment.EnvironmentReader;
 import uk.gov.companieshouse.logging.Logger;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @ExtendWith(MockitoExtension.class)
 class AccountValidationControllerTest {
@@ -89,8 +113,16 @@ class AccountValidationControllerTest {
     @Mock
     RequestStatusFactory requestStatusFactory;
 
+    @Mock
+    RequestStatusCache statusCache;
+
     AccountValidationController controller;
 
+    @TempDir
+    Path renderCacheDir;
+
+    RenderCache renderCache;
+
     @Mock
     AccountMaintenanceService accountMaintenanceService;
 
@@ -102,8 +134,11 @@ class AccountValidationControllerTest {
 
     private static final String COMPANY_NUMBER = "00006400";
 
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2024, 1, 2, 9, 30, 15);
+
     @BeforeEach
     void setUp() {
+        renderCache = new RenderCache(renderCacheDir, 1024);
         controller = new AccountValidationController(
                 accountValidationStrategy,
                 fileTransferStrategy,
@@ -112,7 +147,10 @@ class AccountValidationControllerTest {
                 restTemplate,
                 environmentReader,
                 accountMaintenanceService,
-                requestStatusFactory);
+                requestStatusFactory,
+                statusCache,
+                renderCache,
+                Runnable::run);
         accountsDetails = new AccountsDetails(PackageTypeApi.UKSEF, COMPANY_NUMBER);
         accountsDetailsWithoutPackage = new AccountsDetails();
     }
@@ -128,6 +166,7 @@ class AccountValidationControllerTest {
         when(validationRequest.getPackageType()).thenReturn(PackageTypeApi.UKSEF);
         when(validationRequest.getCompanyNumber()).thenReturn(COMPANY_NUMBER);
         when(requestStatusFactory.pending(fileId, null, ValidationStatusApi.UPLOADED_TO_FTS)).thenReturn(requestStatus);
+        when(repository.upsert(requestStatus)).thenReturn(requestStatus);
         when(requestStatus.status()).thenReturn(STATE_PENDING);
         var resp = controller.submitForValidation(validationRequest);
 
@@ -140,7 +179,7 @@ class AccountValidationControllerTest {
         assertEquals(body.status(), STATE_PENDING);
 
         // Pending status was saved to the database
-        verify(repository).save(requestStatusCaptor.capture());
+        verify(repository).upsert(requestStatusCaptor.capture());
         RequestStatus requestStatus = requestStatusCaptor.getValue();
         assertEquals(requestStatus.status(), STATE_PENDING);
 
@@ -160,6 +199,7 @@ class AccountValidationControllerTest {
         // When
         when(validationRequest.getPackageType()).thenReturn(null);
         when(requestStatusFactory.pending(fileId, null, ValidationStatusApi.UPLOADED_TO_FTS)).thenReturn(requestStatus);
+        when(repository.upsert(requestStatus)).thenReturn(requestStatus);
         when(requestStatus.status()).thenReturn(STATE_PENDING);
         var resp = controller.submitForValidation(validationRequest);
 
@@ -172,7 +212,7 @@ class AccountValidationControllerTest {
         assertEquals(body.status(), STATE_PENDING);
 
         // Pending status was saved to the database
-        verify(repository).save(requestStatusCaptor.capture());
+        verify(repository).upsert(requestStatusCaptor.capture());
         RequestStatus requestStatus = requestStatusCaptor.getValue();
         assertEquals(requestStatus.status(), STATE_PENDING);
 
@@ -196,6 +236,24 @@ class AccountValidationControllerTest {
         assertThat(resp.getStatusCode(), is(HttpStatus.NOT_FOUND));
     }
 
+    @Test
+    @DisplayName("Returns 413 without saving a status or starting validation when the file is too large")
+    void submitForValidationFileTooLarge() throws XBRLValidationException {
+        // Given
+        String fileId = "fileId";
+        setupFile(fileId, file);
+        ReflectionTestUtils.setField(fileTransferStrategy.getDetails(fileId).orElseThrow(), "size", 1024L * 1024 + 1);
+        ReflectionTestUtils.setField(controller, "maxSizeMb", 1L);
+
+        // When
+        var resp = controller.submitForValidation(validationRequest);
+
+        // Then
+        assertThat(resp.getStatusCode(), is(HttpStatus.CONTENT_TOO_LARGE));
+        verify(repository, never()).upsert(any());
+        verify(accountValidationStrategy, never()).startValidation(any(), any());
+    }
+
     private void setupFile(String id, File file) {
         when(validationRequest.getId()).thenReturn(id);
 
@@ -216,10 +274,10 @@ class AccountValidationControllerTest {
     void getStatusNotFound() {
         // Given
         var fileId = "FileID";
-        when(repository.findById(fileId)).thenReturn(Optional.empty());
+        when(statusCache.findById(fileId)).thenReturn(Optional.empty());
 
         // When
-        var resp = controller.getStatus(fileId);
+        var resp = controller.getStatus(fileId, null);
 
         // Then
         assertThat(resp.getStatusCode(), is(HttpStatus.NOT_FOUND));
@@ -230,45 +288,222 @@ class AccountValidationControllerTest {
     void getStatus() {
         // Given
         var fileId = "FileID";
-        when(repository.findById(fileId)).thenReturn(Optional.of(requestStatus));
+        when(statusCache.findById(fileId)).thenReturn(Optional.of(requestStatus));
 
         // When
-        var resp = controller.getStatus(fileId);
+        var resp = controller.getStatus(fileId, null);
 
         // Then
         assertThat(resp.getStatusCode(), is(HttpStatus.OK));
         assertThat(resp.getBody(), instanceOf(RequestStatus.class));
     }
 
+    @Test
+    @DisplayName("A status is returned with an ETag")
+    void getStatusETag() {
+        // Given
+        var fileId = "FileID";
+        RequestStatus status = new RequestStatus(fileId, "name", STATE_PENDING, null, UPDATED, UPDATED);
+        when(statusCache.findById(fileId)).thenReturn(Optional.of(status));
+
+        // When
+        var resp = controller.getStatus(fileId, null);
+
+        // Then
+        assertThat(resp.getStatusCode(), is(HttpStatus.OK));
+        assertThat(resp.getHeaders().getETag(), is("\"pending-" + UPDATED + "\""));
+    }
+
+    @Test
+    @DisplayName("304 is returned without loading the status when the client's ETag is current")
+    void getStatusNotModified() {
+        // Given
+        var fileId = "FileID";
+        String eTag = "\"pending-" + UPDATED + "\"";
+        when(statusCache.findETag(fileId)).thenReturn(Optional.of(eTag));
+
+        // When
+        var resp = controller.getStatus(fileId, "\"other\", W/" + eTag);
+
+        // Then
+        assertThat(resp.getStatusCode(), is(HttpStatus.NOT_MODIFIED));
+        assertThat(resp.getHeaders().getETag(), is(eTag));
+        verify(statusCache, never()).findById(fileId);
+    }
+
+    @Test
+    @DisplayName("The status is returned when the client's ETag is out of date")
+    void getStatusModified() {
+        // Given
+        var fileId = "FileID";
+        RequestStatus status = new RequestStatus(fileId, "name", STATE_COMPLETE, null, UPDATED, UPDATED);
+        when(statusCache.findETag(fileId)).thenReturn(ValidationResponse.eTag(status));
+        when(statusCache.findById(fileId)).thenReturn(Optional.of(status));
+
+        // When
+        var resp = controller.getStatus(fileId, "\"pending-" + UPDATED + "\"");
+
+        // Then
+        assertThat(resp.getStatusCode(), is(HttpStatus.OK));
+        assertThat(resp.getBody(), is(status));
+    }
+
     @Test
     @DisplayName("Render xhtml as pdf")
-    void render() {
+    void render() throws IOException {
         byte[] expectedBytes = "hello".getBytes();
 
         // Given
-        when(fileTransferStrategy.get(anyString())).thenReturn(Optional.of(new File(null, null, new byte[]{})));
+        when(fileTransferStrategy.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(new File(null, null, new byte[]{}))));
         when(environmentReader.getMandatoryString(anyString())).thenReturn("anything");
         when(restTemplate.postForObject(anyString(), anyMap(), any())).thenReturn(expectedBytes);
 
         // When
-        var actual = controller.render("fileId");
+        var actual = renderResult("fileId");
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        actual.getBody().writeTo(written);
 
         // Then
         assertThat(actual.getStatusCode(), is(HttpStatus.OK));
         assertThat(actual.getHeaders().getContentType(), is(equalTo(MediaType.APPLICATION_PDF)));
-        assertThat(actual.getBody(), is(equalTo(expectedBytes)));
-        verify(fileTransferStrategy).get(anyString());
+        assertArrayEquals(expectedBytes, written.toByteArray());
+        verify(fileTransferStrategy).getAsync(anyString());
         verify(restTemplate).postForObject(anyString(), anyMap(), any());
     }
 
+    @Test
+    @DisplayName("Render xhtml as pdf streaming the response")
+    void renderStreaming() throws IOException {
+        byte[] expectedBytes = "hello".getBytes();
+        ClientHttpResponse pdfResponse = mock(ClientHttpResponse.class);
+
+        // Given
+        ReflectionTestUtils.setField(controller, "streamingRender", true);
+        when(fileTransferStrategy.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(new File(null, null, new byte[]{}))));
+        when(environmentReader.getMandatoryString(anyString())).thenReturn("anything");
+        when(pdfResponse.getBody()).thenReturn(new ByteArrayInputStream(expectedBytes));
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(), any())).thenAnswer(invocation -> {
+            ResponseExtractor<?> extractor = invocation.getArgument(3);
+            return extractor.extractData(pdfResponse);
+        });
+
+        // When
+        var actual = renderResult("fileId");
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        actual.getBody().writeTo(written);
+
+        // Then
+        assertThat(actual.getStatusCode(), is(HttpStatus.OK));
+        assertThat(actual.getHeaders().getContentType(), is(equalTo(MediaType.APPLICATION_PDF)));
+        assertArrayEquals(expectedBytes, written.toByteArray());
+        verify(restTemplate).execute(anyString(), eq(HttpMethod.POST), any(), any());
+    }
+
+    @Test
+    @DisplayName("Repeat renders of the same file are served from the render cache")
+    void renderCached() throws IOException {
+        byte[] expectedBytes = "hello".getBytes();
+        ClientHttpResponse pdfResponse = mock(ClientHttpResponse.class);
+
+        // Given
+        ReflectionTestUtils.setField(controller, "cacheRender", true);
+        when(fileTransferStrategy.getAsync("fileId")).thenReturn(CompletableFuture.completedFuture(
+                Optional.of(new File("fileId", "accounts.xhtml", "<html/>".getBytes()))));
+        when(environmentReader.getMandatoryString(anyString())).thenReturn("anything");
+        when(pdfResponse.getBody()).thenReturn(new ByteArrayInputStream(expectedBytes));
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(), any())).thenAnswer(invocation -> {
+            ResponseExtractor<?> extractor = invocation.getArgument(3);
+            return extractor.extractData(pdfResponse);
+        });
+
+        // When
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        renderResult("fileId").getBody().writeTo(first);
+        var actual = renderResult("fileId");
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        actual.getBody().writeTo(second);
+
+        // Then
+        assertThat(actual.getStatusCode(), is(HttpStatus.OK));
+        assertThat(actual.getHeaders().getContentType(), is(equalTo(MediaType.APPLICATION_PDF)));
+        assertArrayEquals(expectedBytes, first.toByteArray());
+        assertArrayEquals(expectedBytes, second.toByteArray());
+        verify(restTemplate, times(1)).execute(anyString(), eq(HttpMethod.POST), any(), any());
+        assertThat(renderCache.getHits(), is(2L));
+    }
+
+    @Test
+    @DisplayName("Renders too large for the render cache are sent to the client without rendering again")
+    void renderTooLargeForCache() throws IOException {
+        byte[] expectedBytes = new byte[2048];
+
+        // Given
+        ReflectionTestUtils.setField(controller, "cacheRender", true);
+        when(fileTransferStrategy.getAsync("fileId")).thenReturn(CompletableFuture.completedFuture(
+                Optional.of(new File("fileId", "accounts.xhtml", "<html/>".getBytes()))));
+        when(environmentReader.getMandatoryString(anyString())).thenReturn("anything");
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(), any())).thenAnswer(invocation -> {
+            ClientHttpResponse pdfResponse = mock(ClientHttpResponse.class);
+            when(pdfResponse.getBody()).thenReturn(new ByteArrayInputStream(expectedBytes));
+            ResponseExtractor<?> extractor = invocation.getArgument(3);
+            return extractor.extractData(pdfResponse);
+        });
+
+        // When
+        var actual = renderResult("fileId");
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        actual.getBody().writeTo(written);
+
+        // Then
+        assertThat(actual.getStatusCode(), is(HttpStatus.OK));
+        assertArrayEquals(expectedBytes, written.toByteArray());
+        assertThat(renderCache.getEntries(), is(0));
+        verify(restTemplate, times(1)).execute(anyString(), eq(HttpMethod.POST), any(), any());
+        try (var files = Files.list(renderCacheDir)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
+    @Test
+    @DisplayName("A render that completes after the request timed out closes the file and the rendered PDF")
+    void renderCompletesAfterTimeout() throws IOException {
+        byte[] expectedBytes = new byte[2048];
+        File spilled = File.of("fileId", "accounts.xhtml", "<html/>".getBytes(), 1);
+        Path spilledPath = (Path) ReflectionTestUtils.getField(spilled, "path");
+        CompletableFuture<Optional<File>> download = new CompletableFuture<>();
+
+        // Given
+        ReflectionTestUtils.setField(controller, "cacheRender", true);
+        when(fileTransferStrategy.getAsync("fileId")).thenReturn(download);
+        when(environmentReader.getMandatoryString(anyString())).thenReturn("anything");
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(), any())).thenAnswer(invocation -> {
+            ClientHttpResponse pdfResponse = mock(ClientHttpResponse.class);
+            when(pdfResponse.getBody()).thenReturn(new ByteArrayInputStream(expectedBytes));
+            ResponseExtractor<?> extractor = invocation.getArgument(3);
+            return extractor.extractData(pdfResponse);
+        });
+        DeferredResult<ResponseEntity<StreamingResponseBody>> result = controller.render("fileId");
+
+        // When
+        result.setErrorResult(new AsyncRequestTimeoutException());
+        download.complete(Optional.of(spilled));
+
+        // Then
+        assertThat(result.getResult(), instanceOf(AsyncRequestTimeoutException.class));
+        assertThat(Files.exists(spilledPath), is(false));
+        try (var files = Files.list(renderCacheDir)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
     @Test
     @DisplayName("Returns 404 when the request file is not available on render")
     void renderFileNotFound() {
         // Given
-        when(fileTransferStrategy.get(anyString())).thenReturn(Optional.empty());
+        when(fileTransferStrategy.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         // When
-        var actual = controller.render("fileId");
+        var actual = renderResult("fileId");
 
         // Then
         assertThat(actual.getStatusCode(), is(HttpStatus.NOT_FOUND));
@@ -280,25 +515,66 @@ class AccountValidationControllerTest {
         // Given
 
         // When
-        when(fileTransferStrategy.get(anyString())).thenReturn(Optional.of(new File(null, null, "hello".getBytes())));
+        when(fileTransferStrategy.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(new File(null, null, "hello".getBytes()))));
         when(environmentReader.getMandatoryString(anyString())).thenReturn(null);
 
         // Then
-        assertThrows(MissingEnvironmentVariableException.class, () -> controller.render("fileId"));
+        assertThat(controller.render("fileId").getResult(), instanceOf(MissingEnvironmentVariableException.class));
     }
 
     @Test
     @DisplayName("Throws RestClientException on render")
     void renderRestClientException() {
         // Given
-        when(fileTransferStrategy.get(anyString())).thenReturn(Optional.of(new File(null, null, "hello".getBytes())));
+        when(fileTransferStrategy.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(new File(null, null, "hello".getBytes()))));
         when(environmentReader.getMandatoryString(anyString())).thenReturn("anything");
         when(restTemplate.postForObject(anyString(), anyMap(), any())).thenThrow(new RestClientException("anything"));
 
         // When
 
         // Then
-        assertThrows(RestClientException.class, () -> controller.render("fileId"));
+        assertThat(controller.render("fileId").getResult(), instanceOf(RestClientException.class));
+    }
+
+    @Test
+    @DisplayName("Failures fetching the file are passed to the exception handlers on render")
+    void renderFileTransferFailure() {
+        // Given
+        ResponseException failure = new ResponseException();
+        when(fileTransferStrategy.getAsync(anyString())).thenReturn(CompletableFuture.failedFuture(failure));
+
+        // When
+        var actual = controller.render("fileId").getResult();
+
+        // Then
+        assertThat(actual, is(failure));
+    }
+
+    @Test
+    @DisplayName("Exception handler for a file that is too large returns content too large")
+    void fileTooLargeException() {
+        // When
+        ResponseEntity<?> response = controller.fileTooLargeException(new FileTooLargeException("fileId", 2, 1));
+
+        // Then
+        assertThat(response.getStatusCode(), is(HttpStatus.CONTENT_TOO_LARGE));
+        assertThat(response.getBody(), is("File is larger than the limit of 1 bytes"));
+    }
+
+    @Test
+    @DisplayName("Exception handler for a full dispatch queue returns too many requests")
+    void dispatchRejectedException() {
+        // When
+        ResponseEntity<?> response = controller.dispatchRejectedException(new DispatchRejectedException("full"));
+
+        // Then
+        assertThat(response.getStatusCode(), is(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(response.getBody(), is("full"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResponseEntity<StreamingResponseBody> renderResult(String fileId) {
+        return (ResponseEntity<StreamingResponseBody>) controller.render(fileId).getResult();
     }
 
     @Test
@@ -358,12 +634,15 @@ class AccountValidationControllerTest {
     @DisplayName("Test to delete files from S3 bucket & mongodb")
     void deleteFiles() {
         // Given
+        DeletionSummary summary = new DeletionSummary(1, 1, 1, List.of("failed"), 5, 3, 10);
+        when(accountMaintenanceService.deleteCompleteSubmissions()).thenReturn(summary);
 
         // When
         ResponseEntity<?> response = controller.delete();
 
         // Then
-        Assertions.assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertThat(response.getBody(), is(equalTo(summary)));
         verify(accountMaintenanceService, times(1)).deleteCompleteSubmissions();
     }
 
@@ -0,0 +1,150 @@
+package uk.gov.companieshouse.account.validator.controller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.BatchValidationResult;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusField;
+import uk.gov.companieshouse.account.validator.model.validation.StatusLookupRequest;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationRequest;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.BatchValidationService;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+class BatchValidationControllerTest {
+
+    @Mock
+    private BatchValidationService batchValidationService;
+
+    @Mock
+    private RequestStatusRepository statusRepository;
+
+    private BatchValidationController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new BatchValidationController(batchValidationService, statusRepository, new ObjectMapper(),
+                2, 2);
+    }
+
+    @Test
+    @DisplayName("An empty batch is rejected")
+    void submitEmptyBatch() {
+        ResponseEntity<?> response = controller.submitBatch(List.of());
+
+        assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(batchValidationService);
+    }
+
+    @Test
+    @DisplayName("A batch over the maximum size is rejected")
+    void submitOversizedBatch() {
+        List<ValidationRequest> requests = List.of(mock(ValidationRequest.class), mock(ValidationRequest.class),
+                mock(ValidationRequest.class));
+
+        ResponseEntity<?> response = controller.submitBatch(requests);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(batchValidationService);
+    }
+
+    @Test
+    @DisplayName("A batch containing a null file is rejected")
+    void submitBatchWithNull() {
+        List<ValidationRequest> requests = Arrays.asList(mock(ValidationRequest.class), null);
+
+        ResponseEntity<?> response = controller.submitBatch(requests);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(batchValidationService);
+    }
+
+    @Test
+    @DisplayName("A batch returns the outcome of each file")
+    void submitBatch() {
+        List<ValidationRequest> requests = List.of(mock(ValidationRequest.class));
+        List<BatchValidationResult> results = List.of(BatchValidationResult.fileNotFound("fileId"));
+        when(batchValidationService.submit(requests)).thenReturn(results);
+
+        ResponseEntity<?> response = controller.submitBatch(requests);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getBody(), is(results));
+    }
+
+    @Test
+    @DisplayName("A status lookup streams the statuses found with only the requested fields")
+    void getStatuses() throws IOException {
+        Results result = new Results();
+        result.setValidationStatus(ValidationStatusApi.OK);
+        RequestStatus status = new RequestStatus("fileId", null, RequestStatus.STATE_COMPLETE, result, null, null);
+        when(statusRepository.streamAllById(Set.of("fileId", "other"),
+                Set.of(RequestStatusField.STATUS, RequestStatusField.VALIDATION_STATUS)))
+                .thenReturn(Stream.of(status));
+
+        ResponseEntity<?> response = controller.getStatuses(
+                new StatusLookupRequest(List.of("fileId", "other", "fileId"), List.of("status", "validationStatus")));
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        String json = out.toString();
+        assertThat(json, startsWith("[{\"fileId\":\"fileId\",\"status\":\"complete\",\"result\":{\"validationStatus\""));
+        assertThat(json, not(containsString("fileName")));
+        assertThat(json, endsWith("}}]"));
+    }
+
+    @Test
+    @DisplayName("A status lookup with too many ids is rejected")
+    void getStatusesTooMany() {
+        ResponseEntity<?> response = controller.getStatuses(List.of("a", "b", "c"), null);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(statusRepository);
+    }
+
+    @Test
+    @DisplayName("A status lookup with an unknown field is rejected")
+    void getStatusesUnknownField() {
+        ResponseEntity<?> response = controller.getStatuses(List.of("a"), List.of("errors"));
+
+        assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(statusRepository);
+    }
+
+    @Test
+    @DisplayName("A status lookup with no ids is rejected")
+    void getStatusesNoIds() {
+        ResponseEntity<?> response = controller.getStatuses(new StatusLookupRequest(List.of(" "), null));
+
+        assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(statusRepository);
+    }
+}
@@ -0,0 +1,197 @@
+package uk.gov.companieshouse.account.validator.controller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.service.status.RequestStatusCache;
+import uk.gov.companieshouse.account.validator.service.status.RequestStatusWatchers;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class RequestStatusWatchControllerTest {
+
+    private static final String FILE_ID = "fileId";
+    private static final String EVENTS_PATH = "/account-validator/validate/check/fileId/events";
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private RequestStatusCache statusCache;
+
+    private RequestStatusWatchers watchers;
+
+    private RequestStatusWatchController controller;
+
+    @BeforeEach
+    void setUp() {
+        watchers = new RequestStatusWatchers();
+        controller = new RequestStatusWatchController(logger, statusCache, watchers, Runnable::run, 60, 600);
+    }
+
+    @Test
+    @DisplayName("A long-poll for an unknown file returns 404 straight away")
+    void waitForUnknownStatus() {
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.empty());
+
+        DeferredResult<ResponseEntity<?>> result = controller.waitForStatus(FILE_ID, 30);
+
+        assertThat(response(result).getStatusCode(), is(HttpStatus.NOT_FOUND));
+        assertThat(watchers.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("A long-poll for a finished validation returns straight away")
+    void waitForFinishedStatus() {
+        RequestStatus complete = status(RequestStatus.STATE_COMPLETE);
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.of(complete));
+
+        DeferredResult<ResponseEntity<?>> result = controller.waitForStatus(FILE_ID, 30);
+
+        assertThat(response(result).getBody(), is(complete));
+        assertThat(watchers.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("A long-poll completes when the validation finishes")
+    void waitForPendingStatus() {
+        RequestStatus pending = status(RequestStatus.STATE_PENDING);
+        RequestStatus complete = status(RequestStatus.STATE_COMPLETE);
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.of(pending));
+
+        DeferredResult<ResponseEntity<?>> result = controller.waitForStatus(FILE_ID, 30);
+        assertThat(result.hasResult(), is(false));
+
+        watchers.onStatusChanged(RequestStatusChangedEvent.saved(pending));
+        assertThat(result.hasResult(), is(false));
+
+        watchers.onStatusChanged(RequestStatusChangedEvent.saved(complete));
+        assertThat(response(result).getStatusCode(), is(HttpStatus.OK));
+        assertThat(response(result).getBody(), is(complete));
+    }
+
+    @Test
+    @DisplayName("A long-poll returns 404 when the status is removed while waiting")
+    void waitForRemovedStatus() {
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.of(status(RequestStatus.STATE_PENDING)));
+
+        DeferredResult<ResponseEntity<?>> result = controller.waitForStatus(FILE_ID, 30);
+        watchers.onStatusChanged(RequestStatusChangedEvent.removed(FILE_ID));
+
+        assertThat(response(result).getStatusCode(), is(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    @DisplayName("A long-poll catches a validation that finished while the watch was starting")
+    void waitForStatusFinishedDuringWatch() {
+        RequestStatus complete = status(RequestStatus.STATE_COMPLETE);
+        when(statusCache.findById(FILE_ID))
+                .thenReturn(Optional.of(status(RequestStatus.STATE_PENDING)), Optional.of(complete));
+
+        DeferredResult<ResponseEntity<?>> result = controller.waitForStatus(FILE_ID, 30);
+
+        assertThat(response(result).getBody(), is(complete));
+    }
+
+    @Test
+    @DisplayName("A long-poll with no wait returns the current status")
+    void waitForStatusWithoutWaiting() {
+        RequestStatus pending = status(RequestStatus.STATE_PENDING);
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.of(pending));
+
+        DeferredResult<ResponseEntity<?>> result = controller.waitForStatus(FILE_ID, 0);
+
+        assertThat(response(result).getBody(), is(pending));
+    }
+
+    @Test
+    @DisplayName("The event stream sends each status change and ends when the validation finishes")
+    void statusEvents() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.of(status(RequestStatus.STATE_PENDING)));
+
+        MvcResult result = mockMvc.perform(get(EVENTS_PATH))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getResponse().getContentAsString(), containsString("\"status\":\"pending\""));
+        assertThat(result.getResponse().getContentAsString(), not(containsString("\"status\":\"complete\"")));
+
+        watchers.onStatusChanged(RequestStatusChangedEvent.saved(status(RequestStatus.STATE_COMPLETE)));
+
+        assertThat(result.getResponse().getContentAsString(), containsString("event:status"));
+        assertThat(result.getResponse().getContentAsString(), containsString("\"status\":\"complete\""));
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("A status change reported twice is only sent once")
+    void statusEventsSkipRepeats() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        RequestStatus pending = status(RequestStatus.STATE_PENDING);
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.of(pending));
+
+        MvcResult result = mockMvc.perform(get(EVENTS_PATH))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        watchers.onStatusChanged(RequestStatusChangedEvent.saved(pending));
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body.indexOf("\"status\":\"pending\""), is(body.lastIndexOf("\"status\":\"pending\"")));
+    }
+
+    @Test
+    @DisplayName("A removal reported after the event stream has ended is dropped")
+    void statusEventsRemovedAfterEnd() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.of(status(RequestStatus.STATE_PENDING)));
+
+        MvcResult result = mockMvc.perform(get(EVENTS_PATH))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        watchers.onStatusChanged(RequestStatusChangedEvent.saved(status(RequestStatus.STATE_COMPLETE)));
+
+        assertDoesNotThrow(() -> watchers.onStatusChanged(RequestStatusChangedEvent.removed(FILE_ID)));
+        assertThat(result.getResponse().getContentAsString(), not(containsString("event:removed")));
+    }
+
+    @Test
+    @DisplayName("The event stream for an unknown file returns 404")
+    void statusEventsNotFound() {
+        when(statusCache.findById(FILE_ID)).thenReturn(Optional.empty());
+
+        assertThat(controller.statusEvents(FILE_ID).getStatusCode(), is(HttpStatus.NOT_FOUND));
+    }
+
+    private static ResponseEntity<?> response(DeferredResult<ResponseEntity<?>> result) {
+        return (ResponseEntity<?>) result.getResult();
+    }
+
+    private static RequestStatus status(String state) {
+        return new RequestStatus(FILE_ID, "name", state, null, LocalDateTime.now(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.companieshouse.account.validator.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class FileTest {
+
+    private static final byte[] DATA = "Hello World!".getBytes();
+
+    @Test
+    @DisplayName("A file within the threshold is held in memory")
+    void withinThreshold() throws IOException {
+        // When
+        File file = File.of("fileId", "name", DATA, DATA.length);
+
+        // Then
+        assertThat(file.isSpilled(), is(false));
+        assertThat(file.getSize(), is((long) DATA.length));
+        try (InputStream stream = file.openStream()) {
+            assertThat(stream.readAllBytes(), is(DATA));
+        }
+    }
+
+    @Test
+    @DisplayName("A threshold of zero always holds the file in memory")
+    void zeroThreshold() {
+        // When
+        File file = File.of("fileId", "name", DATA, 0);
+
+        // Then
+        assertThat(file.isSpilled(), is(false));
+    }
+
+    @Test
+    @DisplayName("A file above the threshold is spilled to disk and can still be read")
+    void aboveThreshold() throws IOException {
+        // When
+        try (File file = File.of("fileId", "name", DATA, DATA.length - 1)) {
+
+            // Then
+            assertThat(file.isSpilled(), is(true));
+            assertThat(file.getSize(), is((long) DATA.length));
+            assertThat(file.getData(), is(DATA));
+            try (InputStream stream = file.openStream()) {
+                assertThat(stream.readAllBytes(), is(DATA));
+            }
+            try (ReadableByteChannel channel = file.openChannel()) {
+                ByteBuffer buffer = ByteBuffer.allocate(DATA.length);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    // Keep reading
+                }
+                assertThat(buffer.array(), is(DATA));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A spilled file is deleted when its last holder closes it")
+    void deletedOnLastClose() {
+        // Given
+        File file = File.of("fileId", "name", DATA, 1);
+        Path path = (Path) ReflectionTestUtils.getField(file, "path");
+        file.retain();
+
+        // When
+        file.close();
+
+        // Then
+        assertThat(Files.exists(path), is(true));
+        file.close();
+        assertThat(Files.exists(path), is(false));
+    }
+
+    @Test
+    @DisplayName("A file cannot be retained once it has been closed")
+    void retainAfterClose() {
+        // Given
+        File file = File.of("fileId", "name", DATA, 1);
+        file.close();
+
+        // When / Then
+        assertThrows(IllegalStateException.class, file::retain);
+    }
+}
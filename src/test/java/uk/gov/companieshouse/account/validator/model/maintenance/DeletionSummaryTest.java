@@ -0,0 +1,41 @@
+package uk.gov.companieshouse.account.validator.model.maintenance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+class DeletionSummaryTest {
+
+    @Test
+    @DisplayName("Batches are added as counts and the slowest delete is kept")
+    void plus() {
+        // When
+        DeletionSummary summary = DeletionSummary.empty()
+                .plus(new DeletionBatch(List.of("a", "b"), List.of("c"), List.of(), 30, 20, 25))
+                .plus(new DeletionBatch(List.of("d"), List.of(), List.of("e"), 15, 10, 12));
+
+        // Then
+        assertThat(summary, is(new DeletionSummary(3, 1, 1, List.of("c"), 45, 20, 37)));
+    }
+
+    @Test
+    @DisplayName("Only the first failed ids are kept")
+    void failedIdsCapped() {
+        // Given
+        List<String> failed = IntStream.range(0, 60).mapToObj(i -> "file-" + i).toList();
+        DeletionBatch batch = new DeletionBatch(List.of(), failed, List.of(), 0, 0, 0);
+
+        // When
+        DeletionSummary summary = DeletionSummary.empty().plus(batch).plus(batch);
+
+        // Then
+        assertThat(summary.failed(), is(120L));
+        assertThat(summary.failedIds().size(), is(DeletionSummary.MAX_FAILED_IDS));
+        assertThat(summary.failedIds().get(0), is("file-0"));
+    }
+}
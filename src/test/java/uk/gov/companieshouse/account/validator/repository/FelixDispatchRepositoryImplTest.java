@@ -0,0 +1,125 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class FelixDispatchRepositoryImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
+
+    private FelixDispatchRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FelixDispatchRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Queuing a file resets its attempts and only sets the created date on insert")
+    void enqueue() {
+        repository.enqueue(new FelixDispatch("fileId", "accounts.zip", PackageTypeApi.UKSEF, null,
+                FelixDispatch.STATE_QUEUED, 0, null, null, null, null));
+
+        verify(mongoTemplate).upsert(queryCaptor.capture(), updateCaptor.capture(), eq(FelixDispatch.class));
+        assertThat(queryCaptor.getValue().getQueryObject(), hasEntry("_id", (Object) "fileId"));
+        Document set = (Document) updateCaptor.getValue().getUpdateObject().get("$set");
+        Document setOnInsert = (Document) updateCaptor.getValue().getUpdateObject().get("$setOnInsert");
+        assertThat(set, hasEntry("state", (Object) FelixDispatch.STATE_QUEUED));
+        assertThat(set, hasEntry("attempts", (Object) 0));
+        assertThat(setOnInsert, hasKey("created"));
+    }
+
+    @Test
+    @DisplayName("The file that has waited longest, or whose claim has expired, is claimed and its attempts counted")
+    void claimNext() {
+        LocalDateTime claimedUntil = NOW.plusMinutes(2);
+
+        repository.claimNext(NOW, claimedUntil);
+
+        verify(mongoTemplate).findAndModify(queryCaptor.capture(), updateCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(FelixDispatch.class));
+        Document query = queryCaptor.getValue().getQueryObject();
+        assertThat((List<?>) ((Document) query.get("state")).get("$in"),
+                contains(FelixDispatch.STATE_QUEUED, FelixDispatch.STATE_SENDING));
+        assertThat((Document) query.get("next_attempt"), hasEntry("$lte", (Object) NOW));
+        assertThat(queryCaptor.getValue().getSortObject(), hasEntry("next_attempt", (Object) 1));
+
+        Document update = updateCaptor.getValue().getUpdateObject();
+        assertThat((Document) update.get("$set"), hasEntry("state", (Object) FelixDispatch.STATE_SENDING));
+        assertThat((Document) update.get("$set"), hasEntry("next_attempt", (Object) claimedUntil));
+        assertThat((Document) update.get("$inc"), is(new Document("attempts", 1)));
+    }
+
+    @Test
+    @DisplayName("A claimed file is only updated while it still holds the claim")
+    void markSentMatchesClaim() {
+        LocalDateTime claimedUntil = NOW.plusMinutes(2);
+        FelixDispatch claim = new FelixDispatch("fileId", "accounts.zip", PackageTypeApi.UKSEF, null,
+                FelixDispatch.STATE_SENDING, 2, claimedUntil, null, NOW, NOW);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(FelixDispatch.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThat(repository.markSent(claim), is(false));
+
+        verify(mongoTemplate).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(FelixDispatch.class));
+        Document query = queryCaptor.getValue().getQueryObject();
+        assertThat(query, hasEntry("_id", (Object) "fileId"));
+        assertThat(query, hasEntry("state", (Object) FelixDispatch.STATE_SENDING));
+        assertThat(query, hasEntry("attempts", (Object) 2));
+        assertThat(query, hasEntry("next_attempt", (Object) claimedUntil));
+        assertThat((Document) updateCaptor.getValue().getUpdateObject().get("$set"),
+                hasEntry("state", (Object) FelixDispatch.STATE_SENT));
+    }
+
+    @Test
+    @DisplayName("Files that were sent or failed before the date are removed")
+    void deleteFinished() {
+        when(mongoTemplate.remove(any(Query.class), eq(FelixDispatch.class))).thenReturn(DeleteResult.acknowledged(3));
+
+        assertThat(repository.deleteFinished(NOW), is(3L));
+
+        verify(mongoTemplate).remove(queryCaptor.capture(), eq(FelixDispatch.class));
+        Document query = queryCaptor.getValue().getQueryObject();
+        assertThat((List<?>) ((Document) query.get("state")).get("$in"),
+                contains(FelixDispatch.STATE_SENT, FelixDispatch.STATE_FAILED));
+        assertThat((Document) query.get("updated"), hasEntry("$lt", (Object) NOW));
+    }
+}
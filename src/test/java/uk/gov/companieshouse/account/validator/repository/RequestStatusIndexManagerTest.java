@@ -0,0 +1,121 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class RequestStatusIndexManagerTest {
+
+    private static final long THIRTY_DAYS_SECONDS = 30L * 24 * 60 * 60;
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOps;
+
+    @Captor
+    private ArgumentCaptor<IndexDefinition> indexCaptor;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.indexOps(RequestStatus.class)).thenReturn(indexOps);
+    }
+
+    @Test
+    @DisplayName("Creates the updated, created and status/updated indexes")
+    void ensureIndexes() {
+        when(indexOps.getIndexInfo()).thenReturn(List.of());
+
+        new RequestStatusIndexManager(logger, mongoTemplate, false, 30).ensureIndexes();
+
+        verify(indexOps, times(3)).ensureIndex(indexCaptor.capture());
+        List<IndexDefinition> indexes = indexCaptor.getAllValues();
+        assertThat(indexes.get(0).getIndexKeys(), hasEntry("updated", (Object) 1));
+        assertThat(indexes.get(0).getIndexOptions(), not(hasKey("expireAfterSeconds")));
+        assertThat(indexes.get(1).getIndexKeys(), hasEntry("created", (Object) 1));
+        assertThat(indexes.get(2).getIndexKeys(), is(new Document("status", 1).append("updated", 1)));
+        verify(indexOps, never()).dropIndex(anyString());
+        verify(logger).error(eq("Request status indexes are missing"), anyMap());
+    }
+
+    @Test
+    @DisplayName("Replaces a plain updated index with a TTL index when TTL is enabled")
+    void replacesIndexForTtl() {
+        when(indexOps.getIndexInfo()).thenReturn(List.of(index(RequestStatusIndexManager.UPDATED_INDEX, "updated", null)));
+
+        new RequestStatusIndexManager(logger, mongoTemplate, true, 30).ensureIndexes();
+
+        verify(indexOps).dropIndex(RequestStatusIndexManager.UPDATED_INDEX);
+        verify(indexOps, times(3)).ensureIndex(indexCaptor.capture());
+        assertThat(indexCaptor.getAllValues().get(0).getIndexOptions(),
+                hasEntry("expireAfterSeconds", (Object) THIRTY_DAYS_SECONDS));
+    }
+
+    @Test
+    @DisplayName("Leaves indexes that already match alone and reports them")
+    void keepsMatchingIndexes() {
+        when(indexOps.getIndexInfo()).thenReturn(List.of(
+                index(RequestStatusIndexManager.UPDATED_INDEX, "updated", THIRTY_DAYS_SECONDS),
+                index(RequestStatusIndexManager.CREATED_INDEX, "created", null),
+                index(RequestStatusIndexManager.STATUS_UPDATED_INDEX, "status", null)));
+
+        new RequestStatusIndexManager(logger, mongoTemplate, true, 30).ensureIndexes();
+
+        verify(indexOps, never()).dropIndex(anyString());
+        verify(logger).info(eq("Request status indexes"), anyMap());
+    }
+
+    @Test
+    @DisplayName("A failure to create indexes is logged and does not stop start up")
+    void indexFailureIsLogged() {
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("down");
+        when(indexOps.getIndexInfo()).thenThrow(failure);
+
+        new RequestStatusIndexManager(logger, mongoTemplate, false, 30).ensureIndexes();
+
+        verify(logger).error("Failed to create request status indexes", failure);
+        verify(indexOps, never()).ensureIndex(any());
+    }
+
+    private static IndexInfo index(String name, String field, Long expireAfterSeconds) {
+        Document document = new Document("key", new Document(field, 1)).append("name", name);
+        if (expireAfterSeconds != null) {
+            document.append("expireAfterSeconds", expireAfterSeconds);
+        }
+        return IndexInfo.indexInfoOf(document);
+    }
+}
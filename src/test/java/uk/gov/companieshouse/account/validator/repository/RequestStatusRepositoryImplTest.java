@@ -0,0 +1,212 @@
+package uk.gov.companieshouse.account.validator.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusField;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+class RequestStatusRepositoryImplTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 9, 0);
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2024, 1, 2, 9, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
+
+    @Captor
+    private ArgumentCaptor<FindAndModifyOptions> optionsCaptor;
+
+    private RequestStatusRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RequestStatusRepositoryImpl(mongoTemplate, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("The created date is only written on insert, everything else is always set")
+    void upsertSetsCreatedOnInsert() {
+        RequestStatus status = new RequestStatus("fileId", "name", RequestStatus.STATE_COMPLETE, null, CREATED, UPDATED);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(RequestStatus.class))).thenReturn(status);
+
+        RequestStatus stored = repository.upsert(status);
+
+        verify(mongoTemplate).findAndModify(queryCaptor.capture(), updateCaptor.capture(), optionsCaptor.capture(),
+                eq(RequestStatus.class));
+        assertThat(stored, is(status));
+        assertThat(queryCaptor.getValue().getQueryObject(), hasEntry("_id", (Object) "fileId"));
+        assertThat(optionsCaptor.getValue().isUpsert(), is(true));
+        assertThat(optionsCaptor.getValue().isReturnNew(), is(true));
+
+        Document set = (Document) updateCaptor.getValue().getUpdateObject().get("$set");
+        Document setOnInsert = (Document) updateCaptor.getValue().getUpdateObject().get("$setOnInsert");
+        assertThat(set, hasEntry("status", (Object) RequestStatus.STATE_COMPLETE));
+        assertThat(set, hasEntry("updated", (Object) UPDATED));
+        assertThat(set, hasEntry("fileName", (Object) "name"));
+        assertThat(set, hasKey("result"));
+        assertThat(set, not(hasKey("created")));
+        assertThat(setOnInsert, hasEntry("created", (Object) CREATED));
+        verify(eventPublisher).publishEvent(new RequestStatusChangedEvent("fileId", status));
+    }
+
+    @Test
+    @DisplayName("A null file name keeps the stored name")
+    void upsertKeepsFileName() {
+        RequestStatus status = new RequestStatus("fileId", null, RequestStatus.STATE_COMPLETE, null, CREATED, UPDATED);
+
+        repository.upsert(status);
+
+        verify(mongoTemplate).findAndModify(any(Query.class), updateCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(RequestStatus.class));
+        Document set = (Document) updateCaptor.getValue().getUpdateObject().get("$set");
+        Document setOnInsert = (Document) updateCaptor.getValue().getUpdateObject().get("$setOnInsert");
+        assertThat(set, not(hasKey("fileName")));
+        assertThat(setOnInsert, hasEntry("fileName", (Object) ""));
+    }
+
+    @Test
+    @DisplayName("All statuses are written in one unordered bulk upsert and published as they were stored")
+    void upsertAllWritesOneBulk() {
+        RequestStatus first = new RequestStatus("first", "a", RequestStatus.STATE_PENDING, null, CREATED, UPDATED);
+        RequestStatus second = new RequestStatus("second", "b", RequestStatus.STATE_PENDING, null, CREATED, UPDATED);
+        RequestStatus storedFirst = new RequestStatus("first", "a", RequestStatus.STATE_PENDING, null,
+                CREATED.minusDays(1), UPDATED);
+        RequestStatus storedSecond = new RequestStatus("second", "stored", RequestStatus.STATE_PENDING, null,
+                CREATED, UPDATED);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RequestStatus.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(RequestStatus.class))).thenReturn(List.of(storedFirst, storedSecond));
+
+        Set<String> failed = repository.upsertAll(List.of(first, second));
+
+        assertThat(failed, is(empty()));
+        verify(bulk, times(2)).upsert(queryCaptor.capture(), updateCaptor.capture());
+        verify(bulk).execute();
+        assertThat(queryCaptor.getAllValues().stream().map(query -> query.getQueryObject().get("_id")).toList(),
+                contains("first", "second"));
+        Document setOnInsert = (Document) updateCaptor.getValue().getUpdateObject().get("$setOnInsert");
+        assertThat(setOnInsert, hasEntry("created", (Object) CREATED));
+        verify(eventPublisher).publishEvent(RequestStatusChangedEvent.saved(storedFirst));
+        verify(eventPublisher).publishEvent(RequestStatusChangedEvent.saved(storedSecond));
+        verify(eventPublisher, never()).publishEvent(RequestStatusChangedEvent.saved(first));
+    }
+
+    @Test
+    @DisplayName("Statuses rejected by the bulk write are returned and not published")
+    void upsertAllReturnsFailures() {
+        RequestStatus first = new RequestStatus("first", "a", RequestStatus.STATE_PENDING, null, CREATED, UPDATED);
+        RequestStatus second = new RequestStatus("second", "b", RequestStatus.STATE_PENDING, null, CREATED, UPDATED);
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkOperationException exception = mock(BulkOperationException.class);
+        when(exception.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate", new BsonDocument(), 1)));
+        when(bulk.execute()).thenThrow(exception);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RequestStatus.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(RequestStatus.class))).thenReturn(List.of(first));
+
+        Set<String> failed = repository.upsertAll(List.of(first, second));
+
+        assertThat(failed, contains("second"));
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(RequestStatus.class));
+        Document id = (Document) queryCaptor.getValue().getQueryObject().get("_id");
+        assertThat((List<?>) id.get("$in"), contains("first"));
+        verify(eventPublisher).publishEvent(RequestStatusChangedEvent.saved(first));
+        verify(eventPublisher, never()).publishEvent(RequestStatusChangedEvent.saved(second));
+    }
+
+    @Test
+    @DisplayName("Many statuses are found with one $in query that loads only the requested fields")
+    void streamAllByIdProjectsFields() {
+        when(mongoTemplate.stream(any(Query.class), eq(RequestStatus.class))).thenReturn(Stream.empty());
+
+        repository.streamAllById(List.of("first", "second"), Set.of(RequestStatusField.VALIDATION_STATUS));
+
+        verify(mongoTemplate).stream(queryCaptor.capture(), eq(RequestStatus.class));
+        Document id = (Document) queryCaptor.getValue().getQueryObject().get("_id");
+        assertThat((List<?>) id.get("$in"), contains("first", "second"));
+        assertThat(queryCaptor.getValue().getFieldsObject(), hasEntry("result.validationStatus", (Object) 1));
+    }
+
+    @Test
+    @DisplayName("A status is only replaced if its state and updated date have not changed")
+    void replaceIfUnchanged() {
+        RequestStatus current = new RequestStatus("fileId", "name", RequestStatus.STATE_PENDING, null, CREATED, CREATED);
+        RequestStatus replacement = new RequestStatus("fileId", "name", RequestStatus.STATE_ERROR, null, UPDATED, UPDATED);
+
+        Optional<RequestStatus> stored = repository.replaceIfUnchanged(current, replacement);
+
+        verify(mongoTemplate).findAndModify(queryCaptor.capture(), updateCaptor.capture(), optionsCaptor.capture(),
+                eq(RequestStatus.class));
+        assertThat(stored, is(Optional.empty()));
+        Document query = queryCaptor.getValue().getQueryObject();
+        assertThat(query, hasEntry("_id", (Object) "fileId"));
+        assertThat(query, hasEntry("status", (Object) RequestStatus.STATE_PENDING));
+        assertThat(query, hasEntry("updated", (Object) CREATED));
+        assertThat(optionsCaptor.getValue().isUpsert(), is(false));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Stale pending statuses are paged oldest first, starting after the previous page")
+    void findStalePendingPagesByUpdated() {
+        RequestStatus after = new RequestStatus("fileId", null, RequestStatus.STATE_PENDING, null, CREATED, CREATED);
+
+        repository.findStalePending(UPDATED, after, 50);
+
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(RequestStatus.class));
+        Query query = queryCaptor.getValue();
+        assertThat(query.getQueryObject(), hasEntry("status", (Object) RequestStatus.STATE_PENDING));
+        assertThat(query.getSortObject(), is(new Document("updated", 1).append("_id", 1)));
+        assertThat(query.getLimit(), is(50));
+        assertThat(query.getFieldsObject(), not(hasKey("result")));
+        assertThat(query.getFieldsObject(), hasEntry("updated", (Object) 1));
+    }
+}
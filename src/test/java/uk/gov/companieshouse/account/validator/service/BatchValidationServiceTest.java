@@ -0,0 +1,175 @@
+package uk.gov.companieshouse.account.validator.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.validation.BatchValidationResult;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationRequest;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+class BatchValidationServiceTest {
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private FileTransferStrategy fileTransferStrategy;
+
+    @Mock
+    private AccountValidationStrategy accountValidationStrategy;
+
+    @Mock
+    private RequestStatusRepository statusRepository;
+
+    @Captor
+    private ArgumentCaptor<List<RequestStatus>> statusesCaptor;
+
+    private BatchValidationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BatchValidationService(logger, fileTransferStrategy, accountValidationStrategy,
+                statusRepository, new RequestStatusFactory(), Runnable::run, 2, 1);
+    }
+
+    @Test
+    @DisplayName("Each file in a batch gets its own outcome and failures do not affect the others")
+    void submitMixedBatch() throws XBRLValidationException {
+        // Given
+        FileDetailsApi accepted = file("accepted");
+        FileDetailsApi felixFails = file("felixFails");
+        when(fileTransferStrategy.getDetails("accepted")).thenReturn(Optional.of(accepted));
+        when(fileTransferStrategy.getDetails("felixFails")).thenReturn(Optional.of(felixFails));
+        when(fileTransferStrategy.getDetails("missing")).thenReturn(Optional.empty());
+        when(fileTransferStrategy.getDetails("broken")).thenThrow(new RuntimeException("down"));
+        when(statusRepository.upsertAll(any())).thenReturn(Set.of());
+        doThrow(new XBRLValidationException("felix down"))
+                .when(accountValidationStrategy).startValidation(any(), any());
+        doNothingFor(accepted);
+
+        // When
+        List<BatchValidationResult> results = service.submit(List.of(
+                request("accepted", PackageTypeApi.UKSEF), request(null, null), request("missing", null),
+                request("broken", null), request("felixFails", null), request("accepted", null)));
+
+        // Then
+        assertThat(results.stream().map(BatchValidationResult::status).toList(),
+                contains(200, 400, 404, 500, 500, 400));
+        assertThat(results.get(0).requestStatus().status(), is(RequestStatus.STATE_PENDING));
+        assertThat(results.get(0).requestStatus().fileName(), is("accepted.xhtml"));
+
+        verify(statusRepository, times(1)).upsertAll(statusesCaptor.capture());
+        assertThat(statusesCaptor.getValue().stream().map(RequestStatus::fileId).toList(),
+                contains("accepted", "felixFails"));
+        verify(accountValidationStrategy).startValidation(accepted, new AccountsDetails(PackageTypeApi.UKSEF, null));
+        verify(statusRepository).upsert(argThat(status ->
+                status.fileId().equals("felixFails") && status.status().equals(RequestStatus.STATE_ERROR)));
+    }
+
+    @Test
+    @DisplayName("Files whose status could not be saved are not sent to Felix")
+    void submitUnsavedStatus() throws XBRLValidationException {
+        // Given
+        FileDetailsApi saved = file("saved");
+        when(fileTransferStrategy.getDetails("saved")).thenReturn(Optional.of(saved));
+        when(fileTransferStrategy.getDetails("unsaved")).thenReturn(Optional.of(file("unsaved")));
+        when(statusRepository.upsertAll(any())).thenReturn(Set.of("unsaved"));
+
+        // When
+        List<BatchValidationResult> results = service.submit(List.of(request("saved", null), request("unsaved", null)));
+
+        // Then
+        assertThat(results.stream().map(BatchValidationResult::status).toList(), contains(200, 500));
+        verify(accountValidationStrategy, times(1)).startValidation(any(), any());
+        verify(accountValidationStrategy).startValidation(saved, new AccountsDetails());
+    }
+
+    @Test
+    @DisplayName("No file is sent to Felix when the statuses cannot be written at all")
+    void submitStatusWriteFails() throws XBRLValidationException {
+        // Given
+        when(fileTransferStrategy.getDetails(anyString())).thenReturn(Optional.of(file("a")));
+        when(statusRepository.upsertAll(any())).thenThrow(new RuntimeException("mongo down"));
+
+        // When
+        List<BatchValidationResult> results = service.submit(List.of(request("a", null), request("b", null)));
+
+        // Then
+        assertThat(results.stream().map(BatchValidationResult::status).toList(), contains(500, 500));
+        verify(accountValidationStrategy, never()).startValidation(any(), any());
+    }
+
+    @Test
+    @DisplayName("Files larger than the platform maximum are rejected without a status or a call to Felix")
+    void submitTooLarge() throws XBRLValidationException {
+        // Given
+        FileDetailsApi small = file("small");
+        FileDetailsApi large = file("large");
+        when(small.getSize()).thenReturn(1024L * 1024);
+        when(large.getSize()).thenReturn(1024L * 1024 + 1);
+        when(fileTransferStrategy.getDetails("small")).thenReturn(Optional.of(small));
+        when(fileTransferStrategy.getDetails("large")).thenReturn(Optional.of(large));
+        when(statusRepository.upsertAll(any())).thenReturn(Set.of());
+
+        // When
+        List<BatchValidationResult> results = service.submit(List.of(request("small", null), request("large", null)));
+
+        // Then
+        assertThat(results.stream().map(BatchValidationResult::status).toList(), contains(200, 413));
+        verify(statusRepository).upsertAll(statusesCaptor.capture());
+        assertThat(statusesCaptor.getValue().stream().map(RequestStatus::fileId).toList(), contains("small"));
+        verify(accountValidationStrategy, never()).startValidation(eq(large), any());
+    }
+
+    private void doNothingFor(FileDetailsApi file) throws XBRLValidationException {
+        doNothing().when(accountValidationStrategy)
+                .startValidation(eq(file), any());
+    }
+
+    private static ValidationRequest request(String fileId, PackageTypeApi packageType) {
+        ValidationRequest request = mock(ValidationRequest.class);
+        when(request.getId()).thenReturn(fileId);
+        lenient().when(request.getPackageType()).thenReturn(packageType);
+        return request;
+    }
+
+    private static FileDetailsApi file(String fileId) {
+        FileDetailsApi file = mock(FileDetailsApi.class);
+        lenient().when(file.getName()).thenReturn(fileId + ".xhtml");
+        return file;
+    }
+}
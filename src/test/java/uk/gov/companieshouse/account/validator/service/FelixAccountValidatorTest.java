@@ -3,6 +3,7 @@ package uk.gov.companieshouse.account.validator.service;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -17,15 +18,20 @@ import org.springframework.web.client.RestTemplate;
 
 import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
 import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
 import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
 import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
 import uk.gov.companieshouse.api.handler.felixvalidator.PrivateFelixValidatorResourceHandler;
 import uk.gov.companieshouse.api.handler.felixvalidator.request.PrivateModelFelixValidatorValidateAsync;
 import uk.gov.companieshouse.api.model.felixvalidator.AsyncValidationRequestApi;
 import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
+import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 import uk.gov.companieshouse.logging.Logger;
 
+import java.time.LocalDateTime;
+
 @ExtendWith(MockitoExtension.class)
 class FelixAccountValidatorTest {
 
@@ -61,7 +67,8 @@ class FelixAccountValidatorTest {
 
     @BeforeEach
     void beforeEach() {
-        felixAccountValidator = new FelixAccountValidator(logger, statusRepository, restTemplate, felixClient, requestStatusFactory);
+        felixAccountValidator = new FelixAccountValidator(logger, statusRepository, restTemplate, felixClient, requestStatusFactory,
+                "http://internal-api", "http://felix");
     }
 
     @Test
@@ -75,6 +82,8 @@ class FelixAccountValidatorTest {
         verify(felixClient, times(1)).validateAsync(asyncValidationRequestApiCaptor.capture());
         assertEquals("null", asyncValidationRequestApiCaptor.getValue().getFileId());
         assertEquals(PackageTypeApi.UKSEF, asyncValidationRequestApiCaptor.getValue().getPackageType());
+        assertEquals("http://internal-api/account-validator/validate/null",
+                asyncValidationRequestApiCaptor.getValue().getCallbackUrl());
     }
 
     @Test
@@ -90,6 +99,22 @@ class FelixAccountValidatorTest {
         assertEquals(null, asyncValidationRequestApiCaptor.getValue().getPackageType());
     }
 
+    @Test
+    @DisplayName("Saving results writes the status in a single upsert without reading it first")
+    void saveResultsUpserts() {
+        Results results = new Results();
+        results.setValidationStatus(ValidationStatusApi.OK);
+        RequestStatus status = new RequestStatus("fileId", null, RequestStatus.STATE_COMPLETE, results,
+                LocalDateTime.now(), LocalDateTime.now());
+        when(requestStatusFactory.fromResults("fileId", results, null)).thenReturn(status);
+        when(statusRepository.upsert(status)).thenReturn(status);
+
+        felixAccountValidator.saveResults("fileId", results);
+
+        verify(statusRepository).upsert(status);
+        verifyNoMoreInteractions(statusRepository);
+    }
+
 //    private FelixAccountValidator underTest;
 //
 //    private MockRestServiceServer mockServer;
@@ -0,0 +1,126 @@
+package uk.gov.companieshouse.account.validator.service.concurrent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    @DisplayName("Callers asking for a key already in flight share its result")
+    void sharesInFlightCall() throws Exception {
+        // Given
+        CompletableFuture<String> call = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        var first = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        var second = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        call.complete("result");
+
+        // Then
+        assertThat(first.get(), is("result"));
+        assertThat(second.get(), is("result"));
+        assertThat(calls.get(), is(1));
+        assertThat(singleFlight.getShared(), is(1L));
+        assertThat(singleFlight.getInFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("The result is shared once for every caller after the first")
+    void sharesResultWithEachJoiningCaller() throws Exception {
+        // Given
+        CompletableFuture<String> call = new CompletableFuture<>();
+        AtomicInteger shares = new AtomicInteger();
+        var first = singleFlight.execute("key", () -> call, result -> shares.incrementAndGet());
+        singleFlight.execute("key", () -> call, result -> shares.incrementAndGet());
+        singleFlight.execute("key", () -> call, result -> shares.incrementAndGet());
+
+        // When
+        call.complete("result");
+
+        // Then
+        assertThat(first.get(), is("result"));
+        assertThat(shares.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("A new call is started once the previous one has completed")
+    void forgetsCompletedCalls() throws Exception {
+        // Given
+        singleFlight.execute("key", () -> CompletableFuture.completedFuture("first")).get();
+
+        // When
+        var actual = singleFlight.execute("key", () -> CompletableFuture.completedFuture("second"));
+
+        // Then
+        assertThat(actual.get(), is("second"));
+        assertThat(singleFlight.getShared(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Failures are passed to every caller")
+    void sharesFailures() {
+        // Given
+        CompletableFuture<String> call = new CompletableFuture<>();
+        var first = singleFlight.execute("key", () -> call);
+        var second = singleFlight.execute("key", () -> call);
+
+        // When
+        call.completeExceptionally(new IllegalStateException("failed"));
+
+        // Then
+        ExecutionException firstFailure = assertThrows(ExecutionException.class, first::get);
+        ExecutionException secondFailure = assertThrows(ExecutionException.class, second::get);
+        assertThat(firstFailure.getCause(), instanceOf(IllegalStateException.class));
+        assertThat(secondFailure.getCause(), instanceOf(IllegalStateException.class));
+        assertThat(singleFlight.getInFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("A call that cannot be started fails the future and is forgotten")
+    void callThrows() {
+        // When
+        var actual = singleFlight.execute("key", () -> {
+            throw new IllegalStateException("failed");
+        });
+
+        // Then
+        ExecutionException failure = assertThrows(ExecutionException.class, actual::get);
+        assertThat(failure.getCause(), instanceOf(IllegalStateException.class));
+        assertThat(singleFlight.getInFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("One caller cancelling does not affect the others")
+    void cancelIsolated() throws Exception {
+        // Given
+        CompletableFuture<String> call = new CompletableFuture<>();
+        var first = singleFlight.execute("key", () -> call);
+        var second = singleFlight.execute("key", () -> call);
+
+        // When
+        first.cancel(true);
+        call.complete("result");
+
+        // Then
+        assertThat(first.isCancelled(), is(true));
+        assertThat(second.get(), is("result"));
+    }
+}
@@ -0,0 +1,187 @@
+package uk.gov.companieshouse.account.validator.service.dispatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.exceptionhandler.DispatchRejectedException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncAccountValidatorTest {
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private AccountValidationStrategy delegate;
+
+    @Mock
+    private RequestStatusRepository statusRepository;
+
+    @Mock
+    private RequestStatusFactory statusFactory;
+
+    private final AccountsDetails details = new AccountsDetails();
+
+    private AsyncAccountValidator validator;
+
+    @AfterEach
+    void tearDown() {
+        validator.close();
+    }
+
+    @Test
+    @DisplayName("A submitted file is sent to felix on the pool")
+    void startValidationSendsOnPool() throws XBRLValidationException {
+        // Given
+        validator = validator(AsyncAccountValidator.Overflow.REJECT);
+        FileDetailsApi file = file("fileId");
+
+        // When
+        validator.startValidation(file, details);
+
+        // Then
+        verify(delegate, timeout(5000)).startValidation(file, details);
+    }
+
+    @Test
+    @DisplayName("A file that fails to send has its status set to error")
+    void startValidationFailureSavesError() throws XBRLValidationException {
+        // Given
+        validator = validator(AsyncAccountValidator.Overflow.REJECT);
+        FileDetailsApi file = file("fileId");
+        RequestStatus error = mock(RequestStatus.class);
+        when(statusFactory.error("fileId")).thenReturn(error);
+        doThrow(new XBRLValidationException("felix down")).when(delegate).startValidation(file, details);
+
+        // When
+        validator.startValidation(file, details);
+
+        // Then
+        verify(statusRepository, timeout(5000)).upsert(error);
+        assertThat(validator.getFailed(), is(1L));
+    }
+
+    @Test
+    @DisplayName("A file submitted while the queue is full is rejected and its status set to error under the reject policy")
+    void startValidationRejectsWhenFull() throws Exception {
+        // Given
+        validator = validator(AsyncAccountValidator.Overflow.REJECT);
+        CountDownLatch release = fillPool();
+        FileDetailsApi third = file("third");
+        RequestStatus error = mock(RequestStatus.class);
+        when(statusFactory.error("third")).thenReturn(error);
+
+        // When
+        assertThrows(DispatchRejectedException.class, () -> validator.startValidation(third, details));
+
+        // Then
+        release.countDown();
+        assertThat(validator.getRejected(), is(1L));
+        verify(statusRepository).upsert(error);
+        verify(delegate, never()).startValidation(third, details);
+    }
+
+    @Test
+    @DisplayName("A file submitted while the queue is full is sent by the submitter under the caller runs policy")
+    void startValidationCallerRunsWhenFull() throws Exception {
+        // Given
+        validator = validator(AsyncAccountValidator.Overflow.CALLER_RUNS);
+        CountDownLatch release = fillPool();
+        FileDetailsApi third = file("third");
+
+        // When
+        validator.startValidation(third, details);
+
+        // Then
+        release.countDown();
+        verify(delegate).startValidation(third, details);
+        assertThat(validator.getCallerRuns(), is(1L));
+        assertThat(validator.getRejected(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Results are saved by the validator that sends files")
+    void saveResultsDelegates() {
+        // Given
+        validator = validator(AsyncAccountValidator.Overflow.REJECT);
+        Results results = new Results();
+
+        // When
+        validator.saveResults("fileId", results);
+
+        // Then
+        verify(delegate).saveResults("fileId", results);
+    }
+
+    @Test
+    @DisplayName("Overflow policies are parsed from their property values")
+    void parseOverflow() {
+        // Given
+        validator = validator(AsyncAccountValidator.Overflow.REJECT);
+
+        // Then
+        assertThat(AsyncAccountValidator.Overflow.parse("reject"), is(AsyncAccountValidator.Overflow.REJECT));
+        assertThat(AsyncAccountValidator.Overflow.parse("caller-runs"), is(AsyncAccountValidator.Overflow.CALLER_RUNS));
+    }
+
+    /**
+     * Blocks the only thread with one file and queues another behind it.
+     *
+     * @return released to let the blocked file finish
+     */
+    private CountDownLatch fillPool() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FileDetailsApi first = file("first");
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).startValidation(first, details);
+
+        validator.startValidation(first, details);
+        started.await(5, TimeUnit.SECONDS);
+        validator.startValidation(file("second"), details);
+        assertThat(validator.getQueueDepth(), is(1));
+        return release;
+    }
+
+    private AsyncAccountValidator validator(AsyncAccountValidator.Overflow overflow) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1));
+        return new AsyncAccountValidator(logger, delegate, statusRepository, statusFactory, executor, overflow);
+    }
+
+    private static FileDetailsApi file(String id) {
+        return new FileDetailsApi(id, null, null, null, 0L, "accounts.zip", null, null);
+    }
+}
@@ -0,0 +1,175 @@
+package uk.gov.companieshouse.account.validator.service.dispatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FelixUnavailableException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class FelixDispatcherTest {
+
+    private static final String FILE_ID = "fileId";
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private FelixDispatchRepository dispatchRepository;
+
+    @Mock
+    private AccountValidationStrategy felixValidator;
+
+    @Mock
+    private RequestStatusRepository statusRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private FelixDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new FelixDispatcher(logger, dispatchRepository, felixValidator, statusRepository,
+                new RequestStatusFactory(), mongoTemplate, 1, 500, 120, 3, 5, 10, 20);
+    }
+
+    @Test
+    @DisplayName("Claimed files are sent to felix until the queue is empty")
+    void drainSendsClaimedFiles() throws XBRLValidationException {
+        FelixDispatch claim = dispatch(1);
+        when(dispatchRepository.claimNext(any(), any()))
+                .thenReturn(Optional.of(claim), Optional.empty());
+        when(dispatchRepository.markSent(claim)).thenReturn(true);
+
+        assertThat(dispatcher.drain(), is(1));
+
+        verify(felixValidator).startValidation(argThat(file -> file.getId().equals(FILE_ID)),
+                eq(new AccountsDetails(PackageTypeApi.UKSEF, "00006400")));
+        verify(dispatchRepository).markSent(claim);
+    }
+
+    @Test
+    @DisplayName("A failed send is retried later")
+    void drainRetriesFailedSend() throws XBRLValidationException {
+        FelixDispatch claim = dispatch(1);
+        when(dispatchRepository.claimNext(any(), any()))
+                .thenReturn(Optional.of(claim), Optional.empty());
+        doThrow(new XBRLValidationException("felix down")).when(felixValidator).startValidation(any(), any());
+        when(dispatchRepository.retryLater(eq(claim), any(LocalDateTime.class), eq("felix down"))).thenReturn(true);
+
+        dispatcher.drain();
+
+        verify(dispatchRepository).retryLater(eq(claim), any(LocalDateTime.class), eq("felix down"));
+        verify(dispatchRepository, never()).markSent(any());
+        verify(statusRepository, never()).upsert(any());
+    }
+
+    @Test
+    @DisplayName("A file is marked failed and its status errored after the last attempt")
+    void drainGivesUpAfterMaxAttempts() throws XBRLValidationException {
+        FelixDispatch claim = dispatch(3);
+        when(dispatchRepository.claimNext(any(), any()))
+                .thenReturn(Optional.of(claim), Optional.empty());
+        doThrow(new XBRLValidationException("felix down")).when(felixValidator).startValidation(any(), any());
+        when(dispatchRepository.markFailed(claim, "felix down")).thenReturn(true);
+
+        dispatcher.drain();
+
+        verify(dispatchRepository).markFailed(claim, "felix down");
+        verify(statusRepository).upsert(argThat(status ->
+                status.fileId().equals(FILE_ID) && status.status().equals(RequestStatus.STATE_ERROR)));
+    }
+
+    @Test
+    @DisplayName("The status is left alone when the file was queued again before the last attempt failed")
+    void drainGivesUpAfterClaimLost() throws XBRLValidationException {
+        FelixDispatch claim = dispatch(3);
+        when(dispatchRepository.claimNext(any(), any()))
+                .thenReturn(Optional.of(claim), Optional.empty());
+        doThrow(new XBRLValidationException("felix down")).when(felixValidator).startValidation(any(), any());
+        when(dispatchRepository.markFailed(claim, "felix down")).thenReturn(false);
+
+        dispatcher.drain();
+
+        verify(statusRepository, never()).upsert(any());
+    }
+
+    @Test
+    @DisplayName("A file refused because felix is unavailable goes back on the queue and draining stops")
+    void drainStopsWhenFelixUnavailable() throws XBRLValidationException {
+        FelixDispatch claim = dispatch(1);
+        when(dispatchRepository.claimNext(any(), any())).thenReturn(Optional.of(claim));
+        doThrow(new FelixUnavailableException("breaker open", Duration.ofSeconds(30)))
+                .when(felixValidator).startValidation(any(), any());
+        when(dispatchRepository.release(eq(claim), any(LocalDateTime.class))).thenReturn(true);
+
+        assertThat(dispatcher.drain(), is(1));
+
+        verify(dispatchRepository).release(eq(claim), any(LocalDateTime.class));
+        verify(dispatchRepository, never()).retryLater(any(), any(), any());
+        verify(dispatchRepository, never()).markFailed(any(), any());
+    }
+
+    @Test
+    @DisplayName("The retry delay grows with each attempt up to the maximum")
+    void retryDelay() {
+        assertThat(dispatcher.retryDelay(1), is(Duration.ofSeconds(5)));
+        assertThat(dispatcher.retryDelay(2), is(Duration.ofSeconds(15)));
+        assertThat(dispatcher.retryDelay(3), is(Duration.ofSeconds(20)));
+    }
+
+    @Test
+    @DisplayName("A replayed file has its status set back to pending")
+    void replay() {
+        when(dispatchRepository.replay(eq(FILE_ID), any())).thenReturn(Optional.of(dispatch(0)));
+        when(statusRepository.upsert(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<RequestStatus> status = dispatcher.replay(FILE_ID);
+
+        assertThat(status.map(RequestStatus::status), is(Optional.of(RequestStatus.STATE_PENDING)));
+        assertThat(status.map(RequestStatus::fileName), is(Optional.of("accounts.zip")));
+    }
+
+    @Test
+    @DisplayName("A file that is not failed or stuck is not replayed")
+    void replayNotFound() {
+        when(dispatchRepository.replay(eq(FILE_ID), any())).thenReturn(Optional.empty());
+
+        assertThat(dispatcher.replay(FILE_ID), is(Optional.empty()));
+        verify(statusRepository, never()).upsert(any());
+    }
+
+    private static FelixDispatch dispatch(int attempts) {
+        LocalDateTime now = LocalDateTime.now();
+        return new FelixDispatch(FILE_ID, "accounts.zip", PackageTypeApi.UKSEF, "00006400",
+                FelixDispatch.STATE_SENDING, attempts, now, null, now, now);
+    }
+}
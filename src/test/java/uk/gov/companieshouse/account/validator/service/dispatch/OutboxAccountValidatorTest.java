@@ -0,0 +1,90 @@
+package uk.gov.companieshouse.account.validator.service.dispatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.model.felixvalidator.PackageTypeApi;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxAccountValidatorTest {
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private AccountValidationStrategy delegate;
+
+    @Mock
+    private FelixDispatchRepository dispatchRepository;
+
+    @Captor
+    private ArgumentCaptor<FelixDispatch> dispatchCaptor;
+
+    private OutboxAccountValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        validator = new OutboxAccountValidator(logger, delegate, dispatchRepository);
+    }
+
+    @Test
+    @DisplayName("A submitted file is queued instead of being sent to felix")
+    void startValidationQueuesFile() throws XBRLValidationException {
+        validator.startValidation(file(), new AccountsDetails(PackageTypeApi.CIC, "00006400"));
+
+        verify(dispatchRepository).enqueue(dispatchCaptor.capture());
+        assertThat(dispatchCaptor.getValue().fileId(), is("fileId"));
+        assertThat(dispatchCaptor.getValue().fileName(), is("accounts.zip"));
+        assertThat(dispatchCaptor.getValue().packageType(), is(PackageTypeApi.CIC));
+        assertThat(dispatchCaptor.getValue().companyNumber(), is("00006400"));
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    @DisplayName("A file that cannot be queued fails the submission")
+    void startValidationQueueFails() {
+        doThrow(new RuntimeException("mongo down")).when(dispatchRepository).enqueue(any());
+
+        assertThrows(XBRLValidationException.class, () -> validator.startValidation(file(), new AccountsDetails()));
+    }
+
+    @Test
+    @DisplayName("Results are saved by the validator that sends files")
+    void saveResultsDelegates() {
+        Results results = new Results();
+
+        validator.saveResults("fileId", results);
+
+        verify(delegate).saveResults("fileId", results);
+    }
+
+    private static FileDetailsApi file() {
+        FileDetailsApi file = mock(FileDetailsApi.class);
+        when(file.getId()).thenReturn("fileId");
+        when(file.getName()).thenReturn("accounts.zip");
+        return file;
+    }
+}
@@ -1,12 +1,10 @@
 package uk.gov.companieshouse.account.validator.service.factory.request.status;
 
-import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,7 +14,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
 import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
-import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
 import uk.gov.companieshouse.api.model.felixvalidator.ValidationStatusApi;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,51 +32,35 @@ public class requestStatusFactoryTest {
     @Mock
     Results result;
 
-    @Mock
-    LocalDateTime createTime;
-
-    @Mock
-    LocalDateTime localDateTime;
-
-    @Mock
-    RequestStatusRepository statusRepository;
-
     RequestStatusFactory requestStatusFactory;
 
     @BeforeEach
     public void before() {
-        requestStatusFactory = new RequestStatusFactory(statusRepository);
+        requestStatusFactory = new RequestStatusFactory();
     }
 
     @Test
     public void requestStatusCompleteTest() {
-        RequestStatus requestStatus = new RequestStatus(FILE_NAME, FILE_ID, COMPLETE, result, createTime, createTime);
-        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(requestStatus));
         RequestStatus resultStatus = requestStatusFactory.complete(FILE_ID, FILE_NAME, result);
         assertEquals(FILE_ID, resultStatus.fileId());
         assertEquals(FILE_NAME, resultStatus.fileName());
         assertEquals(result, resultStatus.result());
         assertEquals(COMPLETE, resultStatus.status());
-        assertEquals(createTime, resultStatus.createdDateTime());
-        assertNotEquals(createTime, resultStatus.updatedDateTime());
+        assertEquals(resultStatus.updatedDateTime(), resultStatus.createdDateTime());
     }
 
     @Test
     public void requestStatusErrorTest() {
-        RequestStatus requestStatus = new RequestStatus(FILE_NAME, FILE_ID, COMPLETE, result, createTime, createTime);
-        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(requestStatus));
         RequestStatus resultStatus = requestStatusFactory.error(FILE_ID);
         assertEquals(FILE_ID, resultStatus.fileId());
         assertEquals("", resultStatus.fileName());
         assertNull(resultStatus.result());
         assertEquals(ERROR, resultStatus.status());
-        assertEquals(createTime, resultStatus.createdDateTime());
-        assertNotEquals(createTime, resultStatus.updatedDateTime());
+        assertEquals(resultStatus.updatedDateTime(), resultStatus.createdDateTime());
     }
 
     @Test
     public void requestStatusPendingTest() {
-        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.empty());
         RequestStatus resultStatus = requestStatusFactory.pending(FILE_ID, FILE_NAME, ValidationStatusApi.SENT_TO_TNDP);
         assertEquals(FILE_ID, resultStatus.fileId());
         assertEquals(FILE_NAME, resultStatus.fileName());
@@ -90,20 +71,6 @@ public class requestStatusFactoryTest {
         assertEquals(resultStatus.updatedDateTime(), resultStatus.createdDateTime());
     }
 
-    @Test
-    public void requestStatusPendingWithExistingUpdatedDateTimeTest() {
-        RequestStatus requestStatus = new RequestStatus(FILE_NAME, FILE_ID, PENDING, result, createTime, createTime);
-        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(requestStatus));
-        RequestStatus resultStatus = requestStatusFactory.pending(FILE_ID, FILE_NAME, ValidationStatusApi.SENT_TO_TNDP);
-        assertEquals(FILE_ID, resultStatus.fileId());
-        assertEquals(FILE_NAME, resultStatus.fileName());
-        assertEquals(ValidationStatusApi.SENT_TO_TNDP, resultStatus.result().getValidationStatus());
-        assertEquals(PENDING, resultStatus.status());
-        assertEquals(LocalDateTime.class, resultStatus.createdDateTime().getClass());
-        assertEquals(LocalDateTime.class, resultStatus.updatedDateTime().getClass());
-        assertNotEquals(resultStatus.updatedDateTime(), resultStatus.createdDateTime());
-    }
-
     @Test
     public void requestStatusFromResultsPending() {
         when(result.getValidationStatus()).thenReturn(ValidationStatusApi.SENT_TO_TNDP);
@@ -120,42 +87,33 @@ public class requestStatusFactoryTest {
     @Test
     public void requestStatusFromResultsOK() {
         when(result.getValidationStatus()).thenReturn(ValidationStatusApi.OK);
-        RequestStatus requestStatus = new RequestStatus(FILE_NAME, FILE_ID, COMPLETE, result, createTime, createTime);
-        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(requestStatus));
         RequestStatus resultStatus = requestStatusFactory.fromResults(FILE_ID, result, FILE_NAME);
         assertEquals(FILE_ID, resultStatus.fileId());
         assertEquals(FILE_NAME, resultStatus.fileName());
         assertEquals(result, resultStatus.result());
         assertEquals(COMPLETE, resultStatus.status());
-        assertEquals(createTime, resultStatus.createdDateTime());
-        assertNotEquals(createTime, resultStatus.updatedDateTime());
+        assertEquals(resultStatus.updatedDateTime(), resultStatus.createdDateTime());
     }
 
     @Test
     public void requestStatusFromResultsERROR() {
         when(result.getValidationStatus()).thenReturn(ValidationStatusApi.ERROR);
-        RequestStatus requestStatus = new RequestStatus(FILE_NAME, FILE_ID, COMPLETE, result, createTime, createTime);
-        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(requestStatus));
         RequestStatus resultStatus = requestStatusFactory.fromResults(FILE_ID, result, FILE_NAME);
         assertEquals(FILE_ID, resultStatus.fileId());
         assertEquals("", resultStatus.fileName());
         assertNull(resultStatus.result());
         assertEquals(ERROR, resultStatus.status());
-        assertEquals(createTime, resultStatus.createdDateTime());
-        assertNotEquals(createTime, resultStatus.updatedDateTime());
+        assertEquals(resultStatus.updatedDateTime(), resultStatus.createdDateTime());
     }
 
     @Test
     public void requestStatusFromResultsFAILED() {
         when(result.getValidationStatus()).thenReturn(ValidationStatusApi.FAILED);
-        RequestStatus requestStatus = new RequestStatus(FILE_NAME, FILE_ID, COMPLETE, result, createTime, createTime);
-        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(requestStatus));
         RequestStatus resultStatus = requestStatusFactory.fromResults(FILE_ID, result, FILE_NAME);
         assertEquals(FILE_ID, resultStatus.fileId());
         assertEquals(FILE_NAME, resultStatus.fileName());
         assertEquals(result, resultStatus.result());
         assertEquals(COMPLETE, resultStatus.status());
-        assertEquals(createTime, resultStatus.createdDateTime());
-        assertNotEquals(createTime, resultStatus.updatedDateTime());
+        assertEquals(resultStatus.updatedDateTime(), resultStatus.createdDateTime());
     }
 }
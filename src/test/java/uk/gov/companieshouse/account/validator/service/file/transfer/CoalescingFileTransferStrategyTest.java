@@ -0,0 +1,206 @@
+package uk.gov.companieshouse.account.validator.service.file.transfer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.exceptionhandler.ResponseException;
+import uk.gov.companieshouse.account.validator.model.File;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingFileTransferStrategyTest {
+
+    private static final String FILE_ID = "fileId";
+
+    @Mock
+    private FileTransferStrategy fileTransferStrategy;
+
+    private CoalescingFileTransferStrategy coalescing;
+
+    @BeforeEach
+    void setUp() {
+        coalescing = new CoalescingFileTransferStrategy(fileTransferStrategy);
+    }
+
+    @Test
+    @DisplayName("Concurrent async downloads of the same file share one download")
+    void getAsyncCoalesced() throws Exception {
+        // Given
+        CompletableFuture<Optional<File>> download = new CompletableFuture<>();
+        File file = new File(FILE_ID, "accounts.zip", new byte[]{1});
+        when(fileTransferStrategy.getAsync(FILE_ID)).thenReturn(download);
+
+        // When
+        var first = coalescing.getAsync(FILE_ID);
+        var second = coalescing.getAsync(FILE_ID);
+        download.complete(Optional.of(file));
+
+        // Then
+        assertThat(first.get().orElseThrow(), is(sameInstance(file)));
+        assertThat(second.get().orElseThrow(), is(sameInstance(file)));
+        verify(fileTransferStrategy, times(1)).getAsync(FILE_ID);
+        assertThat(coalescing.getCoalescedDownloads(), is(1L));
+    }
+
+    @Test
+    @DisplayName("A shared download is kept until every caller has closed it")
+    void getAsyncRetainsSharedFile() throws Exception {
+        // Given
+        CompletableFuture<Optional<File>> download = new CompletableFuture<>();
+        File file = File.of(FILE_ID, "accounts.zip", new byte[]{1, 2}, 1);
+        when(fileTransferStrategy.getAsync(FILE_ID)).thenReturn(download);
+        var first = coalescing.getAsync(FILE_ID);
+        var second = coalescing.getAsync(FILE_ID);
+        download.complete(Optional.of(file));
+
+        // When
+        first.get().orElseThrow().close();
+
+        // Then
+        assertThat(second.get().orElseThrow().getData(), is(new byte[]{1, 2}));
+        second.get().orElseThrow().close();
+        assertThrows(IllegalStateException.class, file::retain);
+    }
+
+    @Test
+    @DisplayName("A caller that cancels its download has its share of the file closed for it")
+    void getAsyncCancelledClosesShare() throws Exception {
+        // Given
+        CompletableFuture<Optional<File>> download = new CompletableFuture<>();
+        File file = File.of(FILE_ID, "accounts.zip", new byte[]{1, 2}, 1);
+        when(fileTransferStrategy.getAsync(FILE_ID)).thenReturn(download);
+        var first = coalescing.getAsync(FILE_ID);
+        var second = coalescing.getAsync(FILE_ID);
+
+        // When
+        first.cancel(true);
+        download.complete(Optional.of(file));
+
+        // Then
+        assertThat(second.get().orElseThrow().getData(), is(new byte[]{1, 2}));
+        second.get().orElseThrow().close();
+        assertThrows(IllegalStateException.class, file::retain);
+    }
+
+    @Test
+    @DisplayName("A blocking download joins an async download of the same file already in flight")
+    void getJoinsAsync() throws Exception {
+        // Given
+        CompletableFuture<Optional<File>> download = new CompletableFuture<>();
+        File file = new File(FILE_ID, "accounts.zip", new byte[]{1});
+        when(fileTransferStrategy.getAsync(FILE_ID)).thenReturn(download);
+        coalescing.getAsync(FILE_ID);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            Future<Optional<File>> actual = executor.submit(() -> coalescing.get(FILE_ID));
+            while (coalescing.getCoalescedDownloads() == 0) {
+                Thread.onSpinWait();
+            }
+            download.complete(Optional.of(file));
+
+            // Then
+            assertThat(actual.get(5, TimeUnit.SECONDS).orElseThrow(), is(sameInstance(file)));
+            verify(fileTransferStrategy, never()).get(FILE_ID);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent blocking downloads of the same file share one download")
+    void getCoalesced() throws Exception {
+        // Given
+        CountDownLatch downloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        File file = new File(FILE_ID, "accounts.zip", new byte[]{1});
+        when(fileTransferStrategy.get(FILE_ID)).thenAnswer(invocation -> {
+            downloading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(file);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<Optional<File>> first = executor.submit(() -> coalescing.get(FILE_ID));
+            downloading.await(5, TimeUnit.SECONDS);
+            Future<Optional<File>> second = executor.submit(() -> coalescing.get(FILE_ID));
+            while (coalescing.getCoalescedDownloads() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS).orElseThrow(), is(sameInstance(file)));
+            assertThat(second.get(5, TimeUnit.SECONDS).orElseThrow(), is(sameInstance(file)));
+            verify(fileTransferStrategy, times(1)).get(FILE_ID);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A failed download is rethrown as the exception it failed with")
+    void getFailure() {
+        // Given
+        ResponseException failure = new ResponseException();
+        when(fileTransferStrategy.get(FILE_ID)).thenThrow(failure);
+
+        // When
+        ResponseException actual = assertThrows(ResponseException.class, () -> coalescing.get(FILE_ID));
+
+        // Then
+        assertThat(actual, is(sameInstance(failure)));
+    }
+
+    @Test
+    @DisplayName("Details are fetched again once the previous request has completed")
+    void getDetailsNotCached() {
+        // Given
+        FileDetailsApi details = new FileDetailsApi(FILE_ID, "avTimestamp", AvStatus.CLEAN, "contentType", 100L,
+                "accounts.zip", "createdOn", null);
+        when(fileTransferStrategy.getDetails(FILE_ID)).thenReturn(Optional.of(details));
+
+        // When
+        coalescing.getDetails(FILE_ID);
+        var actual = coalescing.getDetails(FILE_ID);
+
+        // Then
+        assertThat(actual.orElseThrow(), is(sameInstance(details)));
+        verify(fileTransferStrategy, times(2)).getDetails(FILE_ID);
+        assertThat(coalescing.getCoalescedDetails(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Deletes are passed straight through")
+    void delete() {
+        // When
+        coalescing.delete(FILE_ID);
+
+        // Then
+        verify(fileTransferStrategy).delete(FILE_ID);
+    }
+}
@@ -7,9 +7,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FileTooLargeException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.ResponseException;
 import uk.gov.companieshouse.account.validator.exceptionhandler.UriValidationException;
 import uk.gov.companieshouse.account.validator.model.File;
+import uk.gov.companieshouse.account.validator.service.retry.AsyncRetryStrategy;
 import uk.gov.companieshouse.account.validator.service.retry.RetryException;
 import uk.gov.companieshouse.account.validator.service.retry.RetryStrategy;
 import uk.gov.companieshouse.api.InternalApiClient;
@@ -28,6 +31,9 @@ import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.sdk.manager.ApiSdkManager;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -38,8 +44,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -55,6 +63,12 @@ class FileTransferServiceTest {
     @Mock
     private RetryStrategy retryStrategy;
 
+    @Mock
+    private AsyncRetryStrategy asyncRetryStrategy;
+
+    @Mock
+    private Executor executor;
+
     @Mock
     private InternalFileTransferClient mockClient;
 
@@ -104,10 +118,138 @@ class FileTransferServiceTest {
         }
     }
 
+    @Test
+    @DisplayName("Get a file asynchronously using the file transfer API")
+    void getAsyncHappyPath() throws Exception {
+        // given
+        var data = "Hello World!".getBytes();
+        FileDetailsApi fileDetailsApi = new FileDetailsApi(TEST_FILE_ID, "avTimestamp", AvStatus.CLEAN, "contentType", 100L, TEST_FILE_NAME_ZIP, "createdOn", null);
+        FileApi fileApi = new FileApi(TEST_FILE_NAME_ZIP, data, "mimeType", 100, "extension");
+        ApiResponse<FileDetailsApi> detailsResponse = new ApiResponse<>(200, null, fileDetailsApi);
+        ApiResponse<FileApi> downloadResponse = new ApiResponse<>(200, null, fileApi);
+
+        when(asyncRetryStrategy.attemptAsync(any())).thenAnswer(a ->
+                CompletableFuture.completedFuture(a.getArgument(0, Supplier.class).get()));
+        doAnswer(a -> {
+            a.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).execute(any());
+
+        PrivateFileTransferGetDetails mockDetails = mock(PrivateFileTransferGetDetails.class);
+        PrivateFileTransferDownload mockDownload = mock(PrivateFileTransferDownload.class);
+        setupMockClient();
+        when(mockClient.privateFileTransferHandler()).thenReturn(mockHandler);
+        when(mockHandler.details(anyString())).thenReturn(mockDetails);
+        when(mockDetails.execute()).thenReturn(detailsResponse);
+        when(mockHandler.download(anyString())).thenReturn(mockDownload);
+        when(mockDownload.execute()).thenReturn(downloadResponse);
+
+        // when
+        Optional<File> maybeFile = fileTransferService.getAsync(TEST_FILE_ID).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertTrue(maybeFile.isPresent());
+        assertThat(maybeFile.get().getName(), is(equalTo(TEST_FILE_NAME_ZIP)));
+        assertThat(maybeFile.get().getData(), is(equalTo(data)));
+    }
+
+    @Test
+    @DisplayName("Cancelling an async download stops polling for the file")
+    void getAsyncCancelled() {
+        // given
+        CompletableFuture<Optional<FileDetailsApi>> details = new CompletableFuture<>();
+        when(asyncRetryStrategy.attemptAsync(any())).thenReturn(details);
+
+        // when
+        fileTransferService.getAsync(TEST_FILE_ID).cancel(true);
+
+        // then
+        assertTrue(details.isCancelled());
+        verify(executor, never()).execute(any());
+    }
+
+    @Test
+    @DisplayName("Attempt to get a file asynchronously that isn't available")
+    void getAsyncFileNotFound() throws Exception {
+        // given
+        ApiResponse<FileDetailsApi> detailsResponse = new ApiResponse<>(404, null, null);
+
+        when(asyncRetryStrategy.attemptAsync(any())).thenAnswer(a ->
+                CompletableFuture.completedFuture(a.getArgument(0, Supplier.class).get()));
+        doAnswer(a -> {
+            a.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).execute(any());
+
+        PrivateFileTransferGetDetails mockDetails = mock(PrivateFileTransferGetDetails.class);
+        setupMockClient();
+        when(mockClient.privateFileTransferHandler()).thenReturn(mockHandler);
+        when(mockHandler.details(anyString())).thenReturn(mockDetails);
+        when(mockDetails.execute()).thenReturn(detailsResponse);
+
+        // when
+        Optional<File> maybeFile = fileTransferService.getAsync(TEST_FILE_ID).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertTrue(maybeFile.isEmpty());
+    }
+
     private void setupMockClient() {
         when(internalApiClientSupplier.get()).thenReturn(mockClient);
     }
 
+    @Test
+    @DisplayName("A file declared larger than the platform maximum is rejected without downloading it")
+    void getFileTooLarge() throws ApiErrorResponseException, URIValidationException {
+        // given
+        ReflectionTestUtils.setField(fileTransferService, "maxSizeMb", 1L);
+        FileDetailsApi fileDetailsApi = new FileDetailsApi(TEST_FILE_ID, "avTimestamp", AvStatus.CLEAN, "contentType", 1024L * 1024 + 1, TEST_FILE_NAME_ZIP, "createdOn", null);
+        ApiResponse<FileDetailsApi> detailsResponse = new ApiResponse<>(200, null, fileDetailsApi);
+
+        setupRetryStrategy();
+        PrivateFileTransferGetDetails mockDetails = mock(PrivateFileTransferGetDetails.class);
+        setupMockClient();
+        when(mockClient.privateFileTransferHandler()).thenReturn(mockHandler);
+        when(mockHandler.details(anyString())).thenReturn(mockDetails);
+        when(mockDetails.execute()).thenReturn(detailsResponse);
+
+        // when
+        FileTooLargeException actual = assertThrows(FileTooLargeException.class,
+                () -> fileTransferService.get(TEST_FILE_ID));
+
+        // then
+        assertThat(actual.getLimit(), is(1024L * 1024));
+        verify(mockHandler, never()).download(anyString());
+    }
+
+    @Test
+    @DisplayName("A download larger than the platform maximum is rejected even if its details were not")
+    void getDownloadTooLarge() throws ApiErrorResponseException, URIValidationException {
+        // given
+        ReflectionTestUtils.setField(fileTransferService, "maxSizeMb", 1L);
+        FileDetailsApi fileDetailsApi = new FileDetailsApi(TEST_FILE_ID, "avTimestamp", AvStatus.CLEAN, "contentType", 100L, TEST_FILE_NAME_ZIP, "createdOn", null);
+        FileApi fileApi = new FileApi(TEST_FILE_NAME_ZIP, new byte[1024 * 1024 + 1], "mimeType", 100, "extension");
+        ApiResponse<FileDetailsApi> detailsResponse = new ApiResponse<>(200, null, fileDetailsApi);
+        ApiResponse<FileApi> downloadResponse = new ApiResponse<>(200, null, fileApi);
+
+        setupRetryStrategy();
+        PrivateFileTransferGetDetails mockDetails = mock(PrivateFileTransferGetDetails.class);
+        PrivateFileTransferDownload mockDownload = mock(PrivateFileTransferDownload.class);
+        setupMockClient();
+        when(mockClient.privateFileTransferHandler()).thenReturn(mockHandler);
+        when(mockHandler.details(anyString())).thenReturn(mockDetails);
+        when(mockDetails.execute()).thenReturn(detailsResponse);
+        when(mockHandler.download(anyString())).thenReturn(mockDownload);
+        when(mockDownload.execute()).thenReturn(downloadResponse);
+
+        // when
+        FileTooLargeException actual = assertThrows(FileTooLargeException.class,
+                () -> fileTransferService.get(TEST_FILE_ID));
+
+        // then
+        assertThat(actual.getSize(), is(1024L * 1024 + 1));
+    }
+
     @Test
     @DisplayName("Attempt to get a file that isn't available")
     void getFileNotFound() throws ApiErrorResponseException, URIValidationException {
@@ -0,0 +1,101 @@
+package uk.gov.companieshouse.account.validator.service.guard;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class AimdConcurrencyLimiterTest {
+
+    private static final Duration THRESHOLD = Duration.ofMillis(100);
+
+    private AimdConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AimdConcurrencyLimiter(2, 1, 3, THRESHOLD, 0.5);
+    }
+
+    @Test
+    @DisplayName("Calls over the limit are refused once the wait is over")
+    void refusesOverLimit() throws InterruptedException {
+        assertThat(limiter.tryAcquire(Duration.ZERO), is(true));
+        assertThat(limiter.tryAcquire(Duration.ZERO), is(true));
+        assertThat(limiter.tryAcquire(Duration.ofMillis(10)), is(false));
+
+        assertThat(limiter.getInFlight(), is(2));
+        assertThat(limiter.getRejected(), is(1L));
+    }
+
+    @Test
+    @DisplayName("Fast calls at the limit grow it by one, up to the maximum")
+    void growsOnFastCalls() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(Duration.ZERO);
+            limiter.tryAcquire(Duration.ZERO);
+            limiter.onSuccess(THRESHOLD.toNanos());
+            limiter.onSuccess(THRESHOLD.toNanos());
+        }
+
+        assertThat(limiter.getLimit(), is(3));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("Fast calls well under the limit do not grow it")
+    void idleDoesNotGrow() throws InterruptedException {
+        limiter = new AimdConcurrencyLimiter(3, 1, 10, THRESHOLD, 0.5);
+
+        limiter.tryAcquire(Duration.ZERO);
+        limiter.onSuccess(0);
+
+        assertThat(limiter.getLimit(), is(3));
+    }
+
+    @Test
+    @DisplayName("Slow and failed calls cut the limit, down to the minimum")
+    void shrinksOnSlowOrFailedCalls() throws InterruptedException {
+        limiter = new AimdConcurrencyLimiter(3, 1, 3, THRESHOLD, 0.5);
+
+        limiter.tryAcquire(Duration.ZERO);
+        limiter.onSuccess(THRESHOLD.toNanos() + 1);
+        assertThat(limiter.getLimit(), is(1));
+
+        limiter.tryAcquire(Duration.ZERO);
+        limiter.onFailure();
+        assertThat(limiter.getLimit(), is(1));
+    }
+
+    @Test
+    @DisplayName("A released place does not change the limit and wakes a waiting call")
+    void releaseWakesWaiter() throws InterruptedException {
+        limiter = new AimdConcurrencyLimiter(1, 1, 1, THRESHOLD, 0.5);
+        limiter.tryAcquire(Duration.ZERO);
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            limiter.release();
+        });
+        releaser.start();
+
+        assertThat(limiter.tryAcquire(Duration.ofSeconds(5)), is(true));
+        assertThat(limiter.getLimit(), is(1));
+        releaser.join();
+    }
+
+    @Test
+    @DisplayName("Limits out of order are rejected")
+    void invalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimiter(5, 1, 3, THRESHOLD, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimiter(2, 1, 3, THRESHOLD, 1.0));
+    }
+}
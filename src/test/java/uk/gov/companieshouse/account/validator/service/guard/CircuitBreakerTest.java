@@ -0,0 +1,126 @@
+package uk.gov.companieshouse.account.validator.service.guard;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private MutableClock clock;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T09:00:00Z"));
+        breaker = new CircuitBreaker(2, OPEN_DURATION, clock);
+    }
+
+    @Test
+    @DisplayName("The breaker opens after consecutive failures and refuses calls")
+    void opensAfterFailures() {
+        fail();
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        fail();
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.tryAcquirePermission(), is(false));
+        assertThat(breaker.getRetryAfter(), is(OPEN_DURATION));
+        assertThat(breaker.getRejected(), is(1L));
+    }
+
+    @Test
+    @DisplayName("A success resets the count of consecutive failures")
+    void successResetsFailures() {
+        fail();
+        breaker.tryAcquirePermission();
+        breaker.onSuccess();
+        fail();
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    @DisplayName("One trial call is let through once the breaker has been open long enough")
+    void halfOpenTrial() {
+        fail();
+        fail();
+        clock.advance(OPEN_DURATION);
+
+        assertThat(breaker.tryAcquirePermission(), is(true));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        assertThat(breaker.tryAcquirePermission(), is(false));
+
+        breaker.onSuccess();
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.tryAcquirePermission(), is(true));
+    }
+
+    @Test
+    @DisplayName("A failed trial call opens the breaker again")
+    void failedTrialReopens() {
+        fail();
+        fail();
+        clock.advance(OPEN_DURATION);
+
+        fail();
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.tryAcquirePermission(), is(false));
+    }
+
+    @Test
+    @DisplayName("A released trial lets another trial through")
+    void releasedTrial() {
+        fail();
+        fail();
+        clock.advance(OPEN_DURATION);
+        breaker.tryAcquirePermission();
+
+        breaker.release();
+
+        assertThat(breaker.tryAcquirePermission(), is(true));
+    }
+
+    private void fail() {
+        breaker.tryAcquirePermission();
+        breaker.onFailure();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package uk.gov.companieshouse.account.validator.service.guard;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.exceptionhandler.FelixUnavailableException;
+import uk.gov.companieshouse.account.validator.exceptionhandler.XBRLValidationException;
+import uk.gov.companieshouse.account.validator.model.content.AccountsDetails;
+import uk.gov.companieshouse.account.validator.service.AccountValidationStrategy;
+import uk.gov.companieshouse.api.error.ApiErrorResponseException;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+
+@ExtendWith(MockitoExtension.class)
+class GuardedAccountValidatorTest {
+
+    @Mock
+    private AccountValidationStrategy delegate;
+
+    @Mock
+    private FileDetailsApi file;
+
+    private AimdConcurrencyLimiter limiter;
+    private CircuitBreaker breaker;
+    private GuardedAccountValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AimdConcurrencyLimiter(1, 1, 2, Duration.ofSeconds(1), 0.5);
+        breaker = new CircuitBreaker(1, Duration.ofSeconds(30), Clock.systemUTC());
+        validator = new GuardedAccountValidator(delegate, limiter, breaker, Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("A file is sent and its place given back")
+    void sends() throws XBRLValidationException {
+        validator.startValidation(file, new AccountsDetails());
+
+        verify(delegate).startValidation(any(), any());
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    @DisplayName("A failed send is passed on and opens the breaker, after which files are refused")
+    void failureOpensBreaker() throws XBRLValidationException {
+        doThrow(new XBRLValidationException("felix down", apiError(503))).when(delegate).startValidation(any(), any());
+
+        assertThrows(XBRLValidationException.class, () -> validator.startValidation(file, new AccountsDetails()));
+        FelixUnavailableException e = assertThrows(FelixUnavailableException.class,
+                () -> validator.startValidation(file, new AccountsDetails()));
+
+        assertThat(e.getRetryAfter().isPositive(), is(true));
+        verify(delegate).startValidation(any(), any());
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("Felix refusing a bad file does not count against it")
+    void clientErrorKeepsBreakerClosed() throws XBRLValidationException {
+        doThrow(new XBRLValidationException("bad file", apiError(400))).when(delegate).startValidation(any(), any());
+
+        assertThrows(XBRLValidationException.class, () -> validator.startValidation(file, new AccountsDetails()));
+        assertThrows(XBRLValidationException.class, () -> validator.startValidation(file, new AccountsDetails()));
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("Server errors, I/O errors and timeouts count as Felix failures")
+    void felixFailures() {
+        assertThat(GuardedAccountValidator.isFelixFailure(new XBRLValidationException("x", apiError(500))), is(true));
+        assertThat(GuardedAccountValidator.isFelixFailure(new RuntimeException(new IOException())), is(true));
+        assertThat(GuardedAccountValidator.isFelixFailure(new SocketTimeoutException()), is(true));
+        assertThat(GuardedAccountValidator.isFelixFailure(new XBRLValidationException("x", apiError(422))), is(false));
+        assertThat(GuardedAccountValidator.isFelixFailure(new IllegalArgumentException()), is(false));
+    }
+
+    @Test
+    @DisplayName("A file is refused when the concurrency limit is reached")
+    void refusedAtLimit() throws InterruptedException {
+        limiter.tryAcquire(Duration.ZERO);
+
+        assertThrows(FelixUnavailableException.class, () -> validator.startValidation(file, new AccountsDetails()));
+
+        verifyNoInteractions(delegate);
+    }
+
+    private static ApiErrorResponseException apiError(int status) {
+        ApiErrorResponseException e = mock(ApiErrorResponseException.class);
+        when(e.getStatusCode()).thenReturn(status);
+        return e;
+    }
+}
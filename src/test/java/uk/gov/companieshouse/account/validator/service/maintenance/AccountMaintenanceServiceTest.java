@@ -1,7 +1,10 @@
 package uk.gov.companieshouse.account.validator.service.maintenance;
 
 import static org.junit.Assert.assertThrows;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,123 +13,198 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import uk.gov.companieshouse.account.validator.model.felix.ixbrl.Results;
+import uk.gov.companieshouse.account.validator.exceptionhandler.DeleteCompleteSubException;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionBatch;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionSummary;
+import uk.gov.companieshouse.account.validator.model.maintenance.MaintenanceCheckpoint;
 import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.repository.MaintenanceCheckpointRepository;
 import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
-import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
 import uk.gov.companieshouse.logging.Logger;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountMaintenanceServiceTest {
 
     @Mock
-    private FileTransferStrategy fileTransferStrategy;
+    private ParallelFileDeleter fileDeleter;
     @Mock
     private Logger logger;
     @Mock
     private RequestStatusRepository statusRepository;
+    @Mock
+    private MaintenanceCheckpointRepository checkpointRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private FelixDispatchRepository dispatchRepository;
+
+    @Captor
+    private ArgumentCaptor<MaintenanceCheckpoint> checkpointCaptor;
 
-    @InjectMocks
     private AccountMaintenanceService accountMaintenanceService;
 
     private final static LocalDate BOUNDARY_DATE = LocalDate.now().minusDays(30);
 
-    private static final List<String> STATUSES_TO_REMOVE = Arrays.asList(RequestStatus.STATE_COMPLETE,
-            RequestStatus.STATE_ERROR);
+    private static final int BATCH_SIZE = 3;
 
     @BeforeEach
     void before() {
+        accountMaintenanceService = new AccountMaintenanceService(logger, fileDeleter, statusRepository,
+                checkpointRepository, eventPublisher, dispatchRepository);
         ReflectionTestUtils.setField(accountMaintenanceService, "DAYS_TO_DELETE", 30);
+        ReflectionTestUtils.setField(accountMaintenanceService, "BATCH_SIZE", BATCH_SIZE);
     }
 
     @Test
-    @DisplayName("Deletes a file using the file transfer service")
+    @DisplayName("Deletes files and statuses a page at a time")
     void deleteFiles() {
         // Given
+        when(checkpointRepository.findById(AccountMaintenanceService.CHECKPOINT_TASK)).thenReturn(Optional.empty());
+        when(statusRepository.findIdsToRemove(eq(""), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(createRequestStatusList(0, 3));
+        when(statusRepository.findIdsToRemove(eq("mockId-2"), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(createRequestStatusList(3, 1));
+        when(statusRepository.findIdsToRemove(eq("mockId-3"), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        when(fileDeleter.delete(List.of("mockId-0", "mockId-1", "mockId-2")))
+                .thenReturn(summary(List.of("mockId-0", "mockId-2"), List.of(), List.of("mockId-1")));
+        when(fileDeleter.delete(List.of("mockId-3")))
+                .thenReturn(summary(List.of("mockId-3"), List.of(), List.of()));
 
         // When
-        when(statusRepository.findByUpdatedDateTimeLessThan(BOUNDARY_DATE))
-                .thenReturn(createRequestStatusList());
-        when(statusRepository.findByCreatedDateTimeIsNull()).thenReturn(
-                Collections.singletonList(new RequestStatus("mockId-null", "MockFilename",
-                        RequestStatus.STATE_COMPLETE,
-                        new Results(), null, null)));
-
-        accountMaintenanceService.deleteCompleteSubmissions();
+        DeletionSummary result = accountMaintenanceService.deleteCompleteSubmissions();
 
         // Then
-        verify(statusRepository, times(1)).findByUpdatedDateTimeLessThan(
-                BOUNDARY_DATE);
-        verify(fileTransferStrategy, times(7)).delete(anyString());
-        verify(statusRepository, times(7)).deleteById(anyString());
+        verify(statusRepository).deleteAllById(List.of("mockId-0", "mockId-2", "mockId-1"));
+        verify(statusRepository).deleteAllById(List.of("mockId-3"));
+        assertEquals(3, result.deleted());
+        assertEquals(1, result.skipped());
+        assertEquals(List.of(), result.failedIds());
+        verify(checkpointRepository, times(2)).save(checkpointCaptor.capture());
+        assertEquals("mockId-3", checkpointCaptor.getValue().lastFileId());
+        verify(checkpointRepository).deleteById(AccountMaintenanceService.CHECKPOINT_TASK);
+        verify(dispatchRepository).deleteFinished(BOUNDARY_DATE.atStartOfDay());
     }
 
     @Test
     @DisplayName("When there is no file to file")
     void noFilesToDelete() {
         // Given
+        when(checkpointRepository.findById(AccountMaintenanceService.CHECKPOINT_TASK)).thenReturn(Optional.empty());
+        when(statusRepository.findIdsToRemove(eq(""), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
 
         // When
-        when(statusRepository.findByUpdatedDateTimeLessThan(BOUNDARY_DATE))
-                .thenReturn(new ArrayList<>());
-        when(statusRepository.findByCreatedDateTimeIsNull())
+        accountMaintenanceService.deleteCompleteSubmissions();
+
+        // Then
+        verify(statusRepository, times(1)).findIdsToRemove(eq(""), eq(BOUNDARY_DATE), any(Pageable.class));
+        verify(fileDeleter, never()).delete(any());
+        verify(statusRepository, never()).deleteAllById(any());
+    }
+
+    @Test
+    @DisplayName("Resumes from the last checkpoint")
+    void resumeFromCheckpoint() {
+        // Given
+        when(checkpointRepository.findById(AccountMaintenanceService.CHECKPOINT_TASK)).thenReturn(Optional.of(
+                new MaintenanceCheckpoint(AccountMaintenanceService.CHECKPOINT_TASK, "mockId-2", LocalDateTime.now())));
+        when(statusRepository.findIdsToRemove(eq("mockId-2"), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        accountMaintenanceService.deleteCompleteSubmissions();
+
+        // Then
+        verify(statusRepository, never()).findIdsToRemove(eq(""), any(), any());
+        verify(checkpointRepository).deleteById(AccountMaintenanceService.CHECKPOINT_TASK);
+    }
+
+    @Test
+    @DisplayName("A failed file delete keeps its status and does not stop the run")
+    void fileDeleteFailureIsIsolated() {
+        // Given
+        when(checkpointRepository.findById(AccountMaintenanceService.CHECKPOINT_TASK)).thenReturn(Optional.empty());
+        when(statusRepository.findIdsToRemove(eq(""), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(createRequestStatusList(0, 3));
+        when(statusRepository.findIdsToRemove(eq("mockId-2"), eq(BOUNDARY_DATE), any(Pageable.class)))
                 .thenReturn(Collections.emptyList());
+        when(fileDeleter.delete(List.of("mockId-0", "mockId-1", "mockId-2")))
+                .thenReturn(summary(List.of("mockId-0", "mockId-2"), List.of("mockId-1"), List.of()));
 
+        // When
+        DeletionSummary result = accountMaintenanceService.deleteCompleteSubmissions();
+
+        // Then
+        verify(statusRepository).deleteAllById(List.of("mockId-0", "mockId-2"));
+        verify(eventPublisher).publishEvent(RequestStatusChangedEvent.removed("mockId-0"));
+        verify(eventPublisher).publishEvent(RequestStatusChangedEvent.removed("mockId-2"));
+        verify(eventPublisher, never()).publishEvent(RequestStatusChangedEvent.removed("mockId-1"));
+        assertEquals(1, result.failed());
+        assertEquals(List.of("mockId-1"), result.failedIds());
+        verify(checkpointRepository).deleteById(AccountMaintenanceService.CHECKPOINT_TASK);
+    }
+
+    @Test
+    @DisplayName("No status is removed when every file delete fails")
+    void allFileDeletesFail() {
+        // Given
+        when(checkpointRepository.findById(AccountMaintenanceService.CHECKPOINT_TASK)).thenReturn(Optional.empty());
+        when(statusRepository.findIdsToRemove(eq(""), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(createRequestStatusList(0, 1));
+        when(statusRepository.findIdsToRemove(eq("mockId-0"), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        when(fileDeleter.delete(List.of("mockId-0")))
+                .thenReturn(summary(List.of(), List.of("mockId-0"), List.of()));
+
+        // When
         accountMaintenanceService.deleteCompleteSubmissions();
 
         // Then
-        verify(statusRepository, times(1)).findByUpdatedDateTimeLessThan(
-                BOUNDARY_DATE);
-        verify(statusRepository, times(1)).findByCreatedDateTimeIsNull();
-        verify(fileTransferStrategy, times(0)).delete(anyString());
-        verify(statusRepository, times(0)).deleteById(anyString());
+        verify(statusRepository, never()).deleteAllById(any());
     }
 
     @Test
     @DisplayName("Throw DeleteCompleteSubException when Mongodb/ Aws S3 connection is impacted")
     void throwDeleteCompleteSubException() {
         // Given
+        when(checkpointRepository.findById(AccountMaintenanceService.CHECKPOINT_TASK)).thenReturn(Optional.empty());
+        when(statusRepository.findIdsToRemove(eq(""), eq(BOUNDARY_DATE), any(Pageable.class)))
+                .thenThrow(new RuntimeException());
 
         // When
-        when(statusRepository.findByUpdatedDateTimeLessThan(BOUNDARY_DATE))
-                .thenReturn(new ArrayList<>());
-        when(statusRepository.findByCreatedDateTimeIsNull())
-                .thenThrow(new RuntimeException());
+        assertThrows(DeleteCompleteSubException.class, () -> accountMaintenanceService.deleteCompleteSubmissions());
 
-        assertThrows(RuntimeException.class, () -> accountMaintenanceService.deleteCompleteSubmissions());
         // Then
-        verify(statusRepository, times(1)).findByCreatedDateTimeIsNull();
-        verify(statusRepository, times(1)).findByUpdatedDateTimeLessThan(
-                BOUNDARY_DATE);
-        verify(fileTransferStrategy, times(0)).delete(anyString());
-        verify(statusRepository, times(0)).deleteById(anyString());
+        verify(fileDeleter, never()).delete(any());
+        verify(statusRepository, never()).deleteAllById(any());
     }
 
-    private List<RequestStatus> createRequestStatusList() {
+    private DeletionBatch summary(List<String> deleted, List<String> failed, List<String> skipped) {
+        return new DeletionBatch(deleted, failed, skipped, 0, 0, 0);
+    }
+
+    private List<RequestStatus> createRequestStatusList(int from, int count) {
         List<RequestStatus> requestStatusList = new ArrayList<RequestStatus>();
-        for (int i = 0; i < 3; i++) {
-            LocalDateTime offsetDate = LocalDateTime.now().minusDays(31 + i);
-            RequestStatus completeRequestStatus = new RequestStatus("mockId-" + i, "MockFilename",
-                    RequestStatus.STATE_COMPLETE, new Results(), offsetDate, offsetDate);
-            requestStatusList.add(completeRequestStatus);
-        }
-        for (int i = 0; i < 3; i++) {
-            LocalDateTime offsetDate = LocalDateTime.now().minusDays(31 + i);
-            RequestStatus completeRequestStatus = new RequestStatus("mockId-" + i, "MockFilename",
-                    RequestStatus.STATE_ERROR, new Results(), offsetDate, offsetDate);
-            requestStatusList.add(completeRequestStatus);
+        for (int i = from; i < from + count; i++) {
+            requestStatusList.add(new RequestStatus("mockId-" + i, null, null, null, null, null));
         }
 
         return requestStatusList;
@@ -0,0 +1,123 @@
+package uk.gov.companieshouse.account.validator.service.maintenance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.exceptionhandler.ResponseException;
+import uk.gov.companieshouse.account.validator.model.maintenance.DeletionBatch;
+import uk.gov.companieshouse.account.validator.service.file.transfer.FileTransferStrategy;
+import uk.gov.companieshouse.api.error.ApiErrorResponseException;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelFileDeleterTest {
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private FileTransferStrategy fileTransferStrategy;
+
+    @Test
+    @DisplayName("Deleted, missing and failed files are reported separately")
+    void deleteSortsOutcomes() {
+        // Given
+        ParallelFileDeleter deleter = new ParallelFileDeleter(logger, fileTransferStrategy, Runnable::run, 2, 0);
+        ApiErrorResponseException notFound = mock(ApiErrorResponseException.class);
+        when(notFound.getStatusCode()).thenReturn(404);
+        doThrow(new ResponseException(notFound)).when(fileTransferStrategy).delete("missing");
+        RuntimeException failure = new RuntimeException("boom");
+        doThrow(failure).when(fileTransferStrategy).delete("broken");
+
+        // When
+        DeletionBatch batch = deleter.delete(List.of("one", "missing", "broken", "two"));
+
+        // Then
+        assertThat(batch.deleted(), containsInAnyOrder("one", "two"));
+        assertThat(batch.skipped(), containsInAnyOrder("missing"));
+        assertThat(batch.failed(), containsInAnyOrder("broken"));
+        assertThat(batch.maxDeleteMillis(), is(lessThanOrEqualTo(batch.deleteMillis())));
+        assertThat(batch.removable(), containsInAnyOrder("one", "two", "missing"));
+        verify(logger).errorContext(eq("broken"), anyString(), eq(failure), isNull());
+    }
+
+    @Test
+    @DisplayName("An empty list deletes nothing")
+    void deleteNothing() {
+        ParallelFileDeleter deleter = new ParallelFileDeleter(logger, fileTransferStrategy, Runnable::run, 2, 0);
+
+        DeletionBatch batch = deleter.delete(List.of());
+
+        assertThat(batch.deleted(), is(empty()));
+        assertThat(batch.failed(), is(empty()));
+        assertThat(batch.skipped(), is(empty()));
+    }
+
+    @Test
+    @DisplayName("No more than the configured number of deletes run at once")
+    void deleteRespectsConcurrency() {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return null;
+        }).when(fileTransferStrategy).delete(anyString());
+        ParallelFileDeleter deleter = new ParallelFileDeleter(logger, fileTransferStrategy, executor, 3, 0);
+
+        try {
+            // When
+            DeletionBatch batch = deleter.delete(List.of("a", "b", "c", "d", "e", "f", "g", "h"));
+
+            // Then
+            assertThat(batch.deleted().size(), is(8));
+            assertThat(maxInFlight.get(), is(lessThanOrEqualTo(3)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deletes are started no faster than the configured rate")
+    void deleteRespectsRate() {
+        // 20 per second is one every 50ms, so 5 deletes take at least 200ms
+        ParallelFileDeleter deleter = new ParallelFileDeleter(logger, fileTransferStrategy, Runnable::run, 5, 20);
+
+        DeletionBatch batch = deleter.delete(List.of("a", "b", "c", "d", "e"));
+
+        assertThat(batch.elapsedMillis(), is(greaterThanOrEqualTo(200L)));
+    }
+
+    @Test
+    @DisplayName("A concurrency below one is rejected")
+    void invalidConcurrency() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParallelFileDeleter(logger, fileTransferStrategy, Runnable::run, 0, 0));
+    }
+}
@@ -0,0 +1,130 @@
+package uk.gov.companieshouse.account.validator.service.maintenance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.model.dispatch.FelixDispatch;
+import uk.gov.companieshouse.account.validator.model.maintenance.ReconciliationSummary;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.repository.FelixDispatchRepository;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+import uk.gov.companieshouse.account.validator.service.factory.request.status.RequestStatusFactory;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class PendingStatusReconcilerTest {
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private RequestStatusRepository statusRepository;
+
+    @Mock
+    private FelixDispatchRepository dispatchRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PendingStatusReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reconciler = new PendingStatusReconciler(logger, statusRepository, dispatchRepository,
+                new RequestStatusFactory(), meterRegistry, 30, 24, 2, 0, 10);
+    }
+
+    @Test
+    @DisplayName("Orphans sent through the outbox are resubmitted and others are marked as error")
+    void reconcileOrphans() {
+        RequestStatus sent = pending("sent", LocalDateTime.now().minusHours(1));
+        RequestStatus direct = pending("direct", LocalDateTime.now().minusHours(1));
+        RequestStatus queued = pending("queued", LocalDateTime.now().minusHours(1));
+        RequestStatus expired = pending("expired", LocalDateTime.now().minusDays(2));
+        when(statusRepository.findStalePending(any(), isNull(), eq(2))).thenReturn(List.of(sent, direct));
+        when(statusRepository.findStalePending(any(), eq(direct), eq(2))).thenReturn(List.of(queued, expired));
+        when(statusRepository.findStalePending(any(), eq(expired), eq(2))).thenReturn(List.of());
+        when(dispatchRepository.findById("sent")).thenReturn(Optional.of(dispatch("sent", FelixDispatch.STATE_SENT)));
+        when(dispatchRepository.findById("direct")).thenReturn(Optional.empty());
+        when(dispatchRepository.findById("queued")).thenReturn(Optional.of(dispatch("queued", FelixDispatch.STATE_QUEUED)));
+        when(dispatchRepository.findById("expired")).thenReturn(Optional.of(dispatch("expired", FelixDispatch.STATE_SENT)));
+        when(statusRepository.replaceIfUnchanged(any(), any()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+
+        ReconciliationSummary summary = reconciler.reconcile();
+
+        assertThat(summary.scanned(), is(4));
+        assertThat(summary.resubmitted(), is(1));
+        assertThat(summary.errored(), is(2));
+        assertThat(summary.waiting(), is(1));
+        verify(dispatchRepository).enqueue(dispatch("sent", FelixDispatch.STATE_SENT));
+        verify(statusRepository).replaceIfUnchanged(eq(sent), argThat(status ->
+                status.status().equals(RequestStatus.STATE_PENDING)));
+        verify(statusRepository).replaceIfUnchanged(eq(direct), argThat(status ->
+                status.status().equals(RequestStatus.STATE_ERROR)));
+        verify(statusRepository).replaceIfUnchanged(eq(expired), argThat(status ->
+                status.status().equals(RequestStatus.STATE_ERROR)));
+        verify(statusRepository, never()).replaceIfUnchanged(eq(queued), any());
+        assertThat(meterRegistry.get("request.status.reconcile.orphans").summary().totalAmount(), is(3.0));
+    }
+
+    @Test
+    @DisplayName("A status that changed after it was read is not resubmitted")
+    void reconcileChangedStatus() {
+        RequestStatus sent = pending("sent", LocalDateTime.now().minusHours(1));
+        when(statusRepository.findStalePending(any(), isNull(), eq(2))).thenReturn(List.of(sent));
+        when(statusRepository.findStalePending(any(), eq(sent), eq(2))).thenReturn(List.of());
+        when(dispatchRepository.findById("sent")).thenReturn(Optional.of(dispatch("sent", FelixDispatch.STATE_SENT)));
+        when(statusRepository.replaceIfUnchanged(any(), any())).thenReturn(Optional.empty());
+
+        ReconciliationSummary summary = reconciler.reconcile();
+
+        assertThat(summary.orphans(), is(0));
+        verify(dispatchRepository, never()).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("A run stops after the maximum number of statuses")
+    void reconcileStopsAtMaximum() {
+        reconciler = new PendingStatusReconciler(logger, statusRepository, dispatchRepository,
+                new RequestStatusFactory(), meterRegistry, 30, 24, 2, 0, 2);
+        RequestStatus first = pending("first", LocalDateTime.now().minusHours(1));
+        RequestStatus second = pending("second", LocalDateTime.now().minusHours(1));
+        when(statusRepository.findStalePending(any(), isNull(), eq(2))).thenReturn(List.of(first, second));
+        when(statusRepository.replaceIfUnchanged(any(), any()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+
+        ReconciliationSummary summary = reconciler.reconcile();
+
+        assertThat(summary.scanned(), is(2));
+        verify(statusRepository, never()).findStalePending(any(), eq(second), anyInt());
+    }
+
+    private static RequestStatus pending(String fileId, LocalDateTime created) {
+        return new RequestStatus(fileId, fileId + ".zip", RequestStatus.STATE_PENDING, null, created,
+                LocalDateTime.now().minusHours(1));
+    }
+
+    private static FelixDispatch dispatch(String fileId, String state) {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 9, 0);
+        return new FelixDispatch(fileId, fileId + ".zip", null, null, state, 1, time, null, time, time);
+    }
+}
@@ -0,0 +1,214 @@
+package uk.gov.companieshouse.account.validator.service.render;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+class RenderCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Stored renders can be read back")
+    void storeAndOpen() throws IOException {
+        // Given
+        RenderCache cache = new RenderCache(directory, 100);
+
+        // When
+        RenderedPdf stored = cache.store("key", outputStream -> outputStream.write("pdf".getBytes()));
+
+        // Then
+        assertThat(stored.isCached(), is(true));
+        assertArrayEquals("pdf".getBytes(), read(stored));
+        assertArrayEquals("pdf".getBytes(), read(cache, "key"));
+        assertThat(cache.getSizeBytes(), is(3L));
+        assertThat(cache.getHits(), is(1L));
+    }
+
+    @Test
+    @DisplayName("Renders that are not cached are reported as misses")
+    void miss() {
+        // Given
+        RenderCache cache = new RenderCache(directory, 100);
+
+        // When
+        var actual = cache.open("key");
+
+        // Then
+        assertThat(actual.isEmpty(), is(true));
+        assertThat(cache.getMisses(), is(1L));
+    }
+
+    @Test
+    @DisplayName("The least recently used renders are evicted to keep within the byte budget")
+    void evictsLeastRecentlyUsed() throws IOException {
+        // Given
+        RenderCache cache = new RenderCache(directory, 10);
+        cache.store("a", outputStream -> outputStream.write(new byte[4])).close();
+        cache.store("b", outputStream -> outputStream.write(new byte[4])).close();
+        cache.open("a").orElseThrow().close();
+
+        // When
+        cache.store("c", outputStream -> outputStream.write(new byte[4])).close();
+
+        // Then
+        assertThat(cache.open("b").isEmpty(), is(true));
+        cache.open("a").orElseThrow().close();
+        cache.open("c").orElseThrow().close();
+        assertThat(cache.getEvictions(), is(1L));
+        assertThat(cache.getSizeBytes(), is(8L));
+        assertThat(Files.exists(directory.resolve("b.pdf")), is(false));
+    }
+
+    @Test
+    @DisplayName("A render evicted as soon as it is stored can still be read by its holder")
+    void evictedWhileOpen() throws IOException {
+        // Given
+        RenderCache cache = new RenderCache(directory, 4);
+
+        // When
+        RenderedPdf stored = cache.store("a", outputStream -> outputStream.write("pdf".getBytes()));
+        cache.store("b", outputStream -> outputStream.write("pdf".getBytes())).close();
+
+        // Then
+        assertThat(cache.open("a").isEmpty(), is(true));
+        assertArrayEquals("pdf".getBytes(), read(stored));
+    }
+
+    @Test
+    @DisplayName("Renders larger than the byte budget are not cached but can be read until closed")
+    void tooLarge() throws IOException {
+        // Given
+        RenderCache cache = new RenderCache(directory, 2);
+
+        // When
+        RenderedPdf stored = cache.store("key", outputStream -> outputStream.write("pdf".getBytes()));
+
+        // Then
+        assertThat(stored.isCached(), is(false));
+        assertThat(cache.getEntries(), is(0));
+        assertThat(cache.getOversize(), is(1L));
+        assertArrayEquals("pdf".getBytes(), read(stored));
+        assertThat(files(), is(empty()));
+    }
+
+    @Test
+    @DisplayName("A failed render leaves nothing behind")
+    void failedRender() throws IOException {
+        // Given
+        RenderCache cache = new RenderCache(directory, 100);
+
+        // When
+        assertThrows(UncheckedIOException.class, () -> cache.store("key", outputStream -> {
+            outputStream.write(1);
+            throw new IOException("renderer failed");
+        }));
+
+        // Then
+        assertThat(cache.getEntries(), is(0));
+        assertThat(files(), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Renders left by a previous run are reused and unfinished ones removed")
+    void reload() throws IOException {
+        // Given
+        new RenderCache(directory, 100).store("key", outputStream -> outputStream.write("pdf".getBytes())).close();
+        Files.write(directory.resolve("unfinished.tmp"), new byte[1]);
+
+        // When
+        RenderCache cache = new RenderCache(directory, 100);
+
+        // Then
+        assertArrayEquals("pdf".getBytes(), read(cache, "key"));
+        assertThat(Files.exists(directory.resolve("unfinished.tmp")), is(false));
+    }
+
+    @Test
+    @DisplayName("Keys depend on both the file id and its contents")
+    void key() throws IOException {
+        String key = RenderCache.key("fileId", new ByteArrayInputStream("one".getBytes()));
+
+        assertThat(RenderCache.key("fileId", new ByteArrayInputStream("one".getBytes())), is(key));
+        assertThat(RenderCache.key("fileId", new ByteArrayInputStream("two".getBytes())), is(not(key)));
+        assertThat(RenderCache.key("otherId", new ByteArrayInputStream("one".getBytes())), is(not(key)));
+    }
+
+    @Test
+    @DisplayName("Concurrent renders of the same file are only written once")
+    void storeOnce() throws Exception {
+        // Given
+        RenderCache cache = new RenderCache(directory, 100);
+        CountDownLatch rendering = new CountDownLatch(1);
+        AtomicInteger renders = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        RenderCache.PdfWriter writer = outputStream -> {
+            renders.incrementAndGet();
+            try {
+                rendering.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            outputStream.write("pdf".getBytes());
+        };
+
+        try {
+            // When
+            CompletableFuture<RenderedPdf> first = cache.storeOnce("key", writer, executor);
+            CompletableFuture<RenderedPdf> second = cache.storeOnce("key", writer, executor);
+            rendering.countDown();
+
+            // Then
+            assertArrayEquals("pdf".getBytes(), read(first.get(5, TimeUnit.SECONDS)));
+            assertArrayEquals("pdf".getBytes(), read(second.get(5, TimeUnit.SECONDS)));
+            assertThat(renders.get(), is(1));
+            assertThat(cache.getSharedRenders(), is(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] read(RenderCache cache, String key) throws IOException {
+        return read(cache.open(key).orElseThrow());
+    }
+
+    /**
+     * Reads and closes the render.
+     */
+    private static byte[] read(RenderedPdf pdf) throws IOException {
+        try (pdf) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            pdf.transferTo(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
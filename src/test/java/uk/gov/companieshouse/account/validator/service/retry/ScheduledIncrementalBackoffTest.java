@@ -0,0 +1,165 @@
+package uk.gov.companieshouse.account.validator.service.retry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+class ScheduledIncrementalBackoffTest {
+
+    ScheduledIncrementalBackoff retryStrategy;
+
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "attempt"));
+        retryStrategy = create(Duration.ofMillis(10), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        retryStrategy.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Attempts run on the executor rather than the scheduler")
+    void attemptRunsOnExecutor() throws Exception {
+        // Given
+        Supplier<String> fn = () -> Thread.currentThread().getName();
+
+        // When
+        String thread = retryStrategy.attemptAsync(fn).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(thread, is(equalTo("attempt")));
+    }
+
+    @Test
+    @DisplayName("Cancelling the attempt stops any further retries")
+    void cancel() throws Exception {
+        // Given
+        retryStrategy.close();
+        retryStrategy = create(Duration.ofMillis(200), Duration.ofSeconds(30));
+        CountDownLatch attempted = new CountDownLatch(1);
+        Supplier<Integer> fn = spy(new Supplier<>() {
+            @Override
+            public Integer get() {
+                attempted.countDown();
+                throw new RetryException();
+            }
+        });
+
+        // When
+        CompletableFuture<Integer> attempt = retryStrategy.attemptAsync(fn);
+        attempted.await(5, TimeUnit.SECONDS);
+        attempt.cancel(true);
+        Thread.sleep(500);
+
+        // Then
+        verify(fn, times(1)).get();
+    }
+
+    @Test
+    @DisplayName("Attempt completes with the value when not retrying")
+    void attemptHappyPath() throws Exception {
+        // Given
+        Supplier<Integer> fn = () -> 42;
+
+        // When
+        int value = retryStrategy.attemptAsync(fn).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(value, is(equalTo(42)));
+    }
+
+    @Test
+    @DisplayName("Retries when retry exception is thrown")
+    void retry() throws Exception {
+        // Given
+        Supplier<Integer> fn = spy(new Supplier<>() {
+            private int count = 0;
+
+            @Override
+            public Integer get() {
+                // Will retry first time and resolve the second.
+                if (count >= 1) return 42;
+                count += 1;
+                throw new RetryException();
+            }
+        });
+
+        // When
+        int value = retryStrategy.attemptAsync(fn).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(value, is(equalTo(42)));
+        verify(fn, times(2)).get();
+    }
+
+    @Test
+    @DisplayName("Completes exceptionally with a timeout after a certain time")
+    void timeout() {
+        // Given
+        retryStrategy.close();
+        retryStrategy = create(Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        Supplier<Integer> fn = () -> {
+            throw new RetryException();
+        };
+
+        // When
+        ExecutionException actual = assertThrows(ExecutionException.class,
+                () -> retryStrategy.attemptAsync(fn).get(5, TimeUnit.SECONDS));
+
+        // Then
+        assertThat(actual.getCause().getCause(), instanceOf(TimeoutException.class));
+    }
+
+    @Test
+    @DisplayName("Other exceptions complete the attempt without retrying")
+    void failure() {
+        // Given
+        IllegalStateException failure = new IllegalStateException();
+        Supplier<Integer> fn = spy(new Supplier<>() {
+            @Override
+            public Integer get() {
+                throw failure;
+            }
+        });
+
+        // When
+        ExecutionException actual = assertThrows(ExecutionException.class,
+                () -> retryStrategy.attemptAsync(fn).get(5, TimeUnit.SECONDS));
+
+        // Then
+        assertThat(actual.getCause(), is(failure));
+        verify(fn, times(1)).get();
+    }
+
+    private ScheduledIncrementalBackoff create(Duration delay, Duration timeout) {
+        return new ScheduledIncrementalBackoff(
+                new IncrementalBackoff(delay, delay, timeout, Duration.ofSeconds(10)),
+                Executors.newSingleThreadScheduledExecutor(), executor);
+    }
+}
@@ -0,0 +1,163 @@
+package uk.gov.companieshouse.account.validator.service.status;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.model.validation.ValidationResponse;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class RequestStatusCacheTest {
+
+    private static final String FILE_ID = "fileId";
+
+    @Mock
+    private RequestStatusRepository statusRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private RequestStatusCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RequestStatusCache(statusRepository, meterRegistry, 100, 2, 600);
+    }
+
+    @Test
+    @DisplayName("A status is read from the repository once and then served from the cache")
+    void readThrough() {
+        RequestStatus status = status(RequestStatus.STATE_COMPLETE);
+        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(status));
+
+        assertThat(cache.findById(FILE_ID), is(Optional.of(status)));
+        assertThat(cache.findById(FILE_ID), is(Optional.of(status)));
+
+        verify(statusRepository, times(1)).findById(FILE_ID);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", RequestStatusCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count(), is(1.0));
+    }
+
+    @Test
+    @DisplayName("A missing status is not cached")
+    void missingStatusNotCached() {
+        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.empty());
+
+        assertThat(cache.findById(FILE_ID), is(Optional.empty()));
+        assertThat(cache.findById(FILE_ID), is(Optional.empty()));
+
+        verify(statusRepository, times(2)).findById(FILE_ID);
+    }
+
+    @Test
+    @DisplayName("A saved status replaces the cached one without a read")
+    void savedEventUpdatesCache() {
+        RequestStatus status = status(RequestStatus.STATE_PENDING);
+
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(status));
+
+        assertThat(cache.findById(FILE_ID), is(Optional.of(status)));
+        verifyNoInteractions(statusRepository);
+    }
+
+    @Test
+    @DisplayName("A saved status older than the cached one is ignored")
+    void olderSavedEventIgnored() {
+        LocalDateTime updated = LocalDateTime.of(2024, 1, 2, 9, 30);
+        RequestStatus complete = status(RequestStatus.STATE_COMPLETE, updated);
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(complete));
+
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(status(RequestStatus.STATE_PENDING,
+                updated.minusSeconds(5))));
+
+        assertThat(cache.findById(FILE_ID), is(Optional.of(complete)));
+        assertThat(cache.findETag(FILE_ID), is(ValidationResponse.eTag(complete)));
+        verifyNoInteractions(statusRepository);
+    }
+
+    @Test
+    @DisplayName("A saved status as new as the cached one replaces it")
+    void sameTimeSavedEventReplaces() {
+        LocalDateTime updated = LocalDateTime.of(2024, 1, 2, 9, 30);
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(status(RequestStatus.STATE_PENDING, updated)));
+        RequestStatus complete = status(RequestStatus.STATE_COMPLETE, updated);
+
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(complete));
+
+        assertThat(cache.findById(FILE_ID), is(Optional.of(complete)));
+    }
+
+    @Test
+    @DisplayName("A removed status is dropped from the cache")
+    void removedEventInvalidates() {
+        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.empty());
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(status(RequestStatus.STATE_COMPLETE)));
+
+        cache.onStatusChanged(RequestStatusChangedEvent.removed(FILE_ID));
+
+        assertThat(cache.findById(FILE_ID), is(Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("The ETag of a cached status is computed without a read")
+    void eTagFromCache() {
+        RequestStatus status = status(RequestStatus.STATE_COMPLETE);
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(status));
+
+        assertThat(cache.findETag(FILE_ID), is(ValidationResponse.eTag(status)));
+        verifyNoInteractions(statusRepository);
+    }
+
+    @Test
+    @DisplayName("The ETag of an uncached status is computed from the version projection")
+    void eTagFromProjection() {
+        RequestStatus version = new RequestStatus(FILE_ID, null, RequestStatus.STATE_PENDING, null, null,
+                LocalDateTime.now());
+        when(statusRepository.findVersionById(FILE_ID)).thenReturn(Optional.of(version));
+
+        assertThat(cache.findETag(FILE_ID), is(ValidationResponse.eTag(version)));
+        verify(statusRepository, never()).findById(FILE_ID);
+    }
+
+    @Test
+    @DisplayName("A pending status expires before a complete one")
+    void pendingStatusExpires() {
+        cache = new RequestStatusCache(statusRepository, meterRegistry, 100, 0, 600);
+        RequestStatus status = status(RequestStatus.STATE_PENDING);
+        when(statusRepository.findById(FILE_ID)).thenReturn(Optional.of(status));
+        cache.onStatusChanged(RequestStatusChangedEvent.saved(status));
+
+        cache.findById(FILE_ID);
+
+        verify(statusRepository).findById(FILE_ID);
+        assertThat(meterRegistry.find("cache.size").tag("cache", RequestStatusCache.CACHE_NAME).gauge(),
+                is(notNullValue()));
+    }
+
+    private static RequestStatus status(String state) {
+        return status(state, LocalDateTime.now());
+    }
+
+    private static RequestStatus status(String state, LocalDateTime updated) {
+        return new RequestStatus(FILE_ID, "name", state, null, updated, updated);
+    }
+}
@@ -0,0 +1,138 @@
+package uk.gov.companieshouse.account.validator.service.status;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+import uk.gov.companieshouse.account.validator.repository.RequestStatusRepositoryImpl;
+import uk.gov.companieshouse.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs against a single node replica set, as change streams are not available on a standalone Mongo.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@ExtendWith(MockitoExtension.class)
+class RequestStatusChangeStreamListenerTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private ApplicationEventPublisher writerEvents;
+
+    private final BlockingQueue<RequestStatusChangedEvent> events = new LinkedBlockingQueue<>();
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private RequestStatusChangeStreamListener listener;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        mongoClient = MongoClients.create(MONGO.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "account_validator");
+        listener = new RequestStatusChangeStreamListener(logger, mongoTemplate,
+                event -> events.add((RequestStatusChangedEvent) event));
+        listener.start();
+        listener.getSubscription().await(Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.destroy();
+        mongoTemplate.dropCollection(RequestStatus.class);
+        mongoClient.close();
+    }
+
+    @Test
+    @DisplayName("Statuses written by any instance are published as they are inserted and updated")
+    void publishesWrites() throws InterruptedException {
+        RequestStatusRepositoryImpl writer = new RequestStatusRepositoryImpl(mongoTemplate, writerEvents);
+        LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        writer.upsert(new RequestStatus("fileId", "name", RequestStatus.STATE_PENDING, null, created, created));
+        RequestStatusChangedEvent inserted = next();
+        writer.upsert(new RequestStatus("fileId", null, RequestStatus.STATE_COMPLETE, null, created.plusDays(1),
+                created.plusDays(1)));
+        RequestStatusChangedEvent updated = next();
+
+        assertThat(inserted.status().status(), is(RequestStatus.STATE_PENDING));
+        assertThat(updated.fileId(), is("fileId"));
+        assertThat(updated.status().status(), is(RequestStatus.STATE_COMPLETE));
+        assertThat(updated.status().fileName(), is("name"));
+        assertThat(updated.status().createdDateTime(), is(created));
+    }
+
+    @Test
+    @DisplayName("Removed statuses are published as removals")
+    void publishesDeletes() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.insert(new RequestStatus("fileId", "name", RequestStatus.STATE_COMPLETE, null, now, now));
+        next();
+
+        mongoTemplate.remove(mongoTemplate.findById("fileId", RequestStatus.class));
+
+        RequestStatusChangedEvent removed = next();
+        assertThat(removed.fileId(), is("fileId"));
+        assertThat(removed.isRemoved(), is(true));
+    }
+
+    @Test
+    @DisplayName("A failed change stream is restarted and resumes after the last change it saw")
+    void restartsAfterFailure() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.insert(new RequestStatus("first", "name", RequestStatus.STATE_PENDING, null, now, now));
+        next();
+
+        listener.getSubscription().cancel();
+        listener.onError(new IllegalStateException("cursor closed"));
+        mongoTemplate.insert(new RequestStatus("second", "name", RequestStatus.STATE_PENDING, null, now, now));
+
+        assertThat(next().fileId(), is("second"));
+        assertThat(listener.getRestarts(), is(1L));
+        assertThat(listener.isActive(), is(true));
+    }
+
+    @Test
+    @DisplayName("A stopped change stream is not restarted after a failure")
+    void notRestartedAfterStop() throws InterruptedException {
+        listener.stop();
+
+        listener.onError(new IllegalStateException("cursor closed"));
+        Thread.sleep(RequestStatusChangeStreamListener.INITIAL_RESTART_DELAY.multipliedBy(2).toMillis());
+
+        assertThat(listener.getRestarts(), is(0L));
+        assertThat(listener.isActive(), is(false));
+    }
+
+    private RequestStatusChangedEvent next() throws InterruptedException {
+        RequestStatusChangedEvent event = events.poll(10, TimeUnit.SECONDS);
+        assertThat(event, is(notNullValue()));
+        return event;
+    }
+}
@@ -0,0 +1,102 @@
+package uk.gov.companieshouse.account.validator.service.status;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatus;
+import uk.gov.companieshouse.account.validator.model.validation.RequestStatusChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class RequestStatusWatchersTest {
+
+    private final RequestStatusWatchers watchers = new RequestStatusWatchers();
+
+    @Test
+    @DisplayName("Watchers are told of changes to the file they watch until they cancel")
+    void watch() {
+        List<RequestStatusChangedEvent> seen = new ArrayList<>();
+        Runnable cancel = watchers.watch("fileId", seen::add);
+        RequestStatusChangedEvent event = RequestStatusChangedEvent.saved(status("fileId", RequestStatus.STATE_COMPLETE));
+
+        watchers.onStatusChanged(RequestStatusChangedEvent.removed("otherFileId"));
+        watchers.onStatusChanged(event);
+        cancel.run();
+        watchers.onStatusChanged(RequestStatusChangedEvent.removed("fileId"));
+
+        assertThat(seen, contains(event));
+        assertThat(watchers.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("Cancelling one watch leaves the others on the same file")
+    void cancelOne() {
+        List<RequestStatusChangedEvent> seen = new ArrayList<>();
+        List<RequestStatusChangedEvent> cancelled = new ArrayList<>();
+        watchers.watch("fileId", seen::add);
+        watchers.watch("fileId", cancelled::add).run();
+
+        watchers.onStatusChanged(RequestStatusChangedEvent.removed("fileId"));
+
+        assertThat(seen.size(), is(1));
+        assertThat(cancelled, is(empty()));
+        assertThat(watchers.size(), is(1));
+    }
+
+    @Test
+    @DisplayName("A watch started while the last other watch on the file is cancelled is not lost")
+    void watchWhileCancelling() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                Runnable other = watchers.watch("fileId", event -> { });
+                List<RequestStatusChangedEvent> seen = new CopyOnWriteArrayList<>();
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> cancel = executor.submit(() -> {
+                    start.await();
+                    other.run();
+                    return null;
+                });
+                Future<Runnable> watch = executor.submit(() -> {
+                    start.await();
+                    return watchers.watch("fileId", seen::add);
+                });
+
+                start.countDown();
+                cancel.get();
+                Runnable stop = watch.get();
+                watchers.onStatusChanged(RequestStatusChangedEvent.removed("fileId"));
+
+                assertThat(seen.size(), is(1));
+                stop.run();
+            }
+            assertThat(watchers.size(), is(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Only complete and error statuses are finished")
+    void isFinished() {
+        assertThat(RequestStatusWatchers.isFinished(status("fileId", RequestStatus.STATE_COMPLETE)), is(true));
+        assertThat(RequestStatusWatchers.isFinished(status("fileId", RequestStatus.STATE_ERROR)), is(true));
+        assertThat(RequestStatusWatchers.isFinished(status("fileId", RequestStatus.STATE_PENDING)), is(false));
+        assertThat(RequestStatusWatchers.isFinished(null), is(false));
+    }
+
+    private static RequestStatus status(String fileId, String state) {
+        return new RequestStatus(fileId, "name", state, null, LocalDateTime.now(), LocalDateTime.now());
+    }
+}